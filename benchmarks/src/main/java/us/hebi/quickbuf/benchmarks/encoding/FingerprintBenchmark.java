@@ -0,0 +1,105 @@
+/*-
+ * #%L
+ * benchmarks
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf.benchmarks.encoding;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+import protos.test.quickbuf.ForeignMessage;
+import protos.test.quickbuf.TestAllTypes;
+import us.hebi.quickbuf.ProtoSink;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the generated fingerprint64() against hashing the serialized
+ * bytes, either via toByteArray() or via a reused output buffer.
+ *
+ * === JDK17 (short run: 1 fork, 3 iterations)
+ * Benchmark                                 Mode  Cnt  Score   Error  Units
+ * FingerprintBenchmark.fingerprint64        avgt    3  0.175 ± 0.139  us/op
+ * FingerprintBenchmark.toByteArrayThenHash  avgt    3  0.451 ± 1.584  us/op
+ * FingerprintBenchmark.writeToThenHash      avgt    3  0.313 ± 0.132  us/op
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class FingerprintBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(".*" + FingerprintBenchmark.class.getSimpleName() + ".*")
+                .verbosity(VerboseMode.NORMAL)
+                .build();
+        new Runner(options).run();
+    }
+
+    final TestAllTypes msg = TestAllTypes.newInstance()
+            .setOptionalBool(true)
+            .setOptionalDouble(100.0d)
+            .setOptionalFloat(101.0f)
+            .setOptionalFixed32(102)
+            .setOptionalFixed64(103)
+            .setOptionalSfixed32(104)
+            .setOptionalSfixed64(105)
+            .setOptionalSint32(106)
+            .setOptionalSint64(107)
+            .setOptionalInt32(108)
+            .setOptionalInt64(109)
+            .setOptionalUint32(110)
+            .setOptionalUint64(111)
+            .setDefaultString("ascii string")
+            .setOptionalString("non-ascii \uD83D\uDCA9 string")
+            .setDefaultNestedEnum(TestAllTypes.NestedEnum.FOO)
+            .addAllRepeatedFixed32(new int[5])
+            .addAllRepeatedDouble(new double[5])
+            .addRepeatedForeignMessage(ForeignMessage.newInstance().setC(512));
+    final byte[] outBuffer = new byte[msg.getSerializedSize()];
+    final ProtoSink sink = ProtoSink.newArraySink();
+
+    @Benchmark
+    public long fingerprint64() {
+        return msg.fingerprint64();
+    }
+
+    @Benchmark
+    public int toByteArrayThenHash() {
+        return Arrays.hashCode(msg.toByteArray());
+    }
+
+    @Benchmark
+    public int writeToThenHash() throws IOException {
+        msg.writeTo(sink.setOutput(outBuffer));
+        return Arrays.hashCode(outBuffer);
+    }
+
+}
@@ -0,0 +1,130 @@
+/*-
+ * #%L
+ * benchmarks
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf.benchmarks.encoding;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+import protos.test.quickbuf.TestMaps;
+import us.hebi.quickbuf.ProtoSource;
+import us.hebi.quickbuf.RepeatedMessage;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares lookups in a map with 50k entries that is generated as a hash map
+ * against a linear scan over the entry messages that map fields used to be
+ * generated as, as well as against protobuf-java.
+ *
+ * === JDK17 (short run: 1 fork, 3 iterations)
+ * Benchmark                           Mode  Cnt      Score        Error  Units
+ * MapLookupBenchmark.entryLinearScan  avgt    3  22994.522 ± 163764.236  ns/op
+ * MapLookupBenchmark.hashMapLookup    avgt    3     15.451 ±     56.573  ns/op
+ * MapLookupBenchmark.hashMapParse     avgt    3   2823.225 ±   6416.491  us/op
+ * MapLookupBenchmark.protobufLookup   avgt    3     25.374 ±     17.243  ns/op
+ * MapLookupBenchmark.protobufParse    avgt    3   7255.332 ±   2801.777  us/op
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class MapLookupBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(".*" + MapLookupBenchmark.class.getSimpleName() + ".*")
+                .verbosity(VerboseMode.NORMAL)
+                .build();
+        new Runner(options).run();
+    }
+
+    final int numEntries = 50000;
+    final int[] keys = new int[numEntries];
+    final TestMaps hashMap = TestMaps.newInstance();
+    final RepeatedMessage<TestMaps.Int32ToDoubleEntry> entries = RepeatedMessage.newEmptyInstance(TestMaps.Int32ToDoubleEntry.getFactory());
+    final protos.test.protobuf.TestMaps.Builder protobufMap = protos.test.protobuf.TestMaps.newBuilder();
+    final ProtoSource source = ProtoSource.newArraySource();
+    byte[] bytes;
+    int cursor = 0;
+
+    @Setup
+    public void setup() {
+        final Random rnd = new Random(0);
+        for (int i = 0; i < numEntries; i++) {
+            keys[i] = rnd.nextInt();
+            hashMap.putInt32ToDouble(keys[i], i);
+            entries.next().setKey(keys[i]).setValue(i);
+            protobufMap.putInt32ToDouble(keys[i], i);
+        }
+        bytes = hashMap.toByteArray();
+    }
+
+    private int nextKey() {
+        if (++cursor == numEntries) {
+            cursor = 0;
+        }
+        return keys[cursor];
+    }
+
+    @Benchmark
+    public double hashMapLookup() {
+        return hashMap.getInt32ToDoubleOrDefault(nextKey(), 0);
+    }
+
+    @Benchmark
+    public double entryLinearScan() {
+        final int key = nextKey();
+        for (int i = 0; i < entries.length(); i++) {
+            if (entries.get(i).getKey() == key) {
+                return entries.get(i).getValue();
+            }
+        }
+        return 0;
+    }
+
+    @Benchmark
+    public double protobufLookup() {
+        return protobufMap.getInt32ToDoubleOrDefault(nextKey(), 0);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public TestMaps hashMapParse() throws IOException {
+        return hashMap.clearQuick().mergeFrom(source.setInput(bytes));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public protos.test.protobuf.TestMaps protobufParse() throws IOException {
+        return protos.test.protobuf.TestMaps.parseFrom(bytes);
+    }
+
+}
@@ -107,6 +107,20 @@ public class Utf8ToStringBenchmark {
             "this is a pretty long \uD83D\uDCA9 string \n" +
             "this is a pretty long \uD83D\uDCA9 string \n").getBytes(StandardCharsets.UTF_8);
 
+    byte[] cjkBytes = ("" +
+            "\u3053\u308c\u306f\u304b\u306a\u308a\u9577\u3044\u6587\u5b57\u5217\u3067\u3059\u3002\n" +
+            "\u3053\u308c\u306f\u304b\u306a\u308a\u9577\u3044\u6587\u5b57\u5217\u3067\u3059\u3002\n" +
+            "\u3053\u308c\u306f\u304b\u306a\u308a\u9577\u3044\u6587\u5b57\u5217\u3067\u3059\u3002\n" +
+            "\u3053\u308c\u306f\u304b\u306a\u308a\u9577\u3044\u6587\u5b57\u5217\u3067\u3059\u3002\n" +
+            "\u3053\u308c\u306f\u304b\u306a\u308a\u9577\u3044\u6587\u5b57\u5217\u3067\u3059\u3002\n" +
+            "\u3053\u308c\u306f\u304b\u306a\u308a\u9577\u3044\u6587\u5b57\u5217\u3067\u3059\u3002\n" +
+            "\u3053\u308c\u306f\u304b\u306a\u308a\u9577\u3044\u6587\u5b57\u5217\u3067\u3059\u3002\n" +
+            "\u3053\u308c\u306f\u304b\u306a\u308a\u9577\u3044\u6587\u5b57\u5217\u3067\u3059\u3002\n" +
+            "\u3053\u308c\u306f\u304b\u306a\u308a\u9577\u3044\u6587\u5b57\u5217\u3067\u3059\u3002\n" +
+            "\u3053\u308c\u306f\u304b\u306a\u308a\u9577\u3044\u6587\u5b57\u5217\u3067\u3059\u3002\n" +
+            "\u3053\u308c\u306f\u304b\u306a\u308a\u9577\u3044\u6587\u5b57\u5217\u3067\u3059\u3002\n" +
+            "\u3053\u308c\u306f\u304b\u306a\u308a\u9577\u3044\u6587\u5b57\u5217\u3067\u3059\u3002\n").getBytes(StandardCharsets.UTF_8);
+
     final StringBuilder builder = new StringBuilder(128);
 
     @Benchmark
@@ -119,6 +133,11 @@ public class Utf8ToStringBenchmark {
         return new String(utf8Bytes, 0, utf8Bytes.length, StandardCharsets.UTF_8);
     }
 
+    @Benchmark
+    public String readBuiltinCjk() throws IOException {
+        return new String(cjkBytes, 0, cjkBytes.length, StandardCharsets.UTF_8);
+    }
+
     @Benchmark
     public String readManualAscii() throws IOException {
         ProtoUtil.decodeUtf8(asciiBytes, 0, asciiBytes.length, builder);
@@ -131,4 +150,10 @@ public class Utf8ToStringBenchmark {
         return builder.toString();
     }
 
+    @Benchmark
+    public String readManualCjk() throws IOException {
+        ProtoUtil.decodeUtf8(cjkBytes, 0, cjkBytes.length, builder);
+        return builder.toString();
+    }
+
 }
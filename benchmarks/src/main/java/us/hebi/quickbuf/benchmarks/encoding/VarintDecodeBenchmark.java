@@ -0,0 +1,152 @@
+/*-
+ * #%L
+ * benchmarks
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf.benchmarks.encoding;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+import us.hebi.quickbuf.ProtoSink;
+import us.hebi.quickbuf.ProtoSource;
+import us.hebi.quickbuf.RepeatedByte;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures decoding of a packed sequence of varints with different value distributions.
+ * The array and direct sources decode up to 8 bytes at once, whereas the buffer source
+ * reads one byte at a time and serves as the baseline.
+ *
+ * === JDK17 (quickbuf.disable_unaligned_access=false)
+ * Benchmark                              (distribution)  Mode  Cnt  Score   Error  Units
+ * VarintDecodeBenchmark.readArraySource         OneByte  avgt   10  0.315 ± 0.083  us/op
+ * VarintDecodeBenchmark.readArraySource      Production  avgt   10  0.678 ± 0.101  us/op
+ * VarintDecodeBenchmark.readArraySource       BitLength  avgt   10  2.822 ± 0.661  us/op
+ * VarintDecodeBenchmark.readArraySource        Negative  avgt   10  3.326 ± 0.611  us/op
+ * VarintDecodeBenchmark.readArraySource      Timestamps  avgt   10  2.557 ± 0.351  us/op
+ *
+ * === JDK17 (quickbuf.disable_unaligned_access=true)
+ * Benchmark                              (distribution)  Mode  Cnt  Score   Error  Units
+ * VarintDecodeBenchmark.readArraySource         OneByte  avgt   10  0.273 ± 0.037  us/op
+ * VarintDecodeBenchmark.readArraySource      Production  avgt   10  0.772 ± 0.302  us/op
+ * VarintDecodeBenchmark.readArraySource       BitLength  avgt   10  2.362 ± 0.389  us/op
+ * VarintDecodeBenchmark.readArraySource        Negative  avgt   10  3.098 ± 1.097  us/op
+ * VarintDecodeBenchmark.readArraySource      Timestamps  avgt   10  4.222 ± 0.743  us/op
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 250, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 250, timeUnit = TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+public class VarintDecodeBenchmark {
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(".*" + VarintDecodeBenchmark.class.getSimpleName() + ".*")
+                .verbosity(VerboseMode.NORMAL)
+                .build();
+        new Runner(options).run();
+    }
+
+    public enum Distribution {
+        /** all values below 128 (best case, e.g., tags and enums) */
+        OneByte,
+        /** mostly 1 byte, some 2 bytes (similar to observed message data) */
+        Production,
+        /** uniform bit length up to 35 bits (e.g., ids and counters) */
+        BitLength,
+        /** 25% negative int32 values that need 10 bytes */
+        Negative,
+        /** 64 bit timestamps in nanoseconds */
+        Timestamps
+    }
+
+    @Param
+    Distribution distribution;
+
+    final int numValues = 512;
+    final ProtoSource arraySource = ProtoSource.newArraySource();
+    final ProtoSource directSource = ProtoSource.newDirectSource();
+    final ProtoSource bufferSource = ProtoSource.newBufferSource();
+    final RepeatedByte bytes = RepeatedByte.newEmptyInstance();
+    ByteBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        final Random random = new Random(0);
+        final ProtoSink sink = ProtoSink.newInstance(bytes);
+        for (int i = 0; i < numValues; i++) {
+            sink.writeUInt64NoTag(nextValue(random));
+        }
+        buffer = ByteBuffer.wrap(bytes.toArray());
+    }
+
+    private long nextValue(Random random) {
+        switch (distribution) {
+            case OneByte:
+                return random.nextInt(128);
+            case Production:
+                return random.nextFloat() < 0.948f ? random.nextInt(128) : 128 + random.nextInt(16256);
+            case BitLength:
+                return random.nextLong() >>> (29 + random.nextInt(35));
+            case Negative:
+                return random.nextFloat() < 0.75f ? Math.abs(random.nextInt()) : (long) -Math.abs(random.nextInt());
+            case Timestamps:
+                return 1697500000000000000L + Math.abs(random.nextLong() % 1000000000000L);
+            default:
+                throw new IllegalArgumentException();
+        }
+    }
+
+    @Benchmark
+    public long readArraySource() throws IOException {
+        return readAll(arraySource.setInput(bytes));
+    }
+
+    @Benchmark
+    public long readDirectSource() throws IOException {
+        return readAll(directSource.setInput(bytes));
+    }
+
+    @Benchmark
+    public long readBufferSource() throws IOException {
+        buffer.clear();
+        return readAll(bufferSource.setInput(buffer));
+    }
+
+    private long readAll(ProtoSource source) throws IOException {
+        long sum = 0;
+        for (int i = 0; i < numValues; i++) {
+            sum += source.readRawVarint64();
+        }
+        return sum;
+    }
+
+}
@@ -65,6 +65,40 @@ class BitField {
         copyFrom.addStatement("$1L = other.$1L", BitField.fieldName(fieldIndex));
     }
 
+    static void generateMaskedBitsCode(MethodSpec.Builder method, int numBitFields, String source) {
+        for (int i = 0; i < numBitFields; i++) {
+            method.addStatement("final int bits$1L = $2L$3L & mask.getBits($1L)", i, source, BitField.fieldName(i));
+        }
+    }
+
+    static void generateMaskedCopyFromCode(MethodSpec.Builder copyFrom, int numBitFields) {
+        for (int i = 0; i < numBitFields; i++) {
+            copyFrom.addStatement("final int mask$1L = mask.getBits($1L)", i);
+            copyFrom.addStatement("$1L = ($1L & ~mask$2L) | (other.$1L & mask$2L)", BitField.fieldName(i), i);
+        }
+    }
+
+    static String hasMaskedBit(int hasBitIndex) {
+        return String.format("(bits%d & 0x%08x) != 0", getFieldIndex(hasBitIndex), 1 << getBitIndex(hasBitIndex));
+    }
+
+    static String isInMask(int hasBitIndex) {
+        return String.format("(mask%d & 0x%08x) != 0", getFieldIndex(hasBitIndex), 1 << getBitIndex(hasBitIndex));
+    }
+
+    static String isSetInBoth(int hasBitIndex) {
+        return String.format("(both%d & 0x%08x) != 0", getFieldIndex(hasBitIndex), 1 << getBitIndex(hasBitIndex));
+    }
+
+    static String setChangedBit(int hasBitIndex) {
+        return String.format("changed%d |= 0x%08x", getFieldIndex(hasBitIndex), 1 << getBitIndex(hasBitIndex));
+    }
+
+    static void generateSetMaskCode(MethodSpec.Builder method, int hasBitIndex) {
+        method.addStatement("mask.setBits($L, 0x$L)", getFieldIndex(hasBitIndex),
+                String.format("%08x", 1 << getBitIndex(hasBitIndex)));
+    }
+
     static String hasAnyBit(List<FieldInfo> fields) {
         return hasAnyBit(generateBitset(fields));
     }
@@ -60,6 +60,20 @@ public class FieldGenerator {
         }
         type.addField(field.build());
 
+        if (info.isLazyParsingEnabled()) {
+            type.addField(FieldSpec.builder(RuntimeClasses.BytesType, info.getLazyBytesName())
+                    .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+                    .initializer("$T.newEmptyInstance()", RuntimeClasses.BytesType)
+                    .build());
+        }
+
+        if (info.isZeroCopyEnabled()) {
+            type.addField(FieldSpec.builder(RuntimeClasses.BytesViewType, info.getViewName())
+                    .addModifiers(Modifier.PRIVATE, Modifier.FINAL)
+                    .initializer("$T.newEmptyInstance()", RuntimeClasses.BytesViewType)
+                    .build());
+        }
+
         if (info.isBytes() && info.hasDefaultValue()) {
             // byte[] default values are stored as utf8 strings, so we need to convert it first
             type.addField(FieldSpec.builder(ArrayTypeName.get(byte[].class), info.getDefaultFieldName())
@@ -69,7 +83,7 @@ public class FieldGenerator {
         }
     }
 
-    private CodeBlock initializer() {
+    protected CodeBlock initializer() {
         CodeBlock.Builder initializer = CodeBlock.builder();
         if (info.isRepeated() && info.isMessageOrGroup()) {
             initializer.add("$T.newEmptyInstance($T.getFactory())", RuntimeClasses.RepeatedMessage, info.getTypeName());
@@ -107,6 +121,12 @@ public class FieldGenerator {
             return;
         }
 
+        if (info.isLazyParsingEnabled()) {
+            method.addStatement(named("$lazyBytes:N.clear()"));
+        } else if (info.isZeroCopyEnabled()) {
+            method.addStatement(named("$bytesView:N.clear()"));
+        }
+
         if (info.isLazyAllocationEnabled()) {
             method.beginControlFlow(named("if ($field:N != null)"));
         }
@@ -140,6 +160,12 @@ public class FieldGenerator {
             return; // no action needed
         }
 
+        if (info.isLazyParsingEnabled()) {
+            method.addStatement(named("$lazyBytes:N.clear()"));
+        } else if (info.isZeroCopyEnabled()) {
+            method.addStatement(named("$bytesView:N.clear()"));
+        }
+
         if (info.isLazyAllocationEnabled()) {
             method.beginControlFlow(named("if ($field:N != null)"));
         }
@@ -158,18 +184,62 @@ public class FieldGenerator {
     }
 
     protected void generateCopyFromCode(MethodSpec.Builder method) {
-        if (info.isSingularPrimitiveOrEnum()) {
+        generateCopyFromCode(method, EMPTY_BLOCK);
+    }
+
+    /**
+     * Masked copies replace oneof fields without going through the setters, so the
+     * other fields of the same oneof need to be cleared if the other message has this
+     * field set. The code gets folded into an existing has check where possible.
+     */
+    protected void generateMaskedCopyFromCode(MethodSpec.Builder method) {
+        generateCopyFromCode(method, clearOtherOneOfs);
+    }
+
+    private void generateCopyFromCode(MethodSpec.Builder method, CodeBlock ifOtherHasField) {
+        final boolean hasCheck = info.isLazyAllocationEnabled() && !info.isSingularPrimitiveOrEnum();
+        if (!hasCheck && !ifOtherHasField.isEmpty()) {
+            method.beginControlFlow(named("if (other.$hasMethod:N())"))
+                    .addCode(ifOtherHasField)
+                    .endControlFlow();
+        }
+        if (info.isZeroCopyEnabled()) {
+            // copy the contents so that the result does not depend on the other message
+            CodeBlock copyBytes = named("" +
+                    "$bytesView:N.clear();\n" +
+                    "if (other.$bytesView:N.length() != 0) {$>\n" +
+                    "other.$bytesView:N.copyTo($field:N);\n" +
+                    "$<} else {$>\n" +
+                    "$field:N.copyFrom(other.$field:N);\n" +
+                    "$<}\n");
+            if (info.isLazyAllocationEnabled()) {
+                method.addCode(named("" +
+                                "if (other.$hasMethod:N()) {$>\n"))
+                        .addCode(ifOtherHasField)
+                        .addCode(named("$lazyInitMethod:L();\n"))
+                        .addCode(copyBytes)
+                        .addCode(named("" +
+                                "$<} else {$>\n" +
+                                "$clearMethod:L();\n" +
+                                "$<}\n"));
+            } else {
+                method.addCode(copyBytes);
+            }
+
+        } else if (info.isSingularPrimitiveOrEnum()) {
             method.addStatement(named("$field:N = other.$field:N"));
 
         } else if (info.isRepeated() || info.isBytes() || info.isMessageOrGroup() || info.isString()) {
             if (info.isLazyAllocationEnabled()) {
-                method.addCode(named("" +
-                        "if (other.$hasMethod:N()) {$>\n" +
-                        "$lazyInitMethod:L();\n" +
-                        "$field:N.copyFrom(other.$field:N);\n" +
-                        "$<} else {$>\n" +
-                        "$clearMethod:L();\n" +
-                        "$<}\n"));
+                method.addCode(named("if (other.$hasMethod:N()) {$>\n"))
+                        .addCode(ifOtherHasField)
+                        .addCode(named("" +
+                                "$lazyInitMethod:L();\n" +
+                                "$field:N.copyFrom(other.$field:N);\n" +
+                                (info.isLazyParsingEnabled() ? "$lazyBytes:N.copyFrom(other.$lazyBytes:N);\n" : "") +
+                                "$<} else {$>\n" +
+                                "$clearMethod:L();\n" +
+                                "$<}\n"));
             } else {
                 method.addStatement(named("$field:N.copyFrom(other.$field:N)"));
             }
@@ -181,6 +251,12 @@ public class FieldGenerator {
     protected void generateMergeFromMessageCode(MethodSpec.Builder method) {
         if (info.isRepeated()) {
             method.addStatement(named("$getMutableMethod:N().addAll(other.$field:N)"));
+        } else if (info.isLazyParsingEnabled()) {
+            method.addStatement(named("$getMutableMethod:N().mergeFrom(other.$getMethod:N())"));
+        } else if (info.isZeroCopyEnabled() && info.isString()) {
+            method.addStatement(named("$getMutableMethod:NBytes().copyFrom(other.$getMethod:NBytes())"));
+        } else if (info.isZeroCopyEnabled()) {
+            method.addStatement(named("$getMutableMethod:N().copyFrom(other.$getMethod:N())"));
         } else if (info.isMessageOrGroup()) {
             method.addStatement(named("$getMutableMethod:N().mergeFrom(other.$field:N)"));
         } else if (info.isBytes()) {
@@ -197,7 +273,13 @@ public class FieldGenerator {
     }
 
     protected void generateEqualsStatement(MethodSpec.Builder method) {
-        if (info.isRepeated() || info.isBytes() || info.isMessageOrGroup() || info.isString()) {
+        if (info.isLazyParsingEnabled()) {
+            method.addNamedCode("$getMethod:N().equals(other.$getMethod:N())", m);
+
+        } else if (info.isZeroCopyEnabled()) {
+            method.addNamedCode("$getViewMethod:N().equals(other.$getViewMethod:N())", m);
+
+        } else if (info.isRepeated() || info.isBytes() || info.isMessageOrGroup() || info.isString()) {
             method.addNamedCode("$field:N.equals(other.$field:N)", m);
 
         } else if (typeName == TypeName.DOUBLE || typeName == TypeName.FLOAT) {
@@ -211,10 +293,62 @@ public class FieldGenerator {
         }
     }
 
+    protected void generateHashCodeStatement(MethodSpec.Builder method) {
+        if (info.isLazyParsingEnabled()) {
+            method.addNamedCode("$getMethod:N().hashCode()", m);
+
+        } else if (info.isZeroCopyEnabled()) {
+            method.addNamedCode("$getViewMethod:N().contentHash()", m);
+
+        } else if (info.isRepeated() || info.isBytes() || info.isMessageOrGroup() || info.isString()) {
+            method.addNamedCode("$field:N.hashCode()", m);
+
+        } else if (info.isPrimitive() || info.isEnum()) {
+            method.addNamedCode("$protoUtil:T.hash($field:N)", m);
+
+        } else {
+            throw new IllegalStateException("unhandled field: " + info.getDescriptor());
+        }
+    }
+
+    protected void generateFingerprintCode(MethodSpec.Builder method) {
+        if (info.isLazyParsingEnabled()) {
+            method.addStatement("hash = $T.hashField(hash, $L, $N())", RuntimeClasses.Fingerprint, info.getNumber(), info.getGetterName());
+        } else if (info.isZeroCopyEnabled()) {
+            method.addStatement("hash = $T.hashField(hash, $L, $N())", RuntimeClasses.Fingerprint, info.getNumber(), info.getViewGetterName());
+        } else {
+            method.addStatement("hash = $T.hashField(hash, $L, $N)", RuntimeClasses.Fingerprint, info.getNumber(), info.getFieldName());
+        }
+    }
+
     /**
      * @return true if the tag needs to be read
      */
     protected boolean generateMergingCode(MethodSpec.Builder method) {
+        if (info.isLazyParsingEnabled()) {
+            // Store the bytes unless the content has already been parsed
+            method.addCode(clearOtherOneOfs)
+                    .addNamedCode("" +
+                            "$lazyInitMethod:L();\n" +
+                            "if ($getHas:L && $lazyBytes:N.length() == 0) {$>\n" +
+                            "input.readMessage($field:N);\n" +
+                            "$<} else {$>\n" +
+                            "input.readMessageBytes($lazyBytes:N);\n" +
+                            "$<}\n", m)
+                    .addStatement(named("$setHas:L"));
+            return true;
+        }
+
+        if (info.isZeroCopyEnabled()) {
+            // Refer to the input and drop previously owned contents
+            method.addCode(clearOtherOneOfs)
+                    .addCode(info.isLazyAllocationEnabled() ? named("$lazyInitMethod:L();\n") : EMPTY_BLOCK)
+                    .addStatement(named("input.readBytes($bytesView:N)"))
+                    .addStatement(named("$field:N.clear()"))
+                    .addStatement(named("$setHas:L"));
+            return true;
+        }
+
         method.addCode(clearOtherOneOfs).addCode(ensureFieldNotNull);
         if (info.isRepeated()) {
             method
@@ -296,6 +430,25 @@ public class FieldGenerator {
                     "$writeEndGroupTagToOutput:L" +
                     "$<}\n", m);
 
+        } else if (info.isLazyParsingEnabled()) {
+            // write unparsed bytes back unchanged
+            method.addNamedCode("" +
+                    "$writeTagToOutput:L" +
+                    "if ($lazyBytes:N.length() != 0) {$>\n" +
+                    "output.writeBytesNoTag($lazyBytes:N);\n" +
+                    "$<} else {$>\n" +
+                    "output.writeMessageNoTag($field:N);\n" +
+                    "$<}\n", m);
+
+        } else if (info.isZeroCopyEnabled()) {
+            method.addNamedCode("" +
+                    "$writeTagToOutput:L" +
+                    "if ($bytesView:N.length() != 0) {$>\n" +
+                    "output.writeBytesNoTag($bytesView:N);\n" +
+                    "$<} else {$>\n" +
+                    "output.write$capitalizedType:LNoTag($field:N);\n" +
+                    "$<}\n", m);
+
         } else {
             // unroll varint tag loop
             method.addNamedCode("" + // non-repeated
@@ -306,7 +459,66 @@ public class FieldGenerator {
         }
     }
 
-    private static String generateWriteVarint32(int value) {
+    protected void generateReverseSerializationCode(MethodSpec.Builder method) {
+        // Same as the forward serialization with the order of all statements reversed
+        m.put("writeTagToOutput", generateReverseWriteVarint32(getInfo().getTag()));
+        if (info.isPacked()) {
+            m.put("writePackedTagToOutput", generateReverseWriteVarint32(getInfo().getPackedTag()));
+        }
+        m.put("writeEndGroupTagToOutput", !info.isGroup() ? "" :
+                generateReverseWriteVarint32(getInfo().getEndGroupTag()));
+
+        if (info.isPacked()) {
+            method.addNamedCode("" +
+                    "output.writePacked$capitalizedType:LNoTag($field:N);\n" +
+                    "$writePackedTagToOutput:L", m);
+
+        } else if (info.isRepeated()) {
+            method.addNamedCode("" +
+                    "for (int i = $field:N.length() - 1; i >= 0; i--) {$>\n" +
+                    "$writeEndGroupTagToOutput:L" +
+                    "output.write$capitalizedType:LNoTag($field:N.$getRepeatedIndex_i:L);\n" +
+                    "$writeTagToOutput:L" +
+                    "$<}\n", m);
+
+        } else if (info.isLazyParsingEnabled()) {
+            method.addNamedCode("" +
+                    "if ($lazyBytes:N.length() != 0) {$>\n" +
+                    "output.writeBytesNoTag($lazyBytes:N);\n" +
+                    "$<} else {$>\n" +
+                    "output.writeMessageNoTag($field:N);\n" +
+                    "$<}\n" +
+                    "$writeTagToOutput:L", m);
+
+        } else if (info.isZeroCopyEnabled()) {
+            method.addNamedCode("" +
+                    "if ($bytesView:N.length() != 0) {$>\n" +
+                    "output.writeBytesNoTag($bytesView:N);\n" +
+                    "$<} else {$>\n" +
+                    "output.write$capitalizedType:LNoTag($field:N);\n" +
+                    "$<}\n" +
+                    "$writeTagToOutput:L", m);
+
+        } else {
+            method.addNamedCode("" + // non-repeated
+                    "$writeEndGroupTagToOutput:L" +
+                    "output.write$capitalizedType:LNoTag($field:N);\n" +
+                    "$writeTagToOutput:L", m
+            );
+        }
+    }
+
+    protected static String generateReverseWriteVarint32(int value) {
+        // Multi-byte chunks are little-endian, so only the order of the writes changes
+        final String[] lines = generateWriteVarint32(value).split("\n");
+        StringBuilder output = new StringBuilder();
+        for (int i = lines.length - 1; i >= 0; i--) {
+            output.append(lines[i]).append("\n");
+        }
+        return output.toString();
+    }
+
+    protected static String generateWriteVarint32(int value) {
         // Split tag into individual bytes
         int[] bytes = new int[5];
         int numBytes = 0;
@@ -347,6 +559,74 @@ public class FieldGenerator {
         return output;
     }
 
+    /**
+     * Nested messages write the length prefix based on the cached size, so outputs that
+     * don't compute the size of the parent first need to update the nested sizes.
+     */
+    protected void generateUpdateCachedSizeCode(MethodSpec.Builder method) {
+        if (!info.isMessageOrGroup()) {
+            return;
+        }
+        if (info.isRepeated()) {
+            method.beginControlFlow(named("for (int i = 0; i < $field:N.length(); i++)"))
+                    .addStatement(named("$field:N.get(i).getSerializedSize()"))
+                    .endControlFlow();
+        } else if (info.isLazyParsingEnabled()) {
+            method.beginControlFlow(named("if ($lazyBytes:N.length() == 0)"))
+                    .addStatement(named("$field:N.getSerializedSize()"))
+                    .endControlFlow();
+        } else {
+            method.addStatement(named("$field:N.getSerializedSize()"));
+        }
+    }
+
+    /**
+     * Nested messages keep their own memoized output. The parent remembers the versions
+     * of the ones it embedded, so that changes via previously retrieved references can
+     * be detected.
+     */
+    protected void generateNestedVersionCountCode(MethodSpec.Builder method) {
+        if (info.isRepeated()) {
+            method.addStatement(named("count += $field:N.length()"));
+        } else if (info.isLazyParsingEnabled()) {
+            method.addStatement(named("count += $lazyBytes:N.length() == 0 ? 1 : 0"));
+        } else {
+            method.addStatement("count++");
+        }
+    }
+
+    protected void generateNestedVersionRecordCode(MethodSpec.Builder method) {
+        if (info.isRepeated()) {
+            method.beginControlFlow(named("for (int i = 0; i < $field:N.length(); i++)"))
+                    .beginControlFlow(named("if ((nested[n++] = getMemoizedVersion($field:N.get(i))) < 0)"))
+                    .addStatement("return false")
+                    .endControlFlow()
+                    .endControlFlow();
+        } else {
+            method.beginControlFlow(info.isLazyParsingEnabled()
+                            ? named("if ($lazyBytes:N.length() == 0 && (nested[n++] = getMemoizedVersion($field:N)) < 0)")
+                            : named("if ((nested[n++] = getMemoizedVersion($field:N)) < 0)"))
+                    .addStatement("return false")
+                    .endControlFlow();
+        }
+    }
+
+    protected void generateNestedVersionCheckCode(MethodSpec.Builder method) {
+        if (info.isRepeated()) {
+            method.beginControlFlow(named("for (int i = 0; i < $field:N.length(); i++)"))
+                    .beginControlFlow(named("if (n == count || getMemoizedVersion($field:N.get(i)) != nested[n++])"))
+                    .addStatement("return -1")
+                    .endControlFlow()
+                    .endControlFlow();
+        } else {
+            method.beginControlFlow(info.isLazyParsingEnabled()
+                            ? named("if ($lazyBytes:N.length() == 0 && (n == count || getMemoizedVersion($field:N) != nested[n++]))")
+                            : named("if (n == count || getMemoizedVersion($field:N) != nested[n++])"))
+                    .addStatement("return -1")
+                    .endControlFlow();
+        }
+    }
+
     protected void generateComputeSerializedSizeCode(MethodSpec.Builder method) {
         if (info.isFixedWidth() && info.isPacked()) {
             method.addNamedCode("" +
@@ -368,6 +648,22 @@ public class FieldGenerator {
         } else if (info.isFixedWidth()) {
             method.addStatement("size += $L", (info.getBytesPerTag() + info.getFixedWidth())); // non-repeated
 
+        } else if (info.isLazyParsingEnabled()) {
+            method.addNamedCode("" +
+                    "if ($lazyBytes:N.length() != 0) {$>\n" +
+                    "size += $bytesPerTag:L + $protoSink:T.computeBytesSizeNoTag($lazyBytes:N);\n" +
+                    "$<} else {$>\n" +
+                    "size += $bytesPerTag:L + $protoSink:T.computeMessageSizeNoTag($field:N);\n" +
+                    "$<}\n", m);
+
+        } else if (info.isZeroCopyEnabled()) {
+            method.addNamedCode("" +
+                    "if ($bytesView:N.length() != 0) {$>\n" +
+                    "size += $bytesPerTag:L + $protoSink:T.computeBytesSizeNoTag($bytesView:N);\n" +
+                    "$<} else {$>\n" +
+                    "size += $bytesPerTag:L + $protoSink:T.compute$capitalizedType:LSizeNoTag($field:N);\n" +
+                    "$<}\n", m);
+
         } else {
             method.addStatement(named("size += $bytesPerTag:L + $protoSink:T.compute$capitalizedType:LSizeNoTag($field:N)")); // non-repeated
         }
@@ -375,7 +671,11 @@ public class FieldGenerator {
     }
 
     protected void generateJsonSerializationCode(MethodSpec.Builder method) {
-        if (info.isRepeated()) {
+        if (info.isZeroCopyEnabled() && info.isString()) {
+            method.addStatement(named("output.write$capitalizedType:L($fieldNames:T.$field:N, $getMethod:NBytes())"));
+        } else if (info.isLazyParsingEnabled() || info.isZeroCopyEnabled()) {
+            method.addStatement(named("output.write$capitalizedType:L($fieldNames:T.$field:N, $getMethod:N())"));
+        } else if (info.isRepeated()) {
             method.addStatement(named("output.writeRepeated$capitalizedType:L($fieldNames:T.$field:N, $field:N)"));
         } else if (info.isEnum()) {
             method.addStatement(named("output.write$capitalizedType:L($fieldNames:T.$field:N, $field:N, $type:T.converter())"));
@@ -437,10 +737,37 @@ public class FieldGenerator {
                             .build())
                     .build());
         }
+        if (info.isLazyParsingEnabled()) {
+            type.addMethod(MethodSpec.methodBuilder(info.getLazyParseName())
+                    .addModifiers(Modifier.PRIVATE)
+                    .addStatement(named("$lazyInitMethod:L()"))
+                    .beginControlFlow(named("if ($lazyBytes:N.length() != 0)"))
+                    .addStatement(named("$abstractMessage:T.mergeLazyBytes($field:N, $lazyBytes:N)"))
+                    .endControlFlow()
+                    .build());
+        }
+        if (info.isZeroCopyEnabled()) {
+            type.addMethod(MethodSpec.methodBuilder(info.getViewDetachName())
+                    .addModifiers(Modifier.PRIVATE)
+                    .addCode(info.isLazyAllocationEnabled() ? named("$lazyInitMethod:L();\n") : EMPTY_BLOCK)
+                    .beginControlFlow(named("if ($bytesView:N.length() != 0)"))
+                    .addStatement(named("$bytesView:N.copyTo($field:N)"))
+                    .addStatement(named("$bytesView:N.clear()"))
+                    .endControlFlow()
+                    .build());
+        }
     }
 
     private CodeBlock lazyFieldInit() {
-        if (info.isLazyAllocationEnabled()) {
+        if (info.isLazyParsingEnabled()) {
+            return CodeBlock.builder()
+                    .addStatement("$N()", info.getLazyParseName())
+                    .build();
+        } else if (info.isZeroCopyEnabled()) {
+            return CodeBlock.builder()
+                    .addStatement("$N()", info.getViewDetachName())
+                    .build();
+        } else if (info.isLazyAllocationEnabled()) {
             return CodeBlock.builder()
                     .addStatement("$N()", info.getLazyInitName())
                     .build();
@@ -467,6 +794,7 @@ public class FieldGenerator {
                     .addParameter(info.getInputParameterType(), "value", Modifier.FINAL)
                     .returns(info.getParentType())
                     .addCode(clearOtherOneOfs)
+                    .addCode(invalidateCaches)
                     .addCode(ensureFieldNotNull)
                     .addStatement(named("$setHas:L"))
                     .addStatement(named("$field:N.add(value)"))
@@ -481,6 +809,7 @@ public class FieldGenerator {
                     .varargs(true)
                     .returns(info.getParentType())
                     .addCode(clearOtherOneOfs)
+                    .addCode(invalidateCaches)
                     .addCode(ensureFieldNotNull)
                     .addStatement(named("$setHas:L"))
                     .addStatement(named("$field:N.addAll(values)"))
@@ -495,6 +824,8 @@ public class FieldGenerator {
                         .varargs(true)
                         .returns(info.getParentType())
                         .addCode(clearOtherOneOfs)
+                        .addCode(invalidateCaches)
+                        .addCode(discardView)
                         .addCode(ensureFieldNotNull)
                         .addStatement(named("$setHas:L"))
                         .addStatement(named("$field:N.copyFrom(values)"))
@@ -509,6 +840,9 @@ public class FieldGenerator {
                     .returns(info.getParentType())
                     .addParameter(info.getInputParameterType(), "value", Modifier.FINAL)
                     .addCode(clearOtherOneOfs)
+                    .addCode(invalidateCaches)
+                    .addCode(info.isLazyParsingEnabled() ? named("$lazyBytes:N.clear();\n") : EMPTY_BLOCK)
+                    .addCode(discardView)
                     .addCode(ensureFieldNotNull)
                     .addStatement(named("$setHas:L"))
                     .addStatement(named("$field:N.copyFrom(value)"))
@@ -523,6 +857,7 @@ public class FieldGenerator {
                     .addParameter(info.getTypeName(), "value", Modifier.FINAL)
                     .returns(info.getParentType())
                     .addCode(clearOtherOneOfs)
+                    .addCode(invalidateCaches)
                     .addCode(ensureFieldNotNull)
                     .addNamedCode("" +
                             "$setHas:L;\n" +
@@ -572,6 +907,7 @@ public class FieldGenerator {
                 .addModifiers(Modifier.PUBLIC)
                 .addParameter(int.class, "value", Modifier.FINAL)
                 .returns(info.getParentType())
+                .addCode(invalidateCaches)
                 .addNamedCode("" +
                         "$setHas:L;\n" +
                         "$field:N = value;\n" +
@@ -632,6 +968,7 @@ public class FieldGenerator {
                     .addModifiers(Modifier.PUBLIC)
                     .returns(storeType)
                     .addCode(clearOtherOneOfs)
+                    .addCode(invalidateCaches)
                     .addCode(ensureFieldNotNull)
                     .addStatement(named("$setHas:L"))
                     .addStatement(named("return $field:N"))
@@ -643,6 +980,27 @@ public class FieldGenerator {
             type.addMethod(getter.build());
         }
 
+        // Add a read-only accessor that does not copy bytes that refer to the input
+        if (info.isZeroCopyEnabled()) {
+            type.addMethod(MethodSpec.methodBuilder(info.getViewGetterName())
+                    .addJavadoc(named("" +
+                            "Returns a read-only view of the contents that does not require a copy. After\n" +
+                            "parsing, the view refers to the memory of the source and is only valid until the\n" +
+                            "input of the source changes. Otherwise it is valid until this field is modified.\n"))
+                    .addAnnotations(info.getMethodAnnotations())
+                    .addModifiers(Modifier.PUBLIC)
+                    .returns(RuntimeClasses.BytesViewType)
+                    .addCode(enforceHasCheck)
+                    .addCode(info.isLazyAllocationEnabled() ? named("$lazyInitMethod:L();\n") : EMPTY_BLOCK)
+                    .beginControlFlow(named("if ($bytesView:N.length() == 0)"))
+                    .addStatement(info.isString()
+                            ? named("$bytesView:N.wrap($field:N)")
+                            : named("$bytesView:N.wrap($field:N.array(), 0, $field:N.length())"))
+                    .endControlFlow()
+                    .addStatement(named("return $bytesView:N"))
+                    .build());
+        }
+
         // Add an overload for Strings that let users get the backing Utf8Bytes
         if (!info.isRepeated() && info.isString()) {
 
@@ -660,6 +1018,7 @@ public class FieldGenerator {
                     .addModifiers(Modifier.PUBLIC)
                     .returns(storeType)
                     .addCode(clearOtherOneOfs)
+                    .addCode(invalidateCaches)
                     .addCode(ensureFieldNotNull)
                     .addStatement(named("$setHas:L"))
                     .addStatement(named("return this.$field:N"))
@@ -674,6 +1033,7 @@ public class FieldGenerator {
                 .addAnnotations(info.getMethodAnnotations())
                 .addModifiers(Modifier.PUBLIC)
                 .returns(info.getParentType())
+                .addCode(invalidateCaches)
                 .addStatement(named("$clearHas:L"));
         generateClearCode(method);
         method.addStatement("return this");
@@ -717,6 +1077,9 @@ public class FieldGenerator {
         m.put("commentLine", info.getJavadoc());
         m.put("getMutableMethod", info.getMutableGetterName());
         m.put("lazyInitMethod", info.getLazyInitName());
+        m.put("lazyBytes", info.getLazyBytesName());
+        m.put("bytesView", info.getViewName());
+        m.put("getViewMethod", info.getViewGetterName());
         m.put("getMethod", info.getGetterName());
         m.put("setMethod", info.getSetterName());
         m.put("addMethod", info.getAdderName());
@@ -752,6 +1115,11 @@ public class FieldGenerator {
         clearOtherOneOfs = generateClearOtherOneOfs();
         enforceHasCheck = generateEnforceHasCheck();
         ensureFieldNotNull = lazyFieldInit();
+        discardView = info.isZeroCopyEnabled() ? named("$bytesView:N.clear();\n") : EMPTY_BLOCK;
+        invalidateCaches = CodeBlock.builder()
+                .add(info.isDirtyTrackingEnabled() && info.isSingularPrimitiveOrEnum() ? named("cachedScalarSize = -1;\n") : EMPTY_BLOCK)
+                .add(info.isMemoizeOutputEnabled() ? named("modCount++;\n") : EMPTY_BLOCK)
+                .build();
     }
 
     protected final RequestInfo.FieldInfo info;
@@ -760,11 +1128,13 @@ public class FieldGenerator {
     protected final CodeBlock clearOtherOneOfs;
     protected final CodeBlock enforceHasCheck;
     protected final CodeBlock ensureFieldNotNull;
+    protected final CodeBlock discardView;
+    protected final CodeBlock invalidateCaches;
     private static final CodeBlock EMPTY_BLOCK = CodeBlock.builder().build();
 
     protected final HashMap<String, Object> m = new HashMap<>();
 
-    private CodeBlock named(String format, Object... args /* does nothing, but makes IDE hints disappear */) {
+    protected CodeBlock named(String format, Object... args /* does nothing, but makes IDE hints disappear */) {
         return CodeBlock.builder().addNamed(format, m).build();
     }
 
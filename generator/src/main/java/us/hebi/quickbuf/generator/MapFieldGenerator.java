@@ -0,0 +1,321 @@
+/*-
+ * #%L
+ * quickbuf-generator
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf.generator;
+
+import com.squareup.javapoet.*;
+
+import javax.lang.model.element.Modifier;
+
+/**
+ * Generates map fields that are stored in hash maps rather than as repeated
+ * entry messages. Entries get encoded and decoded directly from the key and
+ * value stores, so the entry messages never get instantiated.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+class MapFieldGenerator extends FieldGenerator {
+
+    MapFieldGenerator(RequestInfo.FieldInfo info) {
+        super(info);
+        key = info.getMapKey();
+        value = info.getMapValue();
+
+        final String field = info.getFieldName();
+        m.put("keyType", FieldUtil.getCapitalizedType(key.getDescriptor().getType()));
+        m.put("valueType", FieldUtil.getCapitalizedType(value.getDescriptor().getType()));
+        m.put("keyTag", key.getTag());
+        m.put("valueTag", value.getTag());
+        m.put("valueTypeName", value.getTypeName());
+        m.put("key_i", field + ".keyAt(i)");
+        m.put("value_i", getValueAt("i"));
+        m.put("entrySize_i", CodeBlock.of("2 + $T.compute$LSizeNoTag($L) + $T.compute$LSizeNoTag($L)",
+                RuntimeClasses.ProtoSink, m.get("keyType"), m.get("key_i"),
+                RuntimeClasses.ProtoSink, m.get("valueType"), m.get("value_i")));
+        m.put("jsonValue_i", value.isEnum()
+                ? CodeBlock.of("$L, $T.converter()", m.get("value_i"), value.getTypeName())
+                : CodeBlock.of("$L", m.get("value_i")));
+    }
+
+    private String getValueAt(String index) {
+        if (value.isPrimitive() || value.isEnum()) {
+            return info.getFieldName() + ".values().array()[" + index + "]";
+        } else if (value.isString()) {
+            return info.getFieldName() + ".values().getBytes(" + index + ")";
+        }
+        return info.getFieldName() + ".values().get(" + index + ")";
+    }
+
+    @Override
+    protected CodeBlock initializer() {
+        final CodeBlock values;
+        if (value.isMessageOrGroup()) {
+            values = CodeBlock.of("$T.newEmptyInstance($T.getFactory())", RuntimeClasses.RepeatedMessage, value.getTypeName());
+        } else if (value.isEnum()) {
+            values = CodeBlock.of("$T.newEmptyInstance($T.converter())", RuntimeClasses.RepeatedEnum, value.getTypeName());
+        } else {
+            values = CodeBlock.of("$T.newEmptyInstance()", value.getRepeatedStoreType());
+        }
+        return CodeBlock.of("$T.newInstance($L)", ((ParameterizedTypeName) storeType).rawType, values);
+    }
+
+    @Override
+    protected void generateMergeFromMessageCode(MethodSpec.Builder method) {
+        method.addStatement(named("$getMutableMethod:N().putAll(other.$field:N)"));
+    }
+
+    @Override
+    protected boolean generateMergingCode(MethodSpec.Builder method) {
+        // Parse the key and value in place and drop the entry if the key exists already
+        m.put("readKey", key.isString()
+                ? named("input.readString($field:N.getPendingKey());\n")
+                : named("$field:N.setPendingKey(input.read$keyType:L());\n"));
+        if (value.isPrimitive()) {
+            m.put("readValue", named("$field:N.values().set(index, input.read$valueType:L());\n"));
+        } else if (value.isEnum()) {
+            m.put("readValue", named("$field:N.values().setValue(index, input.readEnum());\n"));
+        } else if (value.isString()) {
+            m.put("readValue", named("input.readString($field:N.values().getBytes(index));\n"));
+        } else {
+            m.put("readValue", named("input.read$valueType:L($field:N.values().get(index));\n"));
+        }
+        method.addCode(ensureFieldNotNull)
+                .addNamedCode("" +
+                        "final int limit = input.pushLimit(input.readLength());\n" +
+                        "final int index = $field:N.beginEntry();\n" +
+                        "for (int entryTag = input.readTag(); entryTag != 0; entryTag = input.readTag()) {$>\n" +
+                        "if (entryTag == $keyTag:L) {$>\n" +
+                        "$readKey:L" +
+                        "$<} else if (entryTag == $valueTag:L) {$>\n" +
+                        "$readValue:L" +
+                        "$<} else if (!input.skipField(entryTag)) {$>\n" +
+                        "break;\n" +
+                        "$<}\n" +
+                        "$<}\n" +
+                        "input.checkLastTagWas(0);\n" +
+                        "$field:N.endEntry();\n" +
+                        "input.popLimit(limit);\n", m)
+                .addStatement(named("$setHas:L"));
+        return true;
+    }
+
+    @Override
+    protected boolean generateMergingCodeFromPacked(MethodSpec.Builder method) {
+        throw new IllegalStateException("not a packable type: " + info.getDescriptor());
+    }
+
+    @Override
+    protected void generateSerializationCode(MethodSpec.Builder method) {
+        // Entries always contain the key and the value
+        m.put("writeTagToOutput", generateWriteVarint32(info.getTag()));
+        method.addNamedCode("" +
+                "for (int i = 0; i < $field:N.length(); i++) {$>\n" +
+                "$writeTagToOutput:L" +
+                "output.writeUInt32NoTag($entrySize_i:L);\n" +
+                "output.writeRawByte((byte) $keyTag:L);\n" +
+                "output.write$keyType:LNoTag($key_i:L);\n" +
+                "output.writeRawByte((byte) $valueTag:L);\n" +
+                "output.write$valueType:LNoTag($value_i:L);\n" +
+                "$<}\n", m);
+    }
+
+    @Override
+    protected void generateReverseSerializationCode(MethodSpec.Builder method) {
+        // The entry length is known once the key and value are written
+        m.put("writeTagToOutput", generateReverseWriteVarint32(info.getTag()));
+        method.addNamedCode("" +
+                "for (int i = $field:N.length() - 1; i >= 0; i--) {$>\n" +
+                "final int end = output.getTotalBytesWritten();\n" +
+                "output.write$valueType:LNoTag($value_i:L);\n" +
+                "output.writeRawByte((byte) $valueTag:L);\n" +
+                "output.write$keyType:LNoTag($key_i:L);\n" +
+                "output.writeRawByte((byte) $keyTag:L);\n" +
+                "output.writeUInt32NoTag(output.getTotalBytesWritten() - end);\n" +
+                "$writeTagToOutput:L" +
+                "$<}\n", m);
+    }
+
+    @Override
+    protected void generateComputeSerializedSizeCode(MethodSpec.Builder method) {
+        method.addNamedCode("" +
+                "for (int i = 0; i < $field:N.length(); i++) {$>\n" +
+                "size += $bytesPerTag:L + $protoSink:T.computeDelimitedSize($entrySize_i:L);\n" +
+                "$<}\n", m);
+    }
+
+    @Override
+    protected void generateUpdateCachedSizeCode(MethodSpec.Builder method) {
+        if (value.isMessageOrGroup()) {
+            method.beginControlFlow(named("for (int i = 0; i < $field:N.length(); i++)"))
+                    .addStatement(named("$value_i:L.getSerializedSize()"))
+                    .endControlFlow();
+        }
+    }
+
+    @Override
+    protected void generateNestedVersionCountCode(MethodSpec.Builder method) {
+        method.addStatement(named("count += $field:N.length()"));
+    }
+
+    @Override
+    protected void generateNestedVersionRecordCode(MethodSpec.Builder method) {
+        method.beginControlFlow(named("for (int i = 0; i < $field:N.length(); i++)"))
+                .beginControlFlow(named("if ((nested[n++] = getMemoizedVersion($value_i:L)) < 0)"))
+                .addStatement("return false")
+                .endControlFlow()
+                .endControlFlow();
+    }
+
+    @Override
+    protected void generateNestedVersionCheckCode(MethodSpec.Builder method) {
+        method.beginControlFlow(named("for (int i = 0; i < $field:N.length(); i++)"))
+                .beginControlFlow(named("if (n == count || getMemoizedVersion($value_i:L) != nested[n++])"))
+                .addStatement("return -1")
+                .endControlFlow()
+                .endControlFlow();
+    }
+
+    @Override
+    protected void generateJsonSerializationCode(MethodSpec.Builder method) {
+        method.addNamedCode("" +
+                "output.beginMap($fieldNames:T.$field:N);\n" +
+                "for (int i = 0; i < $field:N.length(); i++) {$>\n" +
+                "output.writeMapKey($key_i:L).writeMapValue($jsonValue_i:L);\n" +
+                "$<}\n" +
+                "output.endMap();\n", m);
+    }
+
+    @Override
+    protected void generateJsonDeserializationCode(MethodSpec.Builder method) {
+        if (key.isString()) {
+            m.put("readJsonKey", named("input.readMapKey($field:N.getPendingKey());\n"));
+        } else {
+            m.put("readJsonKey", key.getTypeName() == TypeName.INT
+                    ? named("$field:N.setPendingKey(input.readMapKeyInt32());\n")
+                    : named("$field:N.setPendingKey(input.readMapKeyInt64());\n"));
+        }
+        if (value.isPrimitive()) {
+            m.put("readJsonValue", named("$field:N.values().set(index, input.read$valueType:L());\n"));
+        } else if (value.isEnum()) {
+            // unknown values are stored as zero, the same as for repeated enums
+            m.put("readJsonValue", named("" +
+                    "final $valueTypeName:T value = input.readEnum($valueTypeName:T.converter());\n" +
+                    "$field:N.values().setValue(index, value == null ? 0 : value.getNumber());\n"));
+        } else if (value.isString()) {
+            m.put("readJsonValue", named("input.readString($field:N.values().getBytes(index));\n"));
+        } else {
+            m.put("readJsonValue", named("input.read$valueType:L($field:N.values().get(index));\n"));
+        }
+        method.addCode(ensureFieldNotNull)
+                .addNamedCode("" +
+                        "input.beginObject();\n" +
+                        "while (!input.isAtEnd()) {$>\n" +
+                        "final int index = $field:N.beginEntry();\n" +
+                        "$readJsonKey:L" +
+                        "$readJsonValue:L" +
+                        "$field:N.endEntry();\n" +
+                        "$<}\n" +
+                        "input.endObject();\n", m)
+                .addStatement(named("$setHas:L"));
+    }
+
+    /**
+     * Replaces the adders of repeated fields with map accessors
+     */
+    @Override
+    protected void generateSetMethods(TypeSpec.Builder type) {
+        final TypeName keyType = key.isString() ? TypeName.get(CharSequence.class) : key.getTypeName();
+        final TypeName valueType = value.getTypeName();
+        final TypeName inputType = value.isString() ? TypeName.get(CharSequence.class)
+                : value.isBytes() ? ArrayTypeName.of(TypeName.BYTE) : valueType;
+        final String upperName = info.getUpperName();
+
+        type.addMethod(MethodSpec.methodBuilder(info.getGetterName() + "Count")
+                .addAnnotations(info.getMethodAnnotations())
+                .addModifiers(Modifier.PUBLIC)
+                .returns(TypeName.INT)
+                .addCode(ensureFieldNotNull)
+                .addStatement(named("return $field:N.length()"))
+                .build());
+
+        type.addMethod(MethodSpec.methodBuilder("contains" + upperName)
+                .addAnnotations(info.getMethodAnnotations())
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(keyType, "key", Modifier.FINAL)
+                .returns(TypeName.BOOLEAN)
+                .addCode(ensureFieldNotNull)
+                .addStatement(named("return $field:N.containsKey(key)"))
+                .build());
+
+        type.addMethod(MethodSpec.methodBuilder(info.getGetterName() + "OrDefault")
+                .addAnnotations(info.getMethodAnnotations())
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(keyType, "key", Modifier.FINAL)
+                .addParameter(valueType, "defaultValue", Modifier.FINAL)
+                .returns(valueType)
+                .addCode(ensureFieldNotNull)
+                .addStatement(named("final int index = $field:N.indexOf(key)"))
+                .addStatement(named("return index < 0 ? defaultValue : $field:N.values().get(index)"))
+                .build());
+
+        type.addMethod(MethodSpec.methodBuilder(info.getGetterName() + "OrThrow")
+                .addAnnotations(info.getMethodAnnotations())
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(keyType, "key", Modifier.FINAL)
+                .returns(valueType)
+                .addCode(ensureFieldNotNull)
+                .addStatement(named("final int index = $field:N.indexOf(key)"))
+                .beginControlFlow("if (index < 0)")
+                .addStatement("throw new $T($S + key)", IllegalArgumentException.class, "Key is not contained: ")
+                .endControlFlow()
+                .addStatement(named("return $field:N.values().get(index)"))
+                .build());
+
+        type.addMethod(MethodSpec.methodBuilder("put" + upperName)
+                .addJavadoc("Adds an entry or replaces the value of an existing entry\n")
+                .addAnnotations(info.getMethodAnnotations())
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(keyType, "key", Modifier.FINAL)
+                .addParameter(inputType, "value", Modifier.FINAL)
+                .returns(info.getParentType())
+                .addCode(invalidateCaches)
+                .addCode(ensureFieldNotNull)
+                .addStatement(named("$setHas:L"))
+                .addStatement(named("$field:N.values().set($field:N.put(key), value)"))
+                .addStatement("return this")
+                .build());
+
+        type.addMethod(MethodSpec.methodBuilder("remove" + upperName)
+                .addAnnotations(info.getMethodAnnotations())
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(keyType, "key", Modifier.FINAL)
+                .returns(info.getParentType())
+                .addCode(invalidateCaches)
+                .addCode(ensureFieldNotNull)
+                .addStatement(named("$field:N.remove(key)"))
+                .addStatement("return this")
+                .build());
+    }
+
+    private final RequestInfo.FieldInfo key;
+    private final RequestInfo.FieldInfo value;
+
+}
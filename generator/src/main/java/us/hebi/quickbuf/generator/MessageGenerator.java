@@ -28,10 +28,13 @@ import us.hebi.quickbuf.generator.RequestInfo.MessageInfo;
 import javax.lang.model.element.Modifier;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * @author Florian Enner
@@ -86,6 +89,8 @@ class MessageGenerator {
         BitField.generateMemberFields(type, numBitFields);
         fields.forEach(f -> f.generateMemberFields(type));
         generateUnknownByteMembers(type);
+        generateCachedSizeMembers(type);
+        generateMemoizedOutputMembers(type);
 
         // OneOf Accessors
         info.getOneOfs().stream()
@@ -99,9 +104,13 @@ class MessageGenerator {
         generateMergeFromMessage(type);
         generateClear(type);
         generateEquals(type);
+        generateHashCode(type);
+        generateFingerprint(type);
         generateWriteTo(type);
+        generateWriteToReverse(type);
         generateComputeSerializedSize(type);
         generateMergeFrom(type);
+        generateMergeFromMasked(type);
         generateIsInitialized(type);
         generateWriteToJson(type);
         generateMergeFromJson(type);
@@ -109,6 +118,8 @@ class MessageGenerator {
 
         // Utility methods
         generateIsEmpty(type);
+        generateFieldMaskMethods(type);
+        generateDiffMethods(type);
 
         // Static utilities
         generateParseFrom(type);
@@ -139,6 +150,73 @@ class MessageGenerator {
                 .build());
     }
 
+    private void generateCachedSizeMembers(TypeSpec.Builder type) {
+        if (hasModCount()) {
+            type.addField(FieldSpec.builder(TypeName.INT, "modCount")
+                    .addJavadoc(named("Gets incremented by all mutators to invalidate the memoized output."))
+                    .addModifiers(Modifier.PRIVATE)
+                    .build());
+        }
+        if (!info.isDirtyTrackingEnabled()) {
+            return;
+        }
+        type.addField(FieldSpec.builder(TypeName.INT, "cachedScalarSize")
+                .addJavadoc(named("Size of all singular primitive and enum fields. Gets invalidated by the corresponding setters."))
+                .addModifiers(Modifier.PRIVATE)
+                .initializer("-1")
+                .build());
+    }
+
+    private boolean hasModCount() {
+        return info.isMemoizeOutputEnabled();
+    }
+
+    private void generateMemoizedOutputMembers(TypeSpec.Builder type) {
+        if (!info.isMemoizeOutputEnabled()) {
+            return;
+        }
+        type.addField(FieldSpec.builder(TypeName.INT, "memoizedModCount")
+                .addJavadoc(named("Value of modCount when the memoized output was written. Nested messages may be modified via\n" +
+                        "previously retrieved references, so their versions need to be checked as well."))
+                .addModifiers(Modifier.PRIVATE)
+                .initializer("-1")
+                .build());
+        type.addField(FieldSpec.builder(TypeName.INT, "memoizedVersion")
+                .addJavadoc(named("Gets incremented whenever the memoized output gets rewritten, so that parents can detect changes."))
+                .addModifiers(Modifier.PRIVATE)
+                .build());
+        type.addField(FieldSpec.builder(byte[].class, "memoizedBytes")
+                .addJavadoc(named("Serialized bytes of the last output. Gets reused for the next output if it is large enough."))
+                .addModifiers(Modifier.PRIVATE)
+                .build());
+        type.addField(FieldSpec.builder(TypeName.INT, "memoizedSize")
+                .addModifiers(Modifier.PRIVATE)
+                .build());
+        type.addField(FieldSpec.builder(RuntimeClasses.ProtoSink, "memoizedSink")
+                .addModifiers(Modifier.PRIVATE)
+                .build());
+        if (hasNestedMessages()) {
+            type.addField(FieldSpec.builder(int[].class, "memoizedNested")
+                    .addJavadoc(named("Versions of all nested messages that are contained in memoizedBytes, in output order."))
+                    .addModifiers(Modifier.PRIVATE)
+                    .build());
+            type.addField(FieldSpec.builder(TypeName.INT, "memoizedNestedCount")
+                    .addModifiers(Modifier.PRIVATE)
+                    .build());
+        }
+    }
+
+    private boolean hasNestedMessages() {
+        return !getNestedMessageFields().isEmpty();
+    }
+
+    private List<FieldGenerator> getNestedMessageFields() {
+        return getFieldSortedByOutputOrder().stream()
+                .filter(f -> f.getInfo().isMessageOrGroup())
+                .filter(f -> !f.getInfo().isHashMap() || f.getInfo().getMapValue().isMessageOrGroup())
+                .collect(Collectors.toList());
+    }
+
     private void generateClear(TypeSpec.Builder type) {
         type.addMethod(generateClearCode("clear", true));
         type.addMethod(generateClearCode("clearQuick", false));
@@ -166,6 +244,12 @@ class MessageGenerator {
 
         // clear has state
         clear.addStatement("cachedSize = -1");
+        if (info.isDirtyTrackingEnabled()) {
+            clear.addStatement("cachedScalarSize = -1");
+        }
+        if (hasModCount()) {
+            clear.addStatement("modCount++");
+        }
         BitField.generateClearCode(clear, numBitFields);
 
         if (isFullClear) {
@@ -221,6 +305,51 @@ class MessageGenerator {
         type.addMethod(equals.build());
     }
 
+    private void generateHashCode(TypeSpec.Builder type) {
+        MethodSpec.Builder hashCode = MethodSpec.methodBuilder("hashCode")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(int.class);
+
+        // Only fields that are set contribute, so the result is consistent with equals
+        if (info.getFieldCount() > 0) {
+            hashCode.addStatement("int hash = bitField0_");
+            for (int i = 1; i < numBitFields; i++) {
+                hashCode.addStatement("hash = 31 * hash + bitField$L_", i);
+            }
+            for (FieldGenerator field : fields) {
+                hashCode.beginControlFlow("if ($N())", field.getInfo().getHazzerName())
+                        .addCode("hash = 31 * hash + ");
+                field.generateHashCodeStatement(hashCode);
+                hashCode.addCode(";\n").endControlFlow();
+            }
+            hashCode.addStatement("return hash");
+        } else {
+            hashCode.addStatement("return 0");
+        }
+
+        type.addMethod(hashCode.build());
+    }
+
+    private void generateFingerprint(TypeSpec.Builder type) {
+        MethodSpec.Builder fingerprint = MethodSpec.methodBuilder("fingerprint64")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(long.class)
+                .addStatement("long hash = $T.SEED", RuntimeClasses.Fingerprint);
+
+        // Canonical field number order, so the result does not depend on the output order
+        fields.stream()
+                .sorted(Comparator.comparingInt(f -> f.getInfo().getNumber()))
+                .forEach(field -> {
+                    fingerprint.beginControlFlow("if ($N())", field.getInfo().getHazzerName());
+                    field.generateFingerprintCode(fingerprint);
+                    fingerprint.endControlFlow();
+                });
+
+        type.addMethod(fingerprint.addStatement("return $T.finish(hash)", RuntimeClasses.Fingerprint).build());
+    }
+
     private void generateMergeFrom(TypeSpec.Builder type) {
         MethodSpec.Builder mergeFrom = MethodSpec.methodBuilder("mergeFrom")
                 .addAnnotation(Override.class)
@@ -245,6 +374,12 @@ class MessageGenerator {
             mergeFrom.addComment("Enabled Fall-Through Optimization (" + info.getExpectedInputOrder() + ")");
         }
 
+        if (info.isDirtyTrackingEnabled()) {
+            mergeFrom.addStatement("cachedScalarSize = -1");
+        }
+        if (hasModCount()) {
+            mergeFrom.addStatement("modCount++");
+        }
         mergeFrom.addStatement(named("int tag = input.readTag()"))
                 .beginControlFlow("while (true)")
                 .beginControlFlow("switch (tag)");
@@ -286,6 +421,26 @@ class MessageGenerator {
                 .endControlFlow();
 
         // default case -> skip field
+        generateSkipUnknownFieldCase(mergeFrom);
+
+        // Generate missing non-packed cases for packable fields for compatibility reasons
+        for (FieldGenerator field : sortedFields) {
+            if (field.getInfo().isPackable()) {
+                mergeFrom.beginControlFlow("case $L:", field.getInfo().getTag());
+                boolean readTag = field.generateMergingCode(mergeFrom);
+                if (readTag) {
+                    mergeFrom.addCode(named("tag = input.readTag();\n"));
+                }
+                mergeFrom.addStatement("break").endControlFlow();
+            }
+        }
+
+        mergeFrom.endControlFlow();
+        mergeFrom.endControlFlow();
+        type.addMethod(mergeFrom.build());
+    }
+
+    private void generateSkipUnknownFieldCase(MethodSpec.Builder mergeFrom) {
         CodeBlock ifSkipField = info.isStoreUnknownFieldsEnabled() ?
                 named("if (!input.skipField(tag, $unknownBytes:N))") :
                 named("if (!input.skipField(tag))");
@@ -297,24 +452,72 @@ class MessageGenerator {
                 .addStatement(named("tag = input.readTag()"))
                 .addStatement("break")
                 .endControlFlow();
+    }
 
-        // Generate missing non-packed cases for packable fields for compatibility reasons
-        for (FieldGenerator field : sortedFields) {
-            if (field.getInfo().isPackable()) {
-                mergeFrom.beginControlFlow("case $L:", field.getInfo().getTag());
-                boolean readTag = field.generateMergingCode(mergeFrom);
-                if (readTag) {
-                    mergeFrom.addCode(named("tag = input.readTag();\n"));
+    private void generateMergeFromMasked(TypeSpec.Builder type) {
+        if (!info.isFieldMasksEnabled()) {
+            return;
+        }
+        MethodSpec.Builder mergeFrom = MethodSpec.methodBuilder("mergeFrom")
+                .addJavadoc("Parses only the fields that are selected by the mask. All other known fields,\n" +
+                        "including nested messages, get skipped without being decoded or stored.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(info.getTypeName())
+                .addParameter(RuntimeClasses.ProtoSource, "input", Modifier.FINAL)
+                .addParameter(ParameterizedTypeName.get(RuntimeClasses.FieldMask, info.getTypeName()), "mask", Modifier.FINAL)
+                .addException(IOException.class);
+
+        if (info.isDirtyTrackingEnabled()) {
+            mergeFrom.addStatement("cachedScalarSize = -1");
+        }
+        if (hasModCount()) {
+            mergeFrom.addStatement("modCount++");
+        }
+        for (int i = 0; i < numBitFields; i++) {
+            mergeFrom.addStatement("final int mask$1L = mask.getBits($1L)", i);
+        }
+        mergeFrom.addStatement(named("int tag = input.readTag()"))
+                .beginControlFlow("while (true)")
+                .beginControlFlow("switch (tag)");
+
+        for (FieldGenerator field : getFieldSortedByExpectedInputOrder()) {
+            FieldInfo fieldInfo = field.getInfo();
+            if (fieldInfo.isPackable()) {
+                mergeFrom.beginControlFlow("case $L:", fieldInfo.getPackedTag())
+                        .beginControlFlow("if ($L)", BitField.isInMask(fieldInfo.getBitIndex()));
+                if (field.generateMergingCodeFromPacked(mergeFrom)) {
+                    mergeFrom.addStatement("tag = input.readTag()");
                 }
-                mergeFrom.addStatement("break").endControlFlow();
+                generateSkipMaskedFieldCase(mergeFrom);
             }
+            mergeFrom.beginControlFlow("case $L:", fieldInfo.getTag())
+                    .beginControlFlow("if ($L)", BitField.isInMask(fieldInfo.getBitIndex()));
+            if (field.generateMergingCode(mergeFrom)) {
+                mergeFrom.addStatement("tag = input.readTag()");
+            }
+            generateSkipMaskedFieldCase(mergeFrom);
         }
 
+        // zero means invalid tag / end of data
+        mergeFrom.beginControlFlow("case 0:")
+                .addStatement("return this")
+                .endControlFlow();
+        generateSkipUnknownFieldCase(mergeFrom);
+
         mergeFrom.endControlFlow();
         mergeFrom.endControlFlow();
         type.addMethod(mergeFrom.build());
     }
 
+    private void generateSkipMaskedFieldCase(MethodSpec.Builder mergeFrom) {
+        mergeFrom.nextControlFlow("else")
+                .addStatement("input.skipField(tag)")
+                .addStatement("tag = input.readTag()")
+                .endControlFlow()
+                .addStatement("break")
+                .endControlFlow();
+    }
+
     private int getPackedTagOrTag(FieldGenerator field) {
         if (field.getInfo().isPackable())
             return field.getInfo().getPackedTag();
@@ -322,10 +525,11 @@ class MessageGenerator {
     }
 
     private void generateWriteTo(TypeSpec.Builder type) {
-        MethodSpec.Builder writeTo = MethodSpec.methodBuilder("writeTo")
-                .addAnnotation(Override.class)
-                .addModifiers(Modifier.PUBLIC)
-                .returns(void.class)
+        // Memoized messages write the fields into a separate array first
+        MethodSpec.Builder writeTo = info.isMemoizeOutputEnabled()
+                ? MethodSpec.methodBuilder("writeFieldsTo").addModifiers(Modifier.PRIVATE)
+                : MethodSpec.methodBuilder("writeTo").addAnnotation(Override.class).addModifiers(Modifier.PUBLIC);
+        writeTo.returns(void.class)
                 .addParameter(RuntimeClasses.ProtoSink, "output", Modifier.FINAL)
                 .addException(IOException.class);
 
@@ -359,6 +563,164 @@ class MessageGenerator {
                     .endControlFlow();
         }
 
+        type.addMethod(writeTo.build());
+        generateMemoizedOutput(type);
+    }
+
+    private void generateMemoizedOutput(TypeSpec.Builder type) {
+        if (!info.isMemoizeOutputEnabled()) {
+            return;
+        }
+        type.addMethod(MethodSpec.methodBuilder("writeTo")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(RuntimeClasses.ProtoSink, "output", Modifier.FINAL)
+                .addException(IOException.class)
+                .beginControlFlow("if (getMemoizedVersion() < 0)")
+                .addStatement("memoizeOutput()")
+                .endControlFlow()
+                .addStatement("output.writeRawBytes(memoizedBytes, 0, memoizedSize)")
+                .build());
+
+        // Unchanged nested messages get written as a raw copy of their own memoized output
+        type.addMethod(MethodSpec.methodBuilder("memoizeOutput")
+                .addModifiers(Modifier.PRIVATE)
+                .addException(IOException.class)
+                .addStatement("final int size = getSerializedSize()")
+                .beginControlFlow("if (memoizedBytes == null || memoizedBytes.length < size)")
+                .addStatement("memoizedBytes = new byte[size]")
+                .endControlFlow()
+                .beginControlFlow("if (memoizedSink == null)")
+                .addStatement("memoizedSink = $T.newArraySink()", RuntimeClasses.ProtoSink)
+                .endControlFlow()
+                .addStatement("memoizedSink.setOutput(memoizedBytes, 0, size)")
+                .addStatement("writeFieldsTo(memoizedSink)")
+                .addStatement("memoizedSink.checkNoSpaceLeft()")
+                .addStatement("memoizedSize = size")
+                .addCode(generateMemoizedCode())
+                .build());
+
+        final List<FieldGenerator> nestedFields = getNestedMessageFields();
+        if (!nestedFields.isEmpty()) {
+            // Nested messages were memoized when they got written, so the versions are only missing
+            // for nested messages that were copied from an original without a memoized output
+            MethodSpec.Builder record = MethodSpec.methodBuilder("recordNestedVersions")
+                    .addModifiers(Modifier.PRIVATE)
+                    .returns(boolean.class)
+                    .addStatement("int count = 0");
+            nestedFields.forEach(f -> {
+                record.beginControlFlow("if ($L)", f.getInfo().getHasBit());
+                f.generateNestedVersionCountCode(record);
+                record.endControlFlow();
+            });
+            record.beginControlFlow("if (memoizedNested == null || memoizedNested.length < count)")
+                    .addStatement("memoizedNested = new int[count]")
+                    .endControlFlow()
+                    .addStatement("final int[] nested = memoizedNested")
+                    .addStatement("int n = 0");
+            nestedFields.forEach(f -> {
+                record.beginControlFlow("if ($L)", f.getInfo().getHasBit());
+                f.generateNestedVersionRecordCode(record);
+                record.endControlFlow();
+            });
+            type.addMethod(record.addStatement("memoizedNestedCount = n")
+                    .addStatement("return true")
+                    .build());
+        }
+
+        MethodSpec.Builder getVersion = MethodSpec.methodBuilder("getMemoizedVersion")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PROTECTED)
+                .returns(int.class)
+                .beginControlFlow("if (memoizedModCount != modCount)")
+                .addStatement("return -1")
+                .endControlFlow();
+        if (!nestedFields.isEmpty()) {
+            getVersion.addStatement("final int[] nested = memoizedNested")
+                    .addStatement("final int count = memoizedNestedCount")
+                    .addStatement("int n = 0");
+            nestedFields.forEach(f -> {
+                getVersion.beginControlFlow("if ($L)", f.getInfo().getHasBit());
+                f.generateNestedVersionCheckCode(getVersion);
+                getVersion.endControlFlow();
+            });
+            getVersion.addStatement("return n == count ? memoizedVersion : -1");
+        } else {
+            getVersion.addStatement("return memoizedVersion");
+        }
+        type.addMethod(getVersion.build());
+
+        type.addMethod(MethodSpec.methodBuilder("getMemoizedSize")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PROTECTED)
+                .returns(int.class)
+                .addStatement("return getMemoizedVersion() < 0 ? -1 : memoizedSize")
+                .build());
+        type.addMethod(MethodSpec.methodBuilder("getMemoizedBuffer")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PROTECTED)
+                .returns(byte[].class)
+                .addStatement("return memoizedBytes")
+                .build());
+    }
+
+    /**
+     * Marks freshly written or copied output as valid. The version stays positive
+     * because -1 is reserved for invalid output.
+     */
+    private CodeBlock generateMemoizedCode() {
+        return CodeBlock.builder()
+                .addStatement("memoizedVersion = (memoizedVersion + 1) & $T.MAX_VALUE", Integer.class)
+                .addStatement(hasNestedMessages()
+                        ? "memoizedModCount = recordNestedVersions() ? modCount : -1"
+                        : "memoizedModCount = modCount")
+                .build();
+    }
+
+    private void generateWriteToReverse(TypeSpec.Builder type) {
+        if (!info.isReverseOutputEnabled()) {
+            return;
+        }
+        MethodSpec.Builder writeTo = MethodSpec.methodBuilder("writeToReverse")
+                .addAnnotation(Override.class)
+                .addModifiers(Modifier.PUBLIC)
+                .returns(void.class)
+                .addParameter(RuntimeClasses.ReverseSink, "output", Modifier.FINAL)
+                .addException(IOException.class);
+
+        boolean needsInitializationChecks = info.hasRequiredFieldsInHierarchy();
+        if (needsInitializationChecks) {
+            // Fail if any required bits are missing
+            insertFailOnMissingRequiredBits(writeTo);
+            writeTo.beginControlFlow("try");
+        }
+
+        // Mirror image of writeTo, i.e., the last field gets written first
+        if (info.isStoreUnknownFieldsEnabled()) {
+            writeTo.addCode(named("if ($unknownBytes:N.length() > 0)"))
+                    .beginControlFlow("")
+                    .addStatement(named("output.writeRawBytes($unknownBytes:N)"))
+                    .endControlFlow();
+        }
+        final List<FieldGenerator> reverseOrder = new ArrayList<>(getFieldSortedByOutputOrder());
+        Collections.reverse(reverseOrder);
+        reverseOrder.forEach(f -> {
+            if (f.getInfo().isRequired()) {
+                // no need to check has state again
+                f.generateReverseSerializationCode(writeTo);
+            } else {
+                writeTo.beginControlFlow("if ($L)", f.getInfo().getHasBit());
+                f.generateReverseSerializationCode(writeTo);
+                writeTo.endControlFlow();
+            }
+        });
+
+        if (needsInitializationChecks) {
+            writeTo.nextControlFlow("catch ($T nestedFail)", RuntimeClasses.UninitializedMessageException)
+                    .addStatement("throw rethrowFromParent(nestedFail)")
+                    .endControlFlow();
+        }
+
         type.addMethod(writeTo.build());
     }
 
@@ -368,6 +730,12 @@ class MessageGenerator {
                 .addModifiers(Modifier.PROTECTED)
                 .returns(int.class);
 
+        if (info.isMemoizeOutputEnabled()) {
+            computeSerializedSize.beginControlFlow("if (getMemoizedVersion() >= 0)")
+                    .addStatement("return memoizedSize")
+                    .endControlFlow();
+        }
+
         boolean needsInitializationChecks = info.hasRequiredFieldsInHierarchy();
         if (needsInitializationChecks) {
             // Fail if any required bits are missing
@@ -376,7 +744,34 @@ class MessageGenerator {
         }
 
         // Check all required fields at once
-        computeSerializedSize.addStatement("int size = 0");
+        if (info.isDirtyTrackingEnabled()) {
+            // Nested messages and containers may be modified via previously retrieved references
+            // without notifying the parent, so only the size of fields that can exclusively be
+            // modified via setters can be reused until they get modified
+            computeSerializedSize.beginControlFlow("if (cachedScalarSize < 0)");
+            computeSerializedSize.addStatement("int size = 0");
+            generateComputeSerializedSizeCode(computeSerializedSize, fields.stream()
+                    .filter(f -> f.getInfo().isSingularPrimitiveOrEnum()), false);
+            computeSerializedSize.addStatement("cachedScalarSize = size");
+            computeSerializedSize.endControlFlow();
+            computeSerializedSize.addStatement("int size = cachedScalarSize");
+            generateComputeSerializedSizeCode(computeSerializedSize, fields.stream()
+                    .filter(f -> !f.getInfo().isSingularPrimitiveOrEnum()), true);
+        } else {
+            computeSerializedSize.addStatement("int size = 0");
+            generateComputeSerializedSizeCode(computeSerializedSize, fields.stream(), true);
+        }
+        computeSerializedSize.addStatement("return size");
+
+        if (needsInitializationChecks) {
+            computeSerializedSize.nextControlFlow("catch ($T nestedFail)", RuntimeClasses.UninitializedMessageException)
+                    .addStatement("throw rethrowFromParent(nestedFail)")
+                    .endControlFlow();
+        }
+        type.addMethod(computeSerializedSize.build());
+    }
+
+    private void generateComputeSerializedSizeCode(MethodSpec.Builder computeSerializedSize, Stream<FieldGenerator> fields, boolean addUnknownBytes) {
         fields.forEach(f -> {
             if (f.getInfo().isRequired()) {
                 // no need to check has state again
@@ -387,17 +782,184 @@ class MessageGenerator {
                 computeSerializedSize.endControlFlow();
             }
         });
-        if (info.isStoreUnknownFieldsEnabled()) {
+        if (addUnknownBytes && info.isStoreUnknownFieldsEnabled()) {
             computeSerializedSize.addStatement(named("size += $unknownBytes:N.length()"));
         }
-        computeSerializedSize.addStatement("return size");
+    }
 
-        if (needsInitializationChecks) {
-            computeSerializedSize.nextControlFlow("catch ($T nestedFail)", RuntimeClasses.UninitializedMessageException)
-                    .addStatement("throw rethrowFromParent(nestedFail)")
-                    .endControlFlow();
+    private void generateFieldMaskMethods(TypeSpec.Builder type) {
+        if (!info.isFieldMasksEnabled()) {
+            return;
+        }
+        final TypeName maskType = ParameterizedTypeName.get(RuntimeClasses.FieldMask, info.getTypeName());
+
+        // Factory that maps field numbers to the has bits
+        MethodSpec.Builder newFieldMask = MethodSpec.methodBuilder("newFieldMask")
+                .addJavadoc("Creates a mask that selects the fields with the given field numbers.\n" +
+                        "The mask can be used for partial serialization, copies, and merges.\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(int[].class, "fieldNumbers", Modifier.FINAL)
+                .varargs(true)
+                .returns(maskType)
+                .addStatement("final $T mask = $T.newInstance($L)", maskType, RuntimeClasses.FieldMask, numBitFields)
+                .beginControlFlow("for (int fieldNumber : fieldNumbers)")
+                .beginControlFlow("switch (fieldNumber)");
+        fields.forEach(f -> {
+            newFieldMask.beginControlFlow("case $L:", f.getInfo().getNumber());
+            BitField.generateSetMaskCode(newFieldMask, f.getInfo().getBitIndex());
+            newFieldMask.addStatement("break").endControlFlow();
+        });
+        newFieldMask.beginControlFlow("default:")
+                .addStatement("throw new $T($S + fieldNumber)", IllegalArgumentException.class, "Unknown field number: ")
+                .endControlFlow()
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("return mask");
+        type.addMethod(newFieldMask.build());
+
+        // Partial output does not check for missing required fields and omits unknown fields
+        MethodSpec.Builder writeTo = MethodSpec.methodBuilder("writeTo")
+                .addJavadoc("Serializes only the fields that are selected by the mask.\n" +
+                        "Required fields and unknown fields are not checked or written.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(RuntimeClasses.ProtoSink, "output", Modifier.FINAL)
+                .addParameter(maskType, "mask", Modifier.FINAL)
+                .addException(IOException.class);
+        BitField.generateMaskedBitsCode(writeTo, numBitFields, "");
+        getFieldSortedByOutputOrder().forEach(f -> {
+            writeTo.beginControlFlow("if ($L)", BitField.hasMaskedBit(f.getInfo().getBitIndex()));
+            f.generateUpdateCachedSizeCode(writeTo);
+            f.generateSerializationCode(writeTo);
+            writeTo.endControlFlow();
+        });
+        type.addMethod(writeTo.build());
+
+        MethodSpec.Builder computeSerializedSize = MethodSpec.methodBuilder("computeSerializedSize")
+                .addJavadoc("Computes the number of bytes required to encode the fields that are\n" +
+                        "selected by the mask. The cached size of this message remains unchanged,\n" +
+                        "but the cached sizes of the selected nested messages get updated.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(maskType, "mask", Modifier.FINAL)
+                .returns(int.class);
+        BitField.generateMaskedBitsCode(computeSerializedSize, numBitFields, "");
+        computeSerializedSize.addStatement("int size = 0");
+        fields.forEach(f -> {
+            computeSerializedSize.beginControlFlow("if ($L)", BitField.hasMaskedBit(f.getInfo().getBitIndex()));
+            f.generateComputeSerializedSizeCode(computeSerializedSize);
+            computeSerializedSize.endControlFlow();
+        });
+        type.addMethod(computeSerializedSize.addStatement("return size").build());
+
+        // Selected fields get replaced, including the has state. Other fields remain unchanged.
+        MethodSpec.Builder copyFrom = MethodSpec.methodBuilder("copyFrom")
+                .addJavadoc("Copies the fields that are selected by the mask, including their has state.\n" +
+                        "Fields that are not selected remain unchanged.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(info.getTypeName(), "other", Modifier.FINAL)
+                .addParameter(maskType, "mask", Modifier.FINAL)
+                .returns(info.getTypeName());
+        generateInvalidateCachesCode(copyFrom);
+        BitField.generateMaskedCopyFromCode(copyFrom, numBitFields);
+        fields.forEach(f -> {
+            copyFrom.beginControlFlow("if ($L)", BitField.isInMask(f.getInfo().getBitIndex()));
+            f.generateMaskedCopyFromCode(copyFrom);
+            copyFrom.endControlFlow();
+        });
+        type.addMethod(copyFrom.addStatement("return this").build());
+
+        MethodSpec.Builder mergeFrom = MethodSpec.methodBuilder("mergeFrom")
+                .addJavadoc("Merges the fields that are selected by the mask. Fields that are not\n" +
+                        "selected remain unchanged.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(info.getTypeName(), "other", Modifier.FINAL)
+                .addParameter(maskType, "mask", Modifier.FINAL)
+                .returns(info.getTypeName());
+        generateInvalidateCachesCode(mergeFrom);
+        BitField.generateMaskedBitsCode(mergeFrom, numBitFields, "other.");
+        fields.forEach(f -> {
+            mergeFrom.beginControlFlow("if ($L)", BitField.hasMaskedBit(f.getInfo().getBitIndex()));
+            f.generateMergeFromMessageCode(mergeFrom);
+            mergeFrom.endControlFlow();
+        });
+        type.addMethod(mergeFrom.addStatement("return this").build());
+    }
+
+    private void generateDiffMethods(TypeSpec.Builder type) {
+        if (!info.isFieldMasksEnabled()) {
+            return;
+        }
+        // Patch layout: has bits of all changed fields, followed by the changed fields that are set
+        type.addMethod(MethodSpec.methodBuilder("diff")
+                .addJavadoc("Writes a patch that turns {@code previous} into {@code current}. The patch consists\n" +
+                        "of one varint per 32 fields that marks the changed fields, followed by the values of\n" +
+                        "all changed fields that are set in {@code current}. Repeated fields and nested\n" +
+                        "messages get written in full. Unknown fields are not part of the patch.\n")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(info.getTypeName(), "previous", Modifier.FINAL)
+                .addParameter(info.getTypeName(), "current", Modifier.FINAL)
+                .addParameter(RuntimeClasses.ProtoSink, "output", Modifier.FINAL)
+                .addException(IOException.class)
+                .addStatement("current.writeDiffTo(previous, output)")
+                .build());
+
+        MethodSpec.Builder writeDiff = MethodSpec.methodBuilder("writeDiffTo")
+                .addModifiers(Modifier.PRIVATE)
+                .addParameter(info.getTypeName(), "other", Modifier.FINAL)
+                .addParameter(RuntimeClasses.ProtoSink, "output", Modifier.FINAL)
+                .addException(IOException.class);
+        for (int i = 0; i < numBitFields; i++) {
+            final int fieldIndex = i;
+            writeDiff.addStatement("final int both$1L = bitField$1L_ & other.bitField$1L_", i);
+            writeDiff.addStatement("int changed$1L = bitField$1L_ ^ other.bitField$1L_", i);
+            fields.stream()
+                    .filter(field -> BitField.isBitInField(field.info.getBitIndex(), fieldIndex))
+                    .forEach(field -> {
+                        writeDiff.addCode("if ($L && !(", BitField.isSetInBoth(field.info.getBitIndex()));
+                        field.generateEqualsStatement(writeDiff);
+                        writeDiff.addCode(")) {$>\n")
+                                .addStatement(BitField.setChangedBit(field.info.getBitIndex()))
+                                .addCode("$<}\n");
+                    });
+            writeDiff.addStatement("output.writeUInt32NoTag(changed$L)", i);
+        }
+        for (int i = 0; i < numBitFields; i++) {
+            writeDiff.addStatement("final int bits$1L = changed$1L & bitField$1L_", i);
+        }
+        getFieldSortedByOutputOrder().forEach(f -> {
+            writeDiff.beginControlFlow("if ($L)", BitField.hasMaskedBit(f.getInfo().getBitIndex()));
+            f.generateUpdateCachedSizeCode(writeDiff);
+            f.generateSerializationCode(writeDiff);
+            writeDiff.endControlFlow();
+        });
+        type.addMethod(writeDiff.build());
+
+        // Changed fields get replaced rather than merged, so repeated fields don't get appended
+        MethodSpec.Builder applyPatch = MethodSpec.methodBuilder("applyPatch")
+                .addJavadoc("Applies a patch that was created by {@link #diff}. All changed fields get\n" +
+                        "cleared before the new values are merged, so repeated fields and nested\n" +
+                        "messages get replaced. The patch is expected to span the rest of the input.\n")
+                .addModifiers(Modifier.PUBLIC)
+                .addParameter(RuntimeClasses.ProtoSource, "input", Modifier.FINAL)
+                .returns(info.getTypeName())
+                .addException(IOException.class);
+        for (int i = 0; i < numBitFields; i++) {
+            applyPatch.addStatement("final int mask$1L = input.readUInt32()", i);
+        }
+        fields.forEach(f -> applyPatch
+                .beginControlFlow("if ($L)", BitField.isInMask(f.getInfo().getBitIndex()))
+                .addStatement("$N()", f.getInfo().getClearName())
+                .endControlFlow());
+        type.addMethod(applyPatch.addStatement("return mergeFrom(input)").build());
+    }
+
+    private void generateInvalidateCachesCode(MethodSpec.Builder method) {
+        method.addStatement("cachedSize = -1");
+        if (info.isDirtyTrackingEnabled()) {
+            method.addStatement("cachedScalarSize = -1");
+        }
+        if (hasModCount()) {
+            method.addStatement("modCount++");
         }
-        type.addMethod(computeSerializedSize.build());
     }
 
     private void generateCopyFrom(TypeSpec.Builder type) {
@@ -406,7 +968,7 @@ class MessageGenerator {
                 .addParameter(info.getTypeName(), "other", Modifier.FINAL)
                 .addModifiers(Modifier.PUBLIC)
                 .returns(info.getTypeName());
-        copyFrom.addStatement("cachedSize = other.cachedSize");
+        copyFrom.addStatement("cachedSize = -1");
         for (int i = 0; i < numBitFields; i++) {
             final int fieldIndex = i;
 
@@ -422,6 +984,25 @@ class MessageGenerator {
         if (info.isStoreUnknownFieldsEnabled()) {
             copyFrom.addStatement(named("$unknownBytes:N.copyFrom(other.$unknownBytes:N)"));
         }
+
+        // Cached state gets copied last because the clear methods invalidate it
+        if (hasModCount()) {
+            copyFrom.addStatement("modCount++");
+        }
+        if (info.isDirtyTrackingEnabled()) {
+            copyFrom.addStatement("cachedScalarSize = other.cachedScalarSize");
+        }
+        if (info.isMemoizeOutputEnabled()) {
+            // Copying the output is cheaper than serializing the copy again
+            copyFrom.beginControlFlow("if (other.getMemoizedVersion() >= 0)")
+                    .beginControlFlow("if (memoizedBytes == null || memoizedBytes.length < other.memoizedSize)")
+                    .addStatement("memoizedBytes = new byte[other.memoizedSize]")
+                    .endControlFlow()
+                    .addStatement("$T.arraycopy(other.memoizedBytes, 0, memoizedBytes, 0, other.memoizedSize)", System.class)
+                    .addStatement("memoizedSize = other.memoizedSize")
+                    .addCode(generateMemoizedCode())
+                    .endControlFlow();
+        }
         copyFrom.addStatement("return this");
         type.addMethod(copyFrom.build());
     }
@@ -437,6 +1018,12 @@ class MessageGenerator {
                 .addStatement("return this")
                 .endControlFlow();
         mergeFrom.addStatement("cachedSize = -1");
+        if (info.isDirtyTrackingEnabled()) {
+            mergeFrom.addStatement("cachedScalarSize = -1");
+        }
+        if (hasModCount()) {
+            mergeFrom.addStatement("modCount++");
+        }
 
         fields.forEach(field -> {
             mergeFrom.beginControlFlow("if (other.$L())", field.getInfo().getHazzerName());
@@ -511,10 +1098,10 @@ class MessageGenerator {
                     // isInitialized check
                     if (field.isRequired()) {
                         // has bit was already checked
-                        isInitialized.beginControlFlow("if (!$N.isInitialized())", field.getFieldName());
+                        isInitialized.beginControlFlow("if (!$L.isInitialized())", getParsedField(field));
                     } else {
                         // We need to check has bit ourselves
-                        isInitialized.beginControlFlow("if ($L() && !$N.isInitialized())", field.getHazzerName(), field.getFieldName());
+                        isInitialized.beginControlFlow("if ($L() && !$L.isInitialized())", field.getHazzerName(), getParsedField(field));
                     }
                     isInitialized
                             .addStatement("return false")
@@ -542,8 +1129,8 @@ class MessageGenerator {
             FieldInfo field = fieldGen.getInfo();
             String name = field.getDescriptor().getName();
             CodeBlock checkNestedField = CodeBlock.builder().addStatement(
-                    "getMissingFields(prefix, $S, $N, results)",
-                    name, field.getFieldName()
+                    "getMissingFields(prefix, $S, $L, results)",
+                    name, getParsedField(field)
             ).build();
 
             if (field.isRequired()) {
@@ -556,7 +1143,7 @@ class MessageGenerator {
                 getMissingFields.endControlFlow();
 
             } else if (field.isMessageOrGroupWithRequiredFieldsInHierarchy()) {
-                getMissingFields.beginControlFlow("if ($L() && !$N.isInitialized())", field.getHazzerName(), field.getFieldName())
+                getMissingFields.beginControlFlow("if ($L() && !$L.isInitialized())", field.getHazzerName(), getParsedField(field))
                         .addCode(checkNestedField)
                         .endControlFlow();
             }
@@ -566,6 +1153,13 @@ class MessageGenerator {
 
     }
 
+    /**
+     * Lazily parsed fields need to go through the getter to parse pending bytes
+     */
+    private static String getParsedField(FieldInfo field) {
+        return field.isLazyParsingEnabled() ? field.getGetterName() + "()" : field.getFieldName();
+    }
+
     private void insertFailOnMissingRequiredBits(MethodSpec.Builder method) {
         insertOnMissingRequiredBits(method, m -> m.addStatement("throw new $T(this)",
                 RuntimeClasses.UninitializedMessageException));
@@ -644,6 +1238,12 @@ class MessageGenerator {
         mergeFrom.beginControlFlow("if (!input.beginObject())")
                 .addStatement("return this")
                 .endControlFlow();
+        if (info.isDirtyTrackingEnabled()) {
+            mergeFrom.addStatement("cachedScalarSize = -1");
+        }
+        if (hasModCount()) {
+            mergeFrom.addStatement("modCount++");
+        }
 
         // Fallthrough optimization:
         //
@@ -813,7 +1413,7 @@ class MessageGenerator {
 
     MessageGenerator(MessageInfo info) {
         this.info = info;
-        info.getFields().forEach(f -> fields.add(new FieldGenerator(f)));
+        info.getFields().forEach(f -> fields.add(f.isHashMap() ? new MapFieldGenerator(f) : new FieldGenerator(f)));
         numBitFields = info.getNumBitFields();
 
         m.put("abstractMessage", RuntimeClasses.AbstractMessage);
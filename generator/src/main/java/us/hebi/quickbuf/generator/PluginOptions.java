@@ -49,6 +49,14 @@ class PluginOptions {
         extensionSupport = ExtensionSupport.parseFromString(map.getOrDefault("extensions", "disabled"));
         enforceHasChecksEnabled = parseBoolean(map.getOrDefault("enforce_has_checks", "false"));
         tryGetAccessorsEnabled = parseBoolean(map.getOrDefault("java8_optional", "false"));
+        lazyParsingEnabled = parseBoolean(map.getOrDefault("lazy_parsing", "false"));
+        zeroCopyBytesEnabled = parseBoolean(map.getOrDefault("zero_copy_bytes", "false"));
+        zeroCopyStringsEnabled = parseBoolean(map.getOrDefault("zero_copy_strings", "false"));
+        dirtyTrackingEnabled = parseBoolean(map.getOrDefault("dirty_tracking", "false"));
+        memoizeOutputEnabled = parseBoolean(map.getOrDefault("memoize_output", "false"));
+        fieldMasksEnabled = parseBoolean(map.getOrDefault("field_masks", "false"));
+        hashMapsEnabled = parseBoolean(map.getOrDefault("hash_maps", "false"));
+        reverseOutputEnabled = parseBoolean(map.getOrDefault("reverse_output", "false"));
     }
 
     enum FieldSerializationOrder {
@@ -167,6 +175,14 @@ class PluginOptions {
     final boolean storeUnknownFieldsEnabled;
     final boolean enforceHasChecksEnabled;
     final boolean tryGetAccessorsEnabled;
+    final boolean lazyParsingEnabled;
+    final boolean zeroCopyBytesEnabled;
+    final boolean zeroCopyStringsEnabled;
+    final boolean dirtyTrackingEnabled;
+    final boolean memoizeOutputEnabled;
+    final boolean fieldMasksEnabled;
+    final boolean hashMapsEnabled;
+    final boolean reverseOutputEnabled;
     final Function<String, String> replacePackageFunction;
 
 }
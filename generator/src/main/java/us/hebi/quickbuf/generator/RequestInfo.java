@@ -170,6 +170,10 @@ public class RequestInfo {
             this.outputOrder = options.getOutputOrder();
             this.storeUnknownFieldsEnabled = options.isStoreUnknownFieldsEnabled();
             this.enforceHasChecksEnabled = options.isEnforceHasChecksEnabled();
+            this.dirtyTrackingEnabled = options.isDirtyTrackingEnabled();
+            this.memoizeOutputEnabled = options.isMemoizeOutputEnabled();
+            this.fieldMasksEnabled = options.isFieldMasksEnabled();
+            this.reverseOutputEnabled = options.isReverseOutputEnabled();
 
             // Extensions in embedded mode: treat extension fields the same as normal
             // fields and embed them directly into the message.
@@ -270,6 +274,10 @@ public class RequestInfo {
         private final boolean storeUnknownFieldsEnabled;
         private final int numBitFields;
         private final boolean enforceHasChecksEnabled;
+        private final boolean dirtyTrackingEnabled;
+        private final boolean memoizeOutputEnabled;
+        private final boolean fieldMasksEnabled;
+        private final boolean reverseOutputEnabled;
         private final Function<String, Boolean> nameCollisionCheck;
 
     }
@@ -310,6 +318,11 @@ public class RequestInfo {
             adderName = "add" + upperName;
             clearName = "clear" + upperName;
             lazyInitName = "init" + upperName;
+            lazyParseName = "parse" + upperName;
+            lazyBytesName = "_lazy" + upperName;
+            viewGetterName = "get" + upperName + "View";
+            viewDetachName = "detach" + upperName;
+            viewName = "_view" + upperName;
             isPrimitive = FieldUtil.isPrimitive(descriptor.getType());
             tag = FieldUtil.makeTag(descriptor);
             bytesPerTag = FieldUtil.computeRawVarint32Size(tag) +
@@ -403,6 +416,44 @@ public class RequestInfo {
             }
         }
 
+        /**
+         * Singular message fields marked with the [lazy=true] option can store the
+         * serialized bytes and delay parsing until the content gets accessed.
+         */
+        public boolean isLazyParsingEnabled() {
+            return getPluginOptions().isLazyParsingEnabled()
+                    && descriptor.getOptions().getLazy()
+                    && isMessage() && !isRepeated() && !isRequired();
+        }
+
+        /**
+         * Singular bytes and string fields can refer to the memory of the input
+         * source and only get copied once they are accessed as a mutable type.
+         */
+        public boolean isZeroCopyEnabled() {
+            if (isRepeated()) {
+                return false;
+            }
+            return (isBytes() && getPluginOptions().isZeroCopyBytesEnabled())
+                    || (isString() && getPluginOptions().isZeroCopyStringsEnabled());
+        }
+
+        /**
+         * Mutators invalidate the cached size, so the size of messages
+         * that did not change does not need to be computed again.
+         */
+        public boolean isDirtyTrackingEnabled() {
+            return getPluginOptions().isDirtyTrackingEnabled();
+        }
+
+        /**
+         * Mutators invalidate the bytes of the last serialization, so
+         * unchanged messages can be written as a single raw copy.
+         */
+        public boolean isMemoizeOutputEnabled() {
+            return getPluginOptions().isMemoizeOutputEnabled();
+        }
+
         public boolean isEnforceHasCheckEnabled() {
             return getPluginOptions().isEnforceHasChecksEnabled();
         }
@@ -525,7 +576,48 @@ public class RequestInfo {
             return isMessageOrGroup() && getParentFile().getParentRequest().getTypeRegistry().hasRequiredFieldsInHierarchy(getTypeName());
         }
 
+        /**
+         * Map fields can be stored in hash maps that refer to the entries by index
+         * instead of as repeated entry messages. Bool keys don't benefit from hashing,
+         * and values with required fields need the initialization checks of the
+         * entry messages, so those remain repeated messages.
+         */
+        public boolean isHashMap() {
+            if (!getPluginOptions().isHashMapsEnabled() || !isRepeated() || !isMessage() || getMapEntryInfo() == null) {
+                return false;
+            }
+            return getMapKey().getDescriptor().getType() != FieldDescriptorProto.Type.TYPE_BOOL
+                    && !getMapValue().isMessageOrGroupWithRequiredFieldsInHierarchy();
+        }
+
+        public FieldInfo getMapKey() {
+            return getMapEntryField(1);
+        }
+
+        public FieldInfo getMapValue() {
+            return getMapEntryField(2);
+        }
+
+        private FieldInfo getMapEntryField(int number) {
+            return getMapEntryInfo().getFields().stream()
+                    .filter(field -> field.getNumber() == number)
+                    .findFirst()
+                    .orElseThrow(() -> new GeneratorException("Map entry is missing field " + number));
+        }
+
+        private MessageInfo getMapEntryInfo() {
+            // Lazy because nested types are not constructed at creation time
+            return parentTypeInfo.getNestedTypes().stream()
+                    .filter(type -> type.getTypeId().equals(descriptor.getTypeName()))
+                    .filter(type -> type.getDescriptor().getOptions().getMapEntry())
+                    .findFirst()
+                    .orElse(null);
+        }
+
         public TypeName getStoreType() {
+            if (isHashMap())
+                return ParameterizedTypeName.get(RuntimeClasses.getMapStoreType(getMapKey().getDescriptor().getType()),
+                        getMapValue().getRepeatedStoreType());
             if (isRepeated())
                 return getRepeatedStoreType();
             if (isString())
@@ -538,7 +630,7 @@ public class RequestInfo {
         // Used for the return type in the method, e.g., Optional<String>
         public TypeName getOptionalReturnType() {
             if (isRepeated()) {
-                return ParameterizedTypeName.get(ClassName.get(Optional.class), getRepeatedStoreType());
+                return ParameterizedTypeName.get(ClassName.get(Optional.class), getStoreType());
             }
             final TypeName typeName = getTypeName();
             if (!isPrimitive() || typeName == TypeName.BOOLEAN) {
@@ -610,6 +702,11 @@ public class RequestInfo {
         String adderName;
         String clearName;
         String lazyInitName;
+        String lazyParseName;
+        String lazyBytesName;
+        String viewGetterName;
+        String viewDetachName;
+        String viewName;
         String defaultValue;
         String jsonName;
         String protoFieldName;
@@ -35,17 +35,21 @@ class RuntimeClasses {
 
     static final ClassName ProtoSource = ClassName.get(API_PACKAGE, "ProtoSource");
     static final ClassName ProtoSink = ClassName.get(API_PACKAGE, "ProtoSink");
+    static final ClassName ReverseSink = ClassName.get(API_PACKAGE, "ReverseSink");
     static final ClassName ProtoUtil = ClassName.get(API_PACKAGE, "ProtoUtil");
     static final ClassName AbstractMessage = ClassName.get(API_PACKAGE, "ProtoMessage");
     static final ClassName MessageFactory = ClassName.get(API_PACKAGE, "MessageFactory");
     static final ClassName StringType = ClassName.get(API_PACKAGE,"Utf8String");
     static final ClassName Utf8Decoder = ClassName.get(API_PACKAGE,"Utf8Decoder");
     static final ClassName BytesType = ClassName.get(API_PACKAGE, "RepeatedByte");
+    static final ClassName BytesViewType = ClassName.get(API_PACKAGE, "BytesView");
     static final ClassName InvalidProtocolBufferException = ClassName.get(API_PACKAGE, "InvalidProtocolBufferException");
     static final ClassName UninitializedMessageException = ClassName.get(API_PACKAGE, "UninitializedMessageException");
     static final ClassName JsonSink = ClassName.get(API_PACKAGE, "JsonSink");
     static final ClassName JsonSource = ClassName.get(API_PACKAGE, "JsonSource");
     static final ClassName FieldName = ClassName.get(API_PACKAGE, "FieldName");
+    static final ClassName FieldMask = ClassName.get(API_PACKAGE, "FieldMask");
+    static final ClassName Fingerprint = ClassName.get(API_PACKAGE, "Fingerprint");
     static final ClassName ProtoEnum = ClassName.get(API_PACKAGE, "ProtoEnum");
     static final ClassName EnumConverter = ProtoEnum.nestedClass("EnumConverter");
 
@@ -64,6 +68,35 @@ class RuntimeClasses {
     static final ClassName RepeatedMessage = ClassName.get(API_PACKAGE, "RepeatedMessage");
     static final ClassName RepeatedEnum = ClassName.get(API_PACKAGE, "RepeatedEnum");
 
+    private static final ClassName IntMap = ClassName.get(API_PACKAGE, "IntMap");
+    private static final ClassName LongMap = ClassName.get(API_PACKAGE, "LongMap");
+    private static final ClassName StringMap = ClassName.get(API_PACKAGE, "StringMap");
+
+    static ClassName getMapStoreType(FieldDescriptorProto.Type keyType) {
+        switch (keyType) {
+
+            case TYPE_SFIXED64:
+            case TYPE_FIXED64:
+            case TYPE_SINT64:
+            case TYPE_INT64:
+            case TYPE_UINT64:
+                return LongMap;
+
+            case TYPE_SFIXED32:
+            case TYPE_FIXED32:
+            case TYPE_SINT32:
+            case TYPE_INT32:
+            case TYPE_UINT32:
+                return IntMap;
+
+            case TYPE_STRING:
+                return StringMap;
+
+            default:
+                throw new IllegalStateException("Unexpected map key: " + keyType);
+        }
+    }
+
     static ClassName getRepeatedStoreType(FieldDescriptorProto.Type type) {
         switch (type) {
 
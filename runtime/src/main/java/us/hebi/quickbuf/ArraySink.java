@@ -39,6 +39,7 @@ class ArraySink extends ProtoSink {
     protected int offset;
     protected int limit;
     protected int position;
+    protected boolean singlePassMode;
 
     @Override
     public int getTotalBytesWritten() {
@@ -66,6 +67,48 @@ class ArraySink extends ProtoSink {
         return new OutOfSpaceException(position, limit);
     }
 
+    @Override
+    public ProtoSink setSinglePassMode(final boolean enabled) {
+        singlePassMode = enabled;
+        return this;
+    }
+
+    @Override
+    public void writeMessageNoTag(final ProtoMessage<?> value) throws IOException {
+        if (!singlePassMode) {
+            super.writeMessageNoTag(value);
+            return;
+        }
+
+        // Reserve space based on the last known size and backpatch the actual size. The
+        // data only moves if the length needs a different number of bytes.
+        final int lengthPosition = position;
+        final int provisionalSize = getProvisionalMessageLengthSize(value);
+        if (spaceLeft() < provisionalSize) {
+            throw outOfSpace();
+        }
+        position += provisionalSize;
+        value.writeTo(this);
+
+        final int dataStart = lengthPosition + provisionalSize;
+        final int dataSize = position - dataStart;
+        final int lengthSize = computeRawVarint32Size(dataSize);
+        if (lengthSize != provisionalSize) {
+            if (spaceLeft() < lengthSize - provisionalSize) {
+                throw outOfSpace();
+            }
+            moveBytes(dataStart, lengthPosition + lengthSize, dataSize);
+        }
+        position = lengthPosition;
+        writeLength(dataSize);
+        position += dataSize;
+        value.cachedSize = dataSize;
+    }
+
+    static int getProvisionalMessageLengthSize(final ProtoMessage<?> value) {
+        return value.cachedSize < 0 ? 1 : computeRawVarint32Size(value.cachedSize);
+    }
+
     @Override
     public final void writeStringNoTag(final CharSequence value) throws IOException {
         // UTF-8 byte length of the string is at least its UTF-16 code unit length (value.length()),
@@ -152,6 +195,15 @@ class ArraySink extends ProtoSink {
         ByteUtil.writeBytes(buffer, require(length), value, offset, length);
     }
 
+    @Override
+    public void writeRawBytes(final BytesView bytes) throws IOException {
+        if (bytes.array != null) {
+            writeRawBytes(bytes.array, (int) bytes.offset, bytes.length);
+        } else {
+            ByteUtil.readUnsafeBytes(null, bytes.offset, buffer, require(bytes.length), bytes.length);
+        }
+    }
+
     @Override
     protected void writeRawBooleans(final boolean[] values, final int length) throws IOException {
         ByteUtil.writeBooleans(buffer, require(length), values, length);
@@ -177,10 +229,100 @@ class ArraySink extends ProtoSink {
         ByteUtil.writeDoubles(buffer, require(length * FIXED_64_SIZE), values, length);
     }
 
+    @Override
+    public void writePackedInt32NoTag(final RepeatedInt values) throws IOException {
+        if (!tryWritePackedVarint32s(values, ByteUtil.VARINT_INT32, MAX_VARINT64_SIZE)) {
+            super.writePackedInt32NoTag(values);
+        }
+    }
+
+    @Override
+    public void writePackedUInt32NoTag(final RepeatedInt values) throws IOException {
+        if (!tryWritePackedVarint32s(values, ByteUtil.VARINT_UINT32, MAX_VARINT32_SIZE)) {
+            super.writePackedUInt32NoTag(values);
+        }
+    }
+
+    @Override
+    public void writePackedSInt32NoTag(final RepeatedInt values) throws IOException {
+        if (!tryWritePackedVarint32s(values, ByteUtil.VARINT_SINT32, MAX_VARINT32_SIZE)) {
+            super.writePackedSInt32NoTag(values);
+        }
+    }
+
+    @Override
+    public void writePackedInt64NoTag(final RepeatedLong values) throws IOException {
+        if (!tryWritePackedVarint64s(values, false)) {
+            super.writePackedInt64NoTag(values);
+        }
+    }
+
+    @Override
+    public void writePackedSInt64NoTag(final RepeatedLong values) throws IOException {
+        if (!tryWritePackedVarint64s(values, true)) {
+            super.writePackedSInt64NoTag(values);
+        }
+    }
+
+    /**
+     * Packed varints get encoded in a single pass behind a provisional length
+     * prefix that is large enough for the worst case. The length gets written
+     * afterwards, and the data gets moved down if the actual length ends up
+     * requiring fewer bytes. Values that don't fit behind the provisional prefix
+     * fall back to the default implementation that computes the size upfront.
+     */
+    private boolean tryWritePackedVarint32s(final RepeatedInt values, final int encoding, final int maxVarintSize) throws IOException {
+        final int prefixSize = getProvisionalLengthSize(values.length, maxVarintSize);
+        final int dataEnd = encodeVarint32s(position + prefixSize, values.array, values.length, encoding);
+        if (dataEnd < 0) {
+            return false;
+        }
+        writePackedLength(prefixSize, dataEnd);
+        return true;
+    }
+
+    private boolean tryWritePackedVarint64s(final RepeatedLong values, final boolean zigZag) throws IOException {
+        final int prefixSize = getProvisionalLengthSize(values.length, MAX_VARINT64_SIZE);
+        final int dataEnd = encodeVarint64s(position + prefixSize, values.array, values.length, zigZag);
+        if (dataEnd < 0) {
+            return false;
+        }
+        writePackedLength(prefixSize, dataEnd);
+        return true;
+    }
+
+    private int getProvisionalLengthSize(final int numValues, final int maxVarintSize) {
+        final long maxDataSize = Math.min((long) numValues * maxVarintSize, spaceLeft());
+        return computeRawVarint32Size((int) maxDataSize);
+    }
+
+    private void writePackedLength(final int provisionalSize, final int dataEnd) throws IOException {
+        final int dataStart = position + provisionalSize;
+        final int dataSize = dataEnd - dataStart;
+        final int lengthSize = computeRawVarint32Size(dataSize);
+        if (lengthSize != provisionalSize) {
+            moveBytes(dataStart, position + lengthSize, dataSize);
+        }
+        writeLength(dataSize);
+        position += dataSize;
+    }
+
     protected int writeUtf8Encoded(final CharSequence value, final byte[] buffer, final int position, final int maxSize) {
         return Utf8.encodeArray(value, buffer, position, maxSize);
     }
 
+    protected int encodeVarint32s(final int position, final int[] values, final int length, final int encoding) {
+        return ByteUtil.writeVarint32s(buffer, position, limit, values, length, encoding);
+    }
+
+    protected int encodeVarint64s(final int position, final long[] values, final int length, final boolean zigZag) {
+        return ByteUtil.writeVarint64s(buffer, position, limit, values, length, zigZag);
+    }
+
+    protected void moveBytes(final int srcPosition, final int dstPosition, final int length) {
+        System.arraycopy(buffer, srcPosition, buffer, dstPosition, length);
+    }
+
     private int require(final int numBytes) throws OutOfSpaceException {
         if (spaceLeft() < numBytes)
             throw outOfSpace();
@@ -275,6 +417,15 @@ class ArraySink extends ProtoSink {
             ByteUtil.writeUnsafeBytes(buffer, require(length), values, offset, length);
         }
 
+        @Override
+        public void writeRawBytes(final BytesView bytes) throws IOException {
+            if (bytes.array != null) {
+                writeRawBytes(bytes.array, (int) bytes.offset, bytes.length);
+            } else {
+                ByteUtil.copyUnsafeMemory(bytes.offset, buffer, require(bytes.length), bytes.length);
+            }
+        }
+
         @Override
         protected void writeRawBooleans(final boolean[] values, final int length) throws IOException {
             ByteUtil.writeUnsafeBooleans(buffer, require(length), values, length);
@@ -305,6 +456,31 @@ class ArraySink extends ProtoSink {
             return Utf8.encodeUnsafe(value, buffer, baseOffset, position, maxSize);
         }
 
+        @Override
+        protected int encodeVarint32s(final int position, final int[] values, final int length, final int encoding) {
+            return ByteUtil.writeUnsafeVarint32s(buffer, baseOffset, position, limit, values, length, encoding);
+        }
+
+        @Override
+        protected int encodeVarint64s(final int position, final long[] values, final int length, final boolean zigZag) {
+            return ByteUtil.writeUnsafeVarint64s(buffer, baseOffset, position, limit, values, length, zigZag);
+        }
+
+        @Override
+        protected void moveBytes(final int srcPosition, final int dstPosition, final int length) {
+            if (ENABLE_UNSAFE_COPY) {
+                UNSAFE.copyMemory(buffer, baseOffset + srcPosition, buffer, baseOffset + dstPosition, length);
+            } else if (dstPosition < srcPosition) {
+                for (int i = 0; i < length; i++) {
+                    UNSAFE.putByte(buffer, baseOffset + dstPosition + i, UNSAFE.getByte(buffer, baseOffset + srcPosition + i));
+                }
+            } else {
+                for (int i = length - 1; i >= 0; i--) {
+                    UNSAFE.putByte(buffer, baseOffset + dstPosition + i, UNSAFE.getByte(buffer, baseOffset + srcPosition + i));
+                }
+            }
+        }
+
         private long require(final int numBytes) throws OutOfSpaceException {
             if (spaceLeft() < numBytes)
                 throw outOfSpace();
@@ -353,6 +529,36 @@ class ArraySink extends ProtoSink {
             output.add(value);
         }
 
+        @Override
+        public ProtoSink setSinglePassMode(final boolean enabled) {
+            singlePassMode = enabled;
+            return this;
+        }
+
+        @Override
+        public void writeMessageNoTag(final ProtoMessage<?> value) throws IOException {
+            if (!singlePassMode) {
+                super.writeMessageNoTag(value);
+                return;
+            }
+
+            final int provisionalSize = getProvisionalMessageLengthSize(value);
+            final int lengthPosition = output.addLength(provisionalSize);
+            value.writeTo(this);
+
+            final int dataStart = lengthPosition + provisionalSize;
+            final int dataSize = output.length - dataStart;
+            final int lengthSize = computeRawVarint32Size(dataSize);
+            if (lengthSize != provisionalSize) {
+                output.reserve(lengthSize - provisionalSize);
+                System.arraycopy(output.array, dataStart, output.array, lengthPosition + lengthSize, dataSize);
+            }
+            output.length = lengthPosition;
+            writeLength(dataSize);
+            output.length += dataSize;
+            value.cachedSize = dataSize;
+        }
+
         @Override
         public void writeLength(int length) throws IOException {
             // Length bytes are always followed by that amount of
@@ -428,6 +634,7 @@ class ArraySink extends ProtoSink {
 
         int initialPosition = 0;
         RepeatedByte output;
+        boolean singlePassMode;
 
     }
 
@@ -147,24 +147,14 @@ class ArraySource extends ProtoSource{
     /**
      * Computes the array length of a packed repeated field of varint values. Packed fields
      * know the total delimited byte size, but the number of elements is unknown for variable
-     * width fields. This method looks ahead to see how many varints are left until the limit
-     * is reached.
-     * <p>
-     * Rewinds the current input position before returning. Sources that do not support
-     * lookahead may return zero.
+     * width fields. This method looks ahead and counts the bytes without a continuation bit
+     * until the limit is reached, which does not modify the current input position.
      *
      * @return length of array or zero if not available
      * @throws IOException
      */
     protected int getRemainingVarintCount() throws IOException {
-        final int position = getTotalBytesRead();
-        int count = 0;
-        while (!isAtEnd()) {
-            readRawVarint32();
-            count++;
-        }
-        rewindTo(position);
-        return count;
+        return ByteUtil.countVarints(buffer, position, limit - position);
     }
 
     @Override
@@ -221,6 +211,119 @@ class ArraySource extends ProtoSource{
         return buffer[position++];
     }
 
+    @Override
+    public int readRawVarint32() throws IOException {
+        return nextVarint32();
+    }
+
+    @Override
+    public long readRawVarint64() throws IOException {
+        return nextVarint64();
+    }
+
+    @Override
+    protected void readRawVarint32s(final RepeatedInt store, final boolean zigZag) throws IOException {
+        // Reserve the exact amount and decode without bounds checks or virtual calls
+        final int count = ByteUtil.countVarints(buffer, position, limit - position);
+        final int offset = store.addLength(count);
+        final int[] values = store.array;
+        for (int i = offset; i < offset + count; i++) {
+            final int value = nextVarint32();
+            values[i] = zigZag ? decodeZigZag32(value) : value;
+        }
+        if (position != limit) {
+            throw InvalidProtocolBufferException.truncatedMessage();
+        }
+    }
+
+    @Override
+    protected void readRawVarint64s(final RepeatedLong store, final boolean zigZag) throws IOException {
+        // Reserve the exact amount and decode without bounds checks or virtual calls
+        final int count = ByteUtil.countVarints(buffer, position, limit - position);
+        final int offset = store.addLength(count);
+        final long[] values = store.array;
+        for (int i = offset; i < offset + count; i++) {
+            final long value = nextVarint64();
+            values[i] = zigZag ? decodeZigZag64(value) : value;
+        }
+        if (position != limit) {
+            throw InvalidProtocolBufferException.truncatedMessage();
+        }
+    }
+
+    private int nextVarint32() throws IOException {
+        // Single bytes are the most common case and don't benefit from
+        // loading 8 bytes at once
+        if (position < limit && buffer[position] >= 0) {
+            return buffer[position++];
+        }
+        // Check 8 bytes at once if we can't run past the end
+        if (ENABLE_UNSAFE_UNALIGNED && limit - position >= MAX_VARINT_SIZE) {
+            return (int) readVarintWord(ByteUtil.readLittleEndian64(buffer, position));
+        }
+        return readRawVarint32Bytewise();
+    }
+
+    private long nextVarint64() throws IOException {
+        // Single bytes are the most common case and don't benefit from
+        // loading 8 bytes at once
+        if (position < limit && buffer[position] >= 0) {
+            return buffer[position++];
+        }
+        // Check 8 bytes at once if we can't run past the end
+        if (ENABLE_UNSAFE_UNALIGNED && limit - position >= MAX_VARINT_SIZE) {
+            return readVarintWord(ByteUtil.readLittleEndian64(buffer, position));
+        }
+        return readRawVarint64Bytewise();
+    }
+
+    /**
+     * Decodes a varint from the first 8 bytes at the current position. Requires at
+     * least 10 remaining bytes, so the trailing bytes of longer varints can be read
+     * without bounds checks.
+     *
+     * @param word next 8 bytes in little-endian order
+     * @return decoded value
+     */
+    final long readVarintWord(final long word) throws IOException {
+        final int numBytes = ByteUtil.getVarintLength(word);
+        if (numBytes != 0) {
+            position += numBytes;
+            return ByteUtil.decodeVarint(word, numBytes);
+        }
+
+        // 9-10 bytes. Same as ProtoSource::readRawVarint64, the sign bit is set
+        // by the continuation bit and the last byte only gets checked. Int32
+        // values discard the upper bits.
+        final byte lastByte = readRawByteAt(8);
+        if (lastByte >= 0) {
+            position += 9;
+        } else if (readRawByteAt(9) >= 0) {
+            position += 10;
+        } else {
+            throw InvalidProtocolBufferException.malformedVarint();
+        }
+        return ByteUtil.decodeVarint(word, 8) | ((long) lastByte << 56);
+    }
+
+    /**
+     * @return byte at the current position plus an offset without bounds checks
+     */
+    byte readRawByteAt(int offset) {
+        return buffer[position + offset];
+    }
+
+    /**
+     * Byte by byte implementations that are reachable from subclasses
+     */
+    final int readRawVarint32Bytewise() throws IOException {
+        return super.readRawVarint32();
+    }
+
+    final long readRawVarint64Bytewise() throws IOException {
+        return super.readRawVarint64();
+    }
+
     @Override
     public short readRawLittleEndian16() throws IOException {
         return ByteUtil.readLittleEndian16(buffer, require(FIXED_16_SIZE));
@@ -251,6 +354,17 @@ class ArraySource extends ProtoSource{
         ByteUtil.readBytes(buffer, require(length), values, offset, length);
     }
 
+    @Override
+    public void readBytes(BytesView view) throws IOException {
+        final int length = readLength();
+        final int offset = require(length);
+        if (shouldCopyBytesViews()) {
+            ByteUtil.readBytes(buffer, offset, view.reserveStorage(length), 0, length);
+        } else {
+            view.setView(buffer, offset, length);
+        }
+    }
+
     @Override
     protected void readRawFixed32s(int[] values, int offset, int length) throws IOException {
         ByteUtil.readLittleEndian32s(buffer, require(length * FIXED_32_SIZE), values, offset, length);
@@ -338,6 +452,84 @@ class ArraySource extends ProtoSource{
             return UNSAFE.getByte(buffer, baseOffset + position++);
         }
 
+        @Override
+        public int readRawVarint32() throws IOException {
+            return nextVarint32();
+        }
+
+        @Override
+        public long readRawVarint64() throws IOException {
+            return nextVarint64();
+        }
+
+        @Override
+        protected int getRemainingVarintCount() {
+            return ByteUtil.countUnsafeVarints(buffer, baseOffset + position, limit - position);
+        }
+
+        @Override
+        protected void readRawVarint32s(final RepeatedInt store, final boolean zigZag) throws IOException {
+            final int count = ByteUtil.countUnsafeVarints(buffer, baseOffset + position, limit - position);
+            final int offset = store.addLength(count);
+            final int[] values = store.array;
+            for (int i = offset; i < offset + count; i++) {
+                final int value = nextVarint32();
+                values[i] = zigZag ? decodeZigZag32(value) : value;
+            }
+            if (position != limit) {
+                throw InvalidProtocolBufferException.truncatedMessage();
+            }
+        }
+
+        @Override
+        protected void readRawVarint64s(final RepeatedLong store, final boolean zigZag) throws IOException {
+            final int count = ByteUtil.countUnsafeVarints(buffer, baseOffset + position, limit - position);
+            final int offset = store.addLength(count);
+            final long[] values = store.array;
+            for (int i = offset; i < offset + count; i++) {
+                final long value = nextVarint64();
+                values[i] = zigZag ? decodeZigZag64(value) : value;
+            }
+            if (position != limit) {
+                throw InvalidProtocolBufferException.truncatedMessage();
+            }
+        }
+
+        private int nextVarint32() throws IOException {
+            if (position < limit) {
+                final byte firstByte = UNSAFE.getByte(buffer, baseOffset + position);
+                if (firstByte >= 0) {
+                    position++;
+                    return firstByte;
+                }
+            }
+            // Check 8 bytes at once if we can't run past the end
+            if (ENABLE_UNSAFE_UNALIGNED && limit - position >= MAX_VARINT_SIZE) {
+                return (int) readVarintWord(ByteUtil.readUnsafeLittleEndian64(buffer, baseOffset + position));
+            }
+            return readRawVarint32Bytewise();
+        }
+
+        private long nextVarint64() throws IOException {
+            if (position < limit) {
+                final byte firstByte = UNSAFE.getByte(buffer, baseOffset + position);
+                if (firstByte >= 0) {
+                    position++;
+                    return firstByte;
+                }
+            }
+            // Check 8 bytes at once if we can't run past the end
+            if (ENABLE_UNSAFE_UNALIGNED && limit - position >= MAX_VARINT_SIZE) {
+                return readVarintWord(ByteUtil.readUnsafeLittleEndian64(buffer, baseOffset + position));
+            }
+            return readRawVarint64Bytewise();
+        }
+
+        @Override
+        byte readRawByteAt(int offset) {
+            return UNSAFE.getByte(buffer, baseOffset + position + offset);
+        }
+
         @Override
         public short readRawLittleEndian16() throws IOException {
             return ByteUtil.readUnsafeLittleEndian16(buffer, require(FIXED_16_SIZE));
@@ -369,6 +561,19 @@ class ArraySource extends ProtoSource{
             ByteUtil.readUnsafeBytes(buffer, require(length), values, offset, length);
         }
 
+        @Override
+        public void readBytes(BytesView view) throws IOException {
+            final int length = readLength();
+            final long address = require(length);
+            if (shouldCopyBytesViews()) {
+                ByteUtil.readUnsafeBytes(buffer, address, view.reserveStorage(length), 0, length);
+            } else if (buffer != null) {
+                view.setView(buffer, address - BYTE_ARRAY_OFFSET, length);
+            } else {
+                view.setView(null, address, length);
+            }
+        }
+
         @Override
         protected void readRawFixed32s(int[] values, int offset, int length) throws IOException {
             ByteUtil.readUnsafeLittleEndian32s(buffer, require(length * FIXED_32_SIZE), values, offset, length);
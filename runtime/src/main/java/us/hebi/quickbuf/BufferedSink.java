@@ -0,0 +1,127 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.io.IOException;
+
+import static us.hebi.quickbuf.ProtoUtil.*;
+
+/**
+ * Base class for sinks that encode into an internal buffer and drain it
+ * into the underlying output whenever it fills up or {@link #flush()}
+ * gets called.
+ * <p>
+ * This class takes care of the position and of draining the buffer.
+ * Subclasses provide the memory of the buffer and the output that drains it.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+abstract class BufferedSink extends ProtoSink {
+
+    static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+    static final int MIN_BUFFER_SIZE = 16;
+
+    BufferedSink(int capacity) {
+        checkArgument(capacity >= MIN_BUFFER_SIZE, "buffer size must be at least " + MIN_BUFFER_SIZE);
+        this.capacity = capacity;
+    }
+
+    /** writes the first length bytes of the buffer to the output */
+    protected abstract void drain(int length) throws IOException;
+
+    /** writes the array to the output without staging it in the buffer */
+    protected abstract void write(byte[] values, int offset, int length) throws IOException;
+
+    /** copies the array into the buffer at the given position */
+    protected abstract void copyFrom(byte[] values, int offset, int position, int length);
+
+    /** resets the position after the output has changed */
+    protected final ProtoSink resetInternalState() {
+        position = 0;
+        totalBytesFlushed = 0;
+        return this;
+    }
+
+    @Override
+    public int getTotalBytesWritten() {
+        return totalBytesFlushed + position;
+    }
+
+    @Override
+    public ProtoSink reset() {
+        totalBytesFlushed = -position;
+        return this;
+    }
+
+    @Override
+    public void writeRawBytes(final byte[] value, final int offset, final int length) throws IOException {
+        ProtoUtil.checkBounds(value, offset, length);
+        if (length > capacity - position) {
+            flushBuffer();
+            if (length >= capacity) {
+                // Large writes bypass the buffer
+                write(value, offset, length);
+                totalBytesFlushed += length;
+                return;
+            }
+        }
+        copyFrom(value, offset, position, length);
+        position += length;
+    }
+
+    /** @return true if numBytes fit into an empty buffer */
+    protected final boolean fitsBuffer(final int numBytes) {
+        return numBytes >= 0 && numBytes <= capacity;
+    }
+
+    /** moves forward by numBytes and returns the current position. Flushes if there is not enough space. */
+    protected final int require(final int numBytes) throws IOException {
+        if (capacity - position < numBytes) {
+            flushBuffer();
+        }
+        try {
+            return position;
+        } finally {
+            position += numBytes;
+        }
+    }
+
+    /** drains the buffer if there is less than numBytes of space left */
+    protected final void requireSpace(final int numBytes) throws IOException {
+        if (capacity - position < numBytes) {
+            flushBuffer();
+        }
+    }
+
+    protected final void flushBuffer() throws IOException {
+        if (position > 0) {
+            drain(position);
+            totalBytesFlushed += position;
+            position = 0;
+        }
+    }
+
+    protected final int capacity;
+    protected int position;
+    private int totalBytesFlushed;
+
+}
@@ -0,0 +1,401 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.io.IOException;
+
+import static us.hebi.quickbuf.ProtoUtil.*;
+import static us.hebi.quickbuf.WireFormat.*;
+
+/**
+ * Base class for sources that read through an internal window that gets
+ * refilled in bulk. Values that are fully contained in the window get
+ * decoded directly from it, so the underlying input only gets called
+ * once every few kilobytes.
+ * <p>
+ * This class takes care of the limits and of moving the window forward.
+ * Subclasses provide the memory of the window and the input that fills it.
+ * <p>
+ * The window may read past the end of the current message, so the
+ * position of the underlying input is undefined after parsing.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+abstract class BufferedSource extends ProtoSource {
+
+    static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+    static final int MIN_BUFFER_SIZE = 16;
+
+    BufferedSource(int capacity) {
+        checkArgument(capacity >= MIN_BUFFER_SIZE, "buffer size must be at least " + MIN_BUFFER_SIZE);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Reads up to length bytes from the input into the window at the given offset.
+     *
+     * @return number of bytes read, or EOF if the end of the input was reached
+     */
+    protected abstract int fill(int offset, int length) throws IOException;
+
+    /**
+     * Reads up to length bytes from the input into the array without staging them in the window.
+     *
+     * @return number of bytes read, or EOF if the end of the input was reached
+     */
+    protected abstract int read(byte[] values, int offset, int length) throws IOException;
+
+    /**
+     * Skips up to length bytes of the input. The window has been consumed
+     * at this point, so it may be used as scratch space.
+     *
+     * @return number of bytes skipped, or EOF if the end of the input was reached
+     */
+    protected abstract int skip(int length) throws IOException;
+
+    /** @return byte at the given position in the window */
+    protected abstract byte getByte(int position);
+
+    /** copies bytes from the given position in the window into the array */
+    protected abstract void copyTo(int position, byte[] values, int offset, int length);
+
+    /** moves the bytes at the given position to the start of the window */
+    protected abstract void moveToStart(int position, int length);
+
+    /** @return number of varints that end in the given range of the window */
+    protected abstract int countVarints(int position, int length);
+
+    @Override
+    protected ProtoSource resetInternalState() {
+        super.resetInternalState();
+        bufferPos = 0;
+        bufferSize = 0;
+        totalBytesRetired = 0;
+        sizeLimit = NO_LIMIT;
+        recomputeBufferLimit();
+        return this;
+    }
+
+    @Override
+    public int setSizeLimit(final int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Size limit cannot be negative: " + limit);
+        }
+        final int oldLimit = sizeLimit;
+        sizeLimit = limit;
+        recomputeBufferLimit();
+        return oldLimit;
+    }
+
+    @Override
+    public ProtoSource resetSizeCounter() {
+        totalBytesRetired = -bufferPos;
+        recomputeBufferLimit();
+        return this;
+    }
+
+    @Override
+    public int pushLimit(int byteLimit) throws InvalidProtocolBufferException {
+        final int oldLimit = super.pushLimit(byteLimit);
+        recomputeBufferLimit();
+        return oldLimit;
+    }
+
+    @Override
+    public void popLimit(int oldLimit) {
+        super.popLimit(oldLimit);
+        recomputeBufferLimit();
+    }
+
+    @Override
+    public boolean isAtEnd() throws IOException {
+        if (bufferPos != bufferLimit) {
+            return false;
+        } else if (getTotalBytesRead() == currentLimit) {
+            return true;
+        } else if (bufferPos != bufferSize || refill(1)) {
+            return false;
+        } else if (currentLimit != NO_LIMIT) {
+            throw InvalidProtocolBufferException.truncatedMessage();
+        }
+        return true;
+    }
+
+    @Override
+    public int getTotalBytesRead() {
+        return totalBytesRetired + bufferPos;
+    }
+
+    @Override
+    public void rewindTo(int totalBytesRead) {
+        throw new UnsupportedOperationException("Buffered input can't be rewound");
+    }
+
+    @Override
+    public byte readRawByte() throws IOException {
+        if (bufferPos == bufferLimit) {
+            requireSlowPath(1);
+        }
+        return getByte(bufferPos++);
+    }
+
+    @Override
+    public int readRawVarint32() throws IOException {
+        if (bufferLimit - bufferPos < MAX_VARINT_SIZE) {
+            return super.readRawVarint32();
+        }
+
+        // See ProtoSource::readRawVarint64 for implementation notes
+        int pos = bufferPos;
+        int x = getByte(pos++);
+        if (x < 0) {
+            if ((x ^= (getByte(pos++) << 7)) < 0) {
+                x ^= xorBits7;
+            } else if ((x ^= (getByte(pos++) << 14)) >= 0) {
+                x ^= xorBits14;
+            } else if ((x ^= (getByte(pos++) << 21)) < 0) {
+                x ^= xorBits21;
+            } else {
+                // Discard upper 32 bits.
+                final int y = getByte(pos++);
+                if (y < 0
+                        && getByte(pos++) < 0
+                        && getByte(pos++) < 0
+                        && getByte(pos++) < 0
+                        && getByte(pos++) < 0
+                        && getByte(pos++) < 0) {
+                    throw InvalidProtocolBufferException.malformedVarint();
+                }
+                x ^= (y << 28) ^ xorBits28;
+            }
+        }
+        bufferPos = pos;
+        return x;
+    }
+
+    @Override
+    public long readRawVarint64() throws IOException {
+        if (bufferLimit - bufferPos < MAX_VARINT_SIZE) {
+            return super.readRawVarint64();
+        }
+
+        // See ProtoSource::readRawVarint64 for implementation notes
+        int pos = bufferPos;
+        long x;
+        int y;
+        if ((y = getByte(pos++)) >= 0) {
+            x = y;
+        } else if ((y ^= (getByte(pos++) << 7)) < 0) {
+            x = y ^ xorBits7;
+        } else if ((y ^= (getByte(pos++) << 14)) >= 0) {
+            x = y ^ xorBits14;
+        } else if ((y ^= (getByte(pos++) << 21)) < 0) {
+            x = y ^ xorBits21;
+        } else if ((x = y ^ ((long) getByte(pos++) << 28)) >= 0L) {
+            x ^= xorBits28L;
+        } else if ((x ^= ((long) getByte(pos++) << 35)) < 0L) {
+            x ^= xorBits35L;
+        } else if ((x ^= ((long) getByte(pos++) << 42)) >= 0L) {
+            x ^= xorBits42L;
+        } else if ((x ^= ((long) getByte(pos++) << 49)) < 0L) {
+            x ^= xorBits49L;
+        } else {
+            x ^= ((long) getByte(pos++) << 56) ^ xorBits56L;
+            if (x < 0L && getByte(pos++) < 0) {
+                throw InvalidProtocolBufferException.malformedVarint();
+            }
+        }
+        bufferPos = pos;
+        return x;
+    }
+
+    @Override
+    public void readRawBytes(byte[] values, int offset, int length) throws IOException {
+        if (length <= bufferLimit - bufferPos && length >= 0) {
+            copyTo(bufferPos, values, offset, length);
+            bufferPos += length;
+            return;
+        }
+        ProtoUtil.checkBounds(values, offset, length);
+        requireLimits(length);
+
+        // Copy the remaining window
+        final int available = bufferSize - bufferPos;
+        copyTo(bufferPos, values, offset, available);
+        offset += available;
+        length -= available;
+        bufferPos = bufferSize;
+
+        if (length < capacity) {
+            // Keep small reads buffered
+            if (!refill(length)) {
+                throw InvalidProtocolBufferException.truncatedMessage();
+            }
+            copyTo(0, values, offset, length);
+            bufferPos = length;
+        } else {
+            // Large reads bypass the window
+            retireWindow();
+            try {
+                while (length > 0) {
+                    final int n = read(values, offset, length);
+                    if (n == EOF) {
+                        throw InvalidProtocolBufferException.truncatedMessage();
+                    }
+                    totalBytesRetired += n;
+                    offset += n;
+                    length -= n;
+                }
+            } finally {
+                recomputeBufferLimit();
+            }
+        }
+    }
+
+    @Override
+    public void skipRawBytes(int length) throws IOException {
+        if (length <= bufferLimit - bufferPos && length >= 0) {
+            bufferPos += length;
+            return;
+        }
+        requireLimits(length);
+
+        // Discard the remaining window
+        length -= bufferSize - bufferPos;
+        bufferPos = bufferSize;
+        retireWindow();
+
+        try {
+            while (length > 0) {
+                final int n = skip(length);
+                if (n == EOF) {
+                    throw InvalidProtocolBufferException.truncatedMessage();
+                }
+                totalBytesRetired += n;
+                length -= n;
+            }
+        } finally {
+            recomputeBufferLimit();
+        }
+    }
+
+    @Override
+    protected void reservePackedVarintCapacity(RepeatedField<?, ?> store) throws IOException {
+        // Count the remaining varints if the entire payload has already been buffered
+        if (store.remainingCapacity() == 0 && currentLimit != NO_LIMIT) {
+            final int end = currentLimit - totalBytesRetired;
+            if (end <= bufferLimit) {
+                store.reserve(countVarints(bufferPos, end - bufferPos));
+            }
+        }
+    }
+
+    /** moves forward by numBytes and returns the current position in the window */
+    protected final int require(final int numBytes) throws IOException {
+        if (bufferLimit - bufferPos < numBytes) {
+            requireSlowPath(numBytes);
+        }
+        try {
+            return bufferPos;
+        } finally {
+            bufferPos += numBytes;
+        }
+    }
+
+    private void requireSlowPath(final int numBytes) throws IOException {
+        requireLimits(numBytes);
+        if (!refill(numBytes)) {
+            throw InvalidProtocolBufferException.truncatedMessage();
+        }
+    }
+
+    /** checks whether numBytes can be read without exceeding any limits */
+    protected final void requireLimits(final int numBytes) throws IOException {
+        final int position = getTotalBytesRead();
+        if (numBytes < 0) {
+            throw InvalidProtocolBufferException.negativeSize();
+        } else if (position + numBytes - sizeLimit > 0) { // int overflow conscious
+            throw InvalidProtocolBufferException.sizeLimitExceeded();
+        } else if (numBytes > currentLimit - position) {
+            throw InvalidProtocolBufferException.truncatedMessage();
+        }
+    }
+
+    /** number of elements that can be decoded from the window, or one if a refill is needed */
+    protected final int chunkSize(final int count, final int width) {
+        return Math.max(1, Math.min(count, (bufferLimit - bufferPos) / width));
+    }
+
+    /**
+     * Makes sure that at least numBytes are available after the current
+     * position. Unread bytes get moved to the start of the window so that
+     * the input can fill the rest.
+     *
+     * @return false if the end of the input was reached before
+     */
+    private boolean refill(final int numBytes) throws IOException {
+        final int remaining = bufferSize - bufferPos;
+        if (remaining >= numBytes) {
+            return true;
+        }
+        if (bufferPos > 0) {
+            moveToStart(bufferPos, remaining);
+            totalBytesRetired += bufferPos;
+            bufferPos = 0;
+            bufferSize = remaining;
+        }
+        try {
+            while (bufferSize < numBytes) {
+                final int n = fill(bufferSize, capacity - bufferSize);
+                if (n == EOF) {
+                    return false;
+                }
+                bufferSize += n;
+            }
+            return true;
+        } finally {
+            recomputeBufferLimit();
+        }
+    }
+
+    /** discards the (fully consumed) window */
+    private void retireWindow() {
+        totalBytesRetired += bufferPos;
+        bufferPos = bufferSize = 0;
+    }
+
+    /** limit is always Math.min(bufferSize, currentLimit, sizeLimit) relative to the window */
+    private void recomputeBufferLimit() {
+        final long limit = (long) Math.min(currentLimit, sizeLimit) - totalBytesRetired;
+        bufferLimit = (int) Math.max(bufferPos, Math.min(bufferSize, limit));
+    }
+
+    protected final int capacity;
+    private int bufferPos;
+    private int bufferSize;
+    private int bufferLimit;
+    private int totalBytesRetired;
+    private int sizeLimit = NO_LIMIT;
+
+    protected static final int EOF = -1;
+
+}
@@ -0,0 +1,197 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static us.hebi.quickbuf.WireFormat.*;
+
+/**
+ * Sink that encodes into an internal array and writes it to an
+ * {@link OutputStream} whenever it fills up or {@link #flush()}
+ * gets called.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+class BufferedStreamSink extends BufferedSink {
+
+    BufferedStreamSink(int bufferSize) {
+        super(bufferSize);
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public ProtoSink setOutput(OutputStream outputStream) {
+        this.stream = ProtoUtil.checkNotNull(outputStream);
+        return resetInternalState();
+    }
+
+    @Override
+    public ProtoSink clear() {
+        return setOutput(EMPTY_OUTPUT_STREAM);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        stream.flush();
+    }
+
+    @Override
+    public void writeRawByte(final byte value) throws IOException {
+        requireSpace(1);
+        buffer[position++] = value;
+    }
+
+    @Override
+    public void writeUInt32NoTag(final int value) throws IOException {
+        requireSpace(MAX_VARINT32_SIZE);
+        position += ByteUtil.writeUInt32(buffer, position, capacity, value);
+    }
+
+    @Override
+    public void writeUInt64NoTag(final long value) throws IOException {
+        requireSpace(MAX_VARINT64_SIZE);
+        position += ByteUtil.writeVarint64(buffer, position, capacity, value);
+    }
+
+    @Override
+    public void writeStringNoTag(final CharSequence value) throws IOException {
+        final int maxSize = value.length() * Utf8.MAX_UTF8_EXPANSION;
+        if (maxSize > capacity - MAX_VARINT32_SIZE) {
+            super.writeStringNoTag(value);
+            return;
+        }
+        requireSpace(maxSize + MAX_VARINT32_SIZE);
+
+        // Same as ArraySink. Skip the length computation if the varint size is known up front.
+        final int maxLengthVarIntSize = computeRawVarint32Size(maxSize);
+        if (maxLengthVarIntSize == computeRawVarint32Size(value.length())) {
+            final int startPosition = position + maxLengthVarIntSize;
+            final int endPosition = Utf8.encodeArray(value, buffer, startPosition, maxSize);
+            ByteUtil.writeUInt32(buffer, position, startPosition, endPosition - startPosition);
+            position = endPosition;
+        } else {
+            position += ByteUtil.writeUInt32(buffer, position, capacity, Utf8.encodedLength(value));
+            position = Utf8.encodeArray(value, buffer, position, maxSize);
+        }
+    }
+
+    @Override
+    public void writeRawLittleEndian16(final short value) throws IOException {
+        ByteUtil.writeLittleEndian16(buffer, require(FIXED_16_SIZE), value);
+    }
+
+    @Override
+    public void writeRawLittleEndian32(final int value) throws IOException {
+        ByteUtil.writeLittleEndian32(buffer, require(FIXED_32_SIZE), value);
+    }
+
+    @Override
+    public void writeRawLittleEndian64(final long value) throws IOException {
+        ByteUtil.writeLittleEndian64(buffer, require(FIXED_64_SIZE), value);
+    }
+
+    @Override
+    public void writeFloatNoTag(final float value) throws IOException {
+        ByteUtil.writeFloat(buffer, require(FIXED_32_SIZE), value);
+    }
+
+    @Override
+    public void writeDoubleNoTag(final double value) throws IOException {
+        ByteUtil.writeDouble(buffer, require(FIXED_64_SIZE), value);
+    }
+
+    // Packed arrays that are larger than the buffer fall back to per-element writes
+
+    @Override
+    protected void writeRawBooleans(final boolean[] values, final int length) throws IOException {
+        if (fitsBuffer(length)) {
+            ByteUtil.writeBooleans(buffer, require(length), values, length);
+        } else {
+            super.writeRawBooleans(values, length);
+        }
+    }
+
+    @Override
+    protected void writeRawFixed32s(final int[] values, final int length) throws IOException {
+        if (fitsBuffer(length * FIXED_32_SIZE)) {
+            ByteUtil.writeLittleEndian32s(buffer, require(length * FIXED_32_SIZE), values, length);
+        } else {
+            super.writeRawFixed32s(values, length);
+        }
+    }
+
+    @Override
+    protected void writeRawFixed64s(final long[] values, final int length) throws IOException {
+        if (fitsBuffer(length * FIXED_64_SIZE)) {
+            ByteUtil.writeLittleEndian64s(buffer, require(length * FIXED_64_SIZE), values, length);
+        } else {
+            super.writeRawFixed64s(values, length);
+        }
+    }
+
+    @Override
+    protected void writeRawFloats(final float[] values, final int length) throws IOException {
+        if (fitsBuffer(length * FIXED_32_SIZE)) {
+            ByteUtil.writeFloats(buffer, require(length * FIXED_32_SIZE), values, length);
+        } else {
+            super.writeRawFloats(values, length);
+        }
+    }
+
+    @Override
+    protected void writeRawDoubles(final double[] values, final int length) throws IOException {
+        if (fitsBuffer(length * FIXED_64_SIZE)) {
+            ByteUtil.writeDoubles(buffer, require(length * FIXED_64_SIZE), values, length);
+        } else {
+            super.writeRawDoubles(values, length);
+        }
+    }
+
+    @Override
+    protected void drain(int length) throws IOException {
+        stream.write(buffer, 0, length);
+    }
+
+    @Override
+    protected void write(byte[] values, int offset, int length) throws IOException {
+        stream.write(values, offset, length);
+    }
+
+    @Override
+    protected void copyFrom(byte[] values, int offset, int position, int length) {
+        System.arraycopy(values, offset, buffer, position, length);
+    }
+
+    private final byte[] buffer;
+    private OutputStream stream = EMPTY_OUTPUT_STREAM;
+
+    private static final OutputStream EMPTY_OUTPUT_STREAM = new OutputStream() {
+        @Override
+        public void write(int b) throws IOException {
+            // do nothing
+        }
+    };
+
+}
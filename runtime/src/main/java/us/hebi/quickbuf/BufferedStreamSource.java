@@ -0,0 +1,171 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static us.hebi.quickbuf.ProtoUtil.*;
+import static us.hebi.quickbuf.WireFormat.*;
+
+/**
+ * Source that reads from an {@link InputStream} through an internal
+ * window that gets refilled in bulk. Values that are fully contained
+ * in the window get decoded directly from the array, so the stream
+ * only gets called once every few kilobytes.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+class BufferedStreamSource extends BufferedSource {
+
+    BufferedStreamSource(int bufferSize) {
+        super(bufferSize);
+        this.buffer = new byte[bufferSize];
+    }
+
+    @Override
+    public ProtoSource setInput(InputStream stream) {
+        this.input = checkNotNull(stream);
+        return resetInternalState();
+    }
+
+    @Override
+    public ProtoSource clear() {
+        return setInput(EMPTY_INPUT_STREAM);
+    }
+
+    @Override
+    public short readRawLittleEndian16() throws IOException {
+        return ByteUtil.readLittleEndian16(buffer, require(FIXED_16_SIZE));
+    }
+
+    @Override
+    public int readRawLittleEndian32() throws IOException {
+        return ByteUtil.readLittleEndian32(buffer, require(FIXED_32_SIZE));
+    }
+
+    @Override
+    public long readRawLittleEndian64() throws IOException {
+        return ByteUtil.readLittleEndian64(buffer, require(FIXED_64_SIZE));
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return ByteUtil.readFloat(buffer, require(FIXED_32_SIZE));
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return ByteUtil.readDouble(buffer, require(FIXED_64_SIZE));
+    }
+
+    @Override
+    protected void readRawFixed32s(int[] values, int offset, int length) throws IOException {
+        requireLimits(length * FIXED_32_SIZE);
+        while (length > 0) {
+            final int n = chunkSize(length, FIXED_32_SIZE);
+            ByteUtil.readLittleEndian32s(buffer, require(n * FIXED_32_SIZE), values, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    protected void readRawFixed64s(long[] values, int offset, int length) throws IOException {
+        requireLimits(length * FIXED_64_SIZE);
+        while (length > 0) {
+            final int n = chunkSize(length, FIXED_64_SIZE);
+            ByteUtil.readLittleEndian64s(buffer, require(n * FIXED_64_SIZE), values, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    protected void readRawFloats(float[] values, int offset, int length) throws IOException {
+        requireLimits(length * FIXED_32_SIZE);
+        while (length > 0) {
+            final int n = chunkSize(length, FIXED_32_SIZE);
+            ByteUtil.readFloats(buffer, require(n * FIXED_32_SIZE), values, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    protected void readRawDoubles(double[] values, int offset, int length) throws IOException {
+        requireLimits(length * FIXED_64_SIZE);
+        while (length > 0) {
+            final int n = chunkSize(length, FIXED_64_SIZE);
+            ByteUtil.readDoubles(buffer, require(n * FIXED_64_SIZE), values, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    protected int fill(int offset, int length) throws IOException {
+        return input.read(buffer, offset, length);
+    }
+
+    @Override
+    protected int read(byte[] values, int offset, int length) throws IOException {
+        return input.read(values, offset, length);
+    }
+
+    @Override
+    protected int skip(int length) throws IOException {
+        final long n = input.skip(length);
+        if (n > 0) {
+            return (int) n;
+        }
+        // Not all streams can skip, and a zero doesn't tell us whether we hit EOF
+        return input.read(buffer, 0, Math.min(length, capacity));
+    }
+
+    @Override
+    protected byte getByte(int position) {
+        return buffer[position];
+    }
+
+    @Override
+    protected void copyTo(int position, byte[] values, int offset, int length) {
+        System.arraycopy(buffer, position, values, offset, length);
+    }
+
+    @Override
+    protected void moveToStart(int position, int length) {
+        System.arraycopy(buffer, position, buffer, 0, length);
+    }
+
+    @Override
+    protected int countVarints(int position, int length) {
+        return ByteUtil.countVarints(buffer, position, length);
+    }
+
+    private final byte[] buffer;
+    private InputStream input = EMPTY_INPUT_STREAM;
+
+    private static final InputStream EMPTY_INPUT_STREAM = new ByteArrayInputStream(ProtoUtil.EMPTY_BYTE_ARRAY);
+
+}
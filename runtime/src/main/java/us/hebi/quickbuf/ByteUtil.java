@@ -100,6 +100,71 @@ final class ByteUtil {
         }
     }
 
+    /**
+     * Encodes a run of 32 bit values as consecutive varints, e.g., the payload of
+     * a packed field. The bounds are only checked once the remaining space falls
+     * below the maximum size of a single varint.
+     *
+     * @param encoding one of {@link #VARINT_INT32}, {@link #VARINT_UINT32}, or {@link #VARINT_SINT32}
+     * @return the position after the last written byte, or -1 if the values don't fit
+     */
+    static int writeVarint32s(final byte[] buffer, int position, final int limit, final int[] values, final int length, final int encoding) {
+        for (int i = 0; i < length; i++) {
+            final long value = toVarint64(values[i], encoding);
+            if (limit - position < MAX_VARINT64_SIZE && limit - position < ProtoSink.computeRawVarint64Size(value)) {
+                return -1;
+            }
+            position = writeVarint(buffer, position, value);
+        }
+        return position;
+    }
+
+    /**
+     * Encodes a run of 64 bit values as consecutive varints
+     *
+     * @return the position after the last written byte, or -1 if the values don't fit
+     * @see #writeVarint32s(byte[], int, int, int[], int, int)
+     */
+    static int writeVarint64s(final byte[] buffer, int position, final int limit, final long[] values, final int length, final boolean zigZag) {
+        for (int i = 0; i < length; i++) {
+            final long value = zigZag ? ProtoSink.encodeZigZag64(values[i]) : values[i];
+            if (limit - position < MAX_VARINT64_SIZE && limit - position < ProtoSink.computeRawVarint64Size(value)) {
+                return -1;
+            }
+            position = writeVarint(buffer, position, value);
+        }
+        return position;
+    }
+
+    static int writeVarint(final byte[] buffer, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Maps a 32 bit value to the 64 bit value that gets varint encoded. Negative
+     * int32 values are sign extended to 10 bytes, while uint32 and sint32 values
+     * occupy at most 5 bytes.
+     */
+    static long toVarint64(final int value, final int encoding) {
+        switch (encoding) {
+            case VARINT_INT32:
+                return value;
+            case VARINT_UINT32:
+                return value & 0xFFFFFFFFL;
+            default:
+                return ProtoSink.encodeZigZag32(value) & 0xFFFFFFFFL;
+        }
+    }
+
+    static final int VARINT_INT32 = 0;
+    static final int VARINT_UINT32 = 1;
+    static final int VARINT_SINT32 = 2;
+
     static void writeLittleEndian16(final byte[] buffer, final int offset, final short value) {
         if (ENABLE_UNSAFE_UNALIGNED) {
             if (IS_LITTLE_ENDIAN) {
@@ -257,6 +322,69 @@ final class ByteUtil {
         }
     }
 
+    /**
+     * Locates the terminating byte of a varint that starts at the lowest byte of a
+     * little-endian word, i.e., the first byte without a continuation bit.
+     *
+     * @param word 8 bytes in little-endian order
+     * @return number of bytes in the varint (1-8), or 0 if it continues beyond the word
+     */
+    static int getVarintLength(long word) {
+        final long stopBits = ~word & VARINT_CONTINUATION_BITS;
+        return stopBits == 0 ? 0 : (Long.numberOfTrailingZeros(stopBits) + 1) >>> 3;
+    }
+
+    /**
+     * Extracts the value of a varint with a known length by packing the lower
+     * 7 bits of each byte without iterating over individual bytes.
+     *
+     * @param word     8 bytes in little-endian order
+     * @param numBytes number of bytes in the varint (1-8)
+     * @return decoded value with up to 56 bits
+     */
+    static long decodeVarint(long word, int numBytes) {
+        long x = word & (VARINT_PAYLOAD_BITS >>> (64 - (numBytes << 3)));
+        x = (x & 0x007F007F007F007FL) | ((x & 0x7F007F007F007F00L) >>> 1);
+        x = (x & 0x00003FFF00003FFFL) | ((x & 0x3FFF00003FFF0000L) >>> 2);
+        return (x & 0x000000000FFFFFFFL) | ((x & 0x0FFFFFFF00000000L) >>> 4);
+    }
+
+    /**
+     * Counts the varints in a range by counting the bytes without a continuation bit.
+     * A trailing varint that is cut off by the end of the range does not get counted.
+     */
+    static int countVarints(byte[] buffer, int offset, int length) {
+        int count = 0;
+        int i = 0;
+        if (ENABLE_UNSAFE_UNALIGNED) {
+            for (; i <= length - FIXED_64_SIZE; i += FIXED_64_SIZE) {
+                final long word = UNSAFE.getLong(buffer, BYTE_ARRAY_OFFSET + offset + i);
+                count += Long.bitCount(~word & VARINT_CONTINUATION_BITS);
+            }
+        }
+        for (; i < length; i++) {
+            count += (~buffer[offset + i] & 0x80) >>> 7;
+        }
+        return count;
+    }
+
+    static int countUnsafeVarints(byte[] buffer, long address, int length) {
+        int count = 0;
+        int i = 0;
+        if (ENABLE_UNSAFE_UNALIGNED) {
+            for (; i <= length - FIXED_64_SIZE; i += FIXED_64_SIZE) {
+                count += Long.bitCount(~UNSAFE.getLong(buffer, address + i) & VARINT_CONTINUATION_BITS);
+            }
+        }
+        for (; i < length; i++) {
+            count += (~UNSAFE.getByte(buffer, address + i) & 0x80) >>> 7;
+        }
+        return count;
+    }
+
+    private static final long VARINT_CONTINUATION_BITS = 0x8080808080808080L;
+    private static final long VARINT_PAYLOAD_BITS = 0x7F7F7F7F7F7F7F7FL;
+
     static float readFloat(byte[] buffer, int offset) {
         if (ENABLE_UNSAFE_UNALIGNED && IS_LITTLE_ENDIAN) {
             return UNSAFE.getFloat(buffer, BYTE_ARRAY_OFFSET + offset);
@@ -284,7 +412,7 @@ final class ByteUtil {
             UNSAFE.copyMemory(buffer, BYTE_ARRAY_OFFSET + offset, dst, targetOffset, numBytes);
         } else {
             for (int i = 0; i < dstLength; i++, offset += FIXED_32_SIZE) {
-                dst[i] = readLittleEndian32(buffer, offset);
+                dst[dstOffset + i] = readLittleEndian32(buffer, offset);
             }
         }
     }
@@ -296,7 +424,7 @@ final class ByteUtil {
             UNSAFE.copyMemory(buffer, BYTE_ARRAY_OFFSET + offset, dst, targetOffset, numBytes);
         } else {
             for (int i = 0; i < dstLength; i++, offset += FIXED_64_SIZE) {
-                dst[i] = readLittleEndian64(buffer, offset);
+                dst[dstOffset + i] = readLittleEndian64(buffer, offset);
             }
         }
     }
@@ -308,7 +436,7 @@ final class ByteUtil {
             UNSAFE.copyMemory(buffer, BYTE_ARRAY_OFFSET + offset, dst, targetOffset, numBytes);
         } else {
             for (int i = 0; i < dstLength; i++, offset += FIXED_32_SIZE) {
-                dst[i] = readFloat(buffer, offset);
+                dst[dstOffset + i] = readFloat(buffer, offset);
             }
         }
     }
@@ -320,7 +448,7 @@ final class ByteUtil {
             UNSAFE.copyMemory(buffer, BYTE_ARRAY_OFFSET + offset, dst, targetOffset, numBytes);
         } else {
             for (int i = 0; i < dstLength; i++, offset += FIXED_64_SIZE) {
-                dst[i] = readDouble(buffer, offset);
+                dst[dstOffset + i] = readDouble(buffer, offset);
             }
         }
     }
@@ -340,6 +468,52 @@ final class ByteUtil {
         }
     }
 
+    static int writeUnsafeVarint64(final byte[] buffer, final long addressOffset, final int offset, final int limit, long value) throws ProtoSink.OutOfSpaceException {
+        int position = offset;
+        while (true) {
+            if (position == limit) {
+                throw new ProtoSink.OutOfSpaceException(position, limit);
+            } else if ((value & ~0x7F) == 0) {
+                UNSAFE.putByte(buffer, addressOffset + position++, (byte) value);
+                return position - offset;
+            } else {
+                UNSAFE.putByte(buffer, addressOffset + position++, (byte) (value | 0x80));
+                value >>>= 7;
+            }
+        }
+    }
+
+    static int writeUnsafeVarint32s(final byte[] buffer, final long address, int position, final int limit, final int[] values, final int length, final int encoding) {
+        for (int i = 0; i < length; i++) {
+            final long value = toVarint64(values[i], encoding);
+            if (limit - position < MAX_VARINT64_SIZE && limit - position < ProtoSink.computeRawVarint64Size(value)) {
+                return -1;
+            }
+            position = writeUnsafeVarint(buffer, address, position, value);
+        }
+        return position;
+    }
+
+    static int writeUnsafeVarint64s(final byte[] buffer, final long address, int position, final int limit, final long[] values, final int length, final boolean zigZag) {
+        for (int i = 0; i < length; i++) {
+            final long value = zigZag ? ProtoSink.encodeZigZag64(values[i]) : values[i];
+            if (limit - position < MAX_VARINT64_SIZE && limit - position < ProtoSink.computeRawVarint64Size(value)) {
+                return -1;
+            }
+            position = writeUnsafeVarint(buffer, address, position, value);
+        }
+        return position;
+    }
+
+    private static int writeUnsafeVarint(final byte[] buffer, final long address, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            UNSAFE.putByte(buffer, address + position++, (byte) (value | 0x80));
+            value >>>= 7;
+        }
+        UNSAFE.putByte(buffer, address + position++, (byte) value);
+        return position;
+    }
+
     static void writeUnsafeLittleEndian16(final byte[] buffer, final long offset, final short value) {
         if (ENABLE_UNSAFE_UNALIGNED) {
             if (IS_LITTLE_ENDIAN) {
@@ -534,6 +708,17 @@ final class ByteUtil {
         }
     }
 
+    static void copyUnsafeMemory(long srcAddress, byte[] dst, long dstOffset, int length) {
+        if (ENABLE_UNSAFE_COPY) {
+            UNSAFE.copyMemory(null, srcAddress, dst, dstOffset, length);
+        } else {
+            // fallback for old Java <7 versions
+            for (int i = 0; i < length; i++) {
+                UNSAFE.putByte(dst, dstOffset + i, UNSAFE.getByte(srcAddress + i));
+            }
+        }
+    }
+
     static void readUnsafeLittleEndian32s(byte[] buffer, long offset, int[] dst, int dstOffset, int dstLength) {
         if (IS_LITTLE_ENDIAN && ENABLE_UNSAFE_COPY) {
             final int numBytes = dstLength * FIXED_32_SIZE;
@@ -541,7 +726,7 @@ final class ByteUtil {
             UNSAFE.copyMemory(buffer, offset, dst, targetOffset, numBytes);
         } else {
             for (int i = 0; i < dstLength; i++) {
-                dst[i] = readUnsafeLittleEndian32(buffer, offset);
+                dst[dstOffset + i] = readUnsafeLittleEndian32(buffer, offset);
                 offset += FIXED_32_SIZE;
             }
         }
@@ -554,7 +739,7 @@ final class ByteUtil {
             UNSAFE.copyMemory(buffer, offset, dst, targetOffset, numBytes);
         } else {
             for (int i = 0; i < dstLength; i++) {
-                dst[i] = readUnsafeLittleEndian64(buffer, offset);
+                dst[dstOffset + i] = readUnsafeLittleEndian64(buffer, offset);
                 offset += FIXED_64_SIZE;
             }
         }
@@ -567,7 +752,7 @@ final class ByteUtil {
             UNSAFE.copyMemory(buffer, offset, dst, targetOffset, numBytes);
         } else {
             for (int i = 0; i < dstLength; i++) {
-                dst[i] = readUnsafeFloat(buffer, offset);
+                dst[dstOffset + i] = readUnsafeFloat(buffer, offset);
                 offset += FIXED_32_SIZE;
             }
         }
@@ -580,7 +765,7 @@ final class ByteUtil {
             UNSAFE.copyMemory(buffer, offset, dst, targetOffset, numBytes);
         } else {
             for (int i = 0; i < dstLength; i++) {
-                dst[i] = readUnsafeDouble(buffer, offset);
+                dst[dstOffset + i] = readUnsafeDouble(buffer, offset);
                 offset += FIXED_64_SIZE;
             }
         }
@@ -0,0 +1,290 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static us.hebi.quickbuf.UnsafeAccess.*;
+
+/**
+ * Read-only view of the contents of a {@code bytes} field or of the utf8
+ * encoded contents of a {@code string} field. Views that get
+ * read from an array-backed {@link ProtoSource} refer to the memory of the
+ * source rather than to a copy, so they are only valid as long as the
+ * input of the source does not get changed or modified. Other sources,
+ * and sources that were set to {@link ProtoSource#copyBytesViews()},
+ * copy the contents into storage that is owned by the view. Components
+ * that reuse their input internally, e.g., the {@link IncrementalParser},
+ * always copy.
+ * <p>
+ * The referenced memory may be located off-heap, e.g., when reading from
+ * a direct buffer or a memory mapped file, in which case there is no
+ * backing array.
+ * <p>
+ * The comparison and hash methods work on the raw bytes and do not allocate,
+ * e.g., for routing messages based on a known set of string constants.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public final class BytesView {
+
+    public static BytesView newEmptyInstance() {
+        return new BytesView();
+    }
+
+    private BytesView() {
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public byte get(int index) {
+        if (index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+        return getByte(index);
+    }
+
+    private byte getByte(int index) {
+        return array != null ? array[(int) offset + index] : UNSAFE.getByte(offset + index);
+    }
+
+    /**
+     * @return true if the view contains exactly the given bytes
+     */
+    public boolean contentEquals(byte[] bytes) {
+        return contentEquals(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @return true if the view contains exactly the given range of bytes
+     */
+    public boolean contentEquals(byte[] bytes, int offset, int length) {
+        ProtoUtil.checkBounds(bytes, offset, length);
+        return this.length == length && regionMatches(bytes, offset, length);
+    }
+
+    /**
+     * @return true if the view begins with the given bytes
+     */
+    public boolean startsWith(byte[] prefix) {
+        return length >= prefix.length && regionMatches(prefix, 0, prefix.length);
+    }
+
+    private boolean regionMatches(byte[] bytes, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            if (getByte(i) != bytes[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes a hash of the current contents. The result matches
+     * {@link Arrays#hashCode(byte[])}, so it can be compared against
+     * hashes that were computed ahead of time.
+     *
+     * @return hash of the referenced bytes
+     */
+    public int contentHash() {
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + getByte(i);
+        }
+        return hash;
+    }
+
+    /**
+     * @return true if the referenced memory is located on the heap
+     */
+    public boolean hasArray() {
+        return array != null;
+    }
+
+    /**
+     * Provides access to the referenced array. The data is only
+     * valid between arrayOffset and arrayOffset + length.
+     *
+     * @return referenced array
+     * @throws UnsupportedOperationException if the memory is not located on the heap
+     */
+    public byte[] array() {
+        if (array == null) {
+            throw new UnsupportedOperationException("view does not refer to an array");
+        }
+        return array;
+    }
+
+    /**
+     * @return offset of the first byte within the referenced array
+     * @throws UnsupportedOperationException if the memory is not located on the heap
+     */
+    public int arrayOffset() {
+        array();
+        return (int) offset;
+    }
+
+    /**
+     * Copies the contents into the given array
+     */
+    public void copyTo(byte[] dst, int dstOffset) {
+        ProtoUtil.checkBounds(dst, dstOffset, length);
+        if (array != null) {
+            System.arraycopy(array, (int) offset, dst, dstOffset, length);
+        } else {
+            ByteUtil.readUnsafeBytes(null, offset, dst, dstOffset, length);
+        }
+    }
+
+    /**
+     * Replaces the contents of the given store with a copy of the referenced bytes
+     */
+    public void copyTo(RepeatedByte store) {
+        store.setLength(length);
+        copyTo(store.array, 0);
+    }
+
+    /**
+     * Replaces the contents of the given string with a copy of the referenced bytes
+     */
+    public void copyTo(Utf8String store) {
+        store.setSize(length);
+        copyTo(store.bytes(), 0);
+    }
+
+    /**
+     * @return a copy of the referenced bytes
+     */
+    public byte[] toArray() {
+        if (length == 0) return ProtoUtil.EMPTY_BYTE_ARRAY;
+        final byte[] bytes = new byte[length];
+        copyTo(bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Refers to a range of an existing array without copying it
+     *
+     * @return this
+     */
+    public BytesView wrap(byte[] array, int offset, int length) {
+        ProtoUtil.checkBounds(array, offset, length);
+        setView(array, offset, length);
+        return this;
+    }
+
+    /**
+     * Refers to the utf8 encoded contents of a string without copying them.
+     * The view is only valid until the string gets modified.
+     *
+     * @return this
+     */
+    public BytesView wrap(Utf8String string) {
+        setView(string.ensureSerialized().bytes(), 0, string.size());
+        return this;
+    }
+
+    /**
+     * Sets the length to zero and releases the reference to the viewed memory
+     *
+     * @return this
+     */
+    public BytesView clear() {
+        setView(storage, 0, 0);
+        return this;
+    }
+
+    /**
+     * Writes the referenced bytes without a length prefix
+     */
+    public BytesView writeTo(ProtoSink sink) throws IOException {
+        sink.writeRawBytes(this);
+        return this;
+    }
+
+    /**
+     * @param array  heap array, or null for off-heap memory
+     * @param offset index into the array, or absolute address for off-heap memory
+     */
+    void setView(byte[] array, long offset, int length) {
+        this.array = array;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Points the view at storage with space for the desired
+     * length. Used for sources that can't provide views.
+     *
+     * @return storage array that needs to be filled
+     */
+    byte[] reserveStorage(int length) {
+        if (storage.length < length) {
+            storage = new byte[length];
+        }
+        setView(storage, 0, length);
+        return storage;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (!(obj instanceof BytesView)) return false;
+        final BytesView other = (BytesView) obj;
+        if (length != other.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (getByte(i) != other.getByte(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the {@link #contentHash()} so that the hash is consistent with
+     * {@link #equals(Object)}. Views refer to memory that they don't control,
+     * so the hash changes whenever the viewed memory changes. They should
+     * not be used as a key in hashing structures while that may happen.
+     *
+     * @return hash of the referenced bytes
+     */
+    @Override
+    public int hashCode() {
+        return contentHash();
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+    byte[] array = ProtoUtil.EMPTY_BYTE_ARRAY;
+    long offset;
+    int length;
+    private byte[] storage = ProtoUtil.EMPTY_BYTE_ARRAY;
+
+}
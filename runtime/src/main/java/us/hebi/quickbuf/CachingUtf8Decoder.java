@@ -0,0 +1,241 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static us.hebi.quickbuf.ProtoUtil.*;
+
+/**
+ * Decoder that returns the same String instance for repeated occurrences of
+ * the same utf8 bytes. This avoids allocations when a limited set of values,
+ * e.g., names or identifiers, gets decoded over and over.
+ * <p>
+ * The cache has a fixed number of slots. Each slot is selected by a hash of
+ * the bytes and holds the most recently decoded value, so hash collisions
+ * replace older values rather than growing the cache. Hits get verified by
+ * comparing the bytes. Values that exceed the maximum length get decoded
+ * without being cached.
+ * <p>
+ * Lookups are lock-free, so a single instance can be shared by many threads.
+ * Hit and miss counts are only recorded if enabled, because shared counters
+ * add contention to every lookup. The slots are then split into independent
+ * stripes that each keep their own counters on a separate cache line.
+ *
+ * <pre>{@code
+ * String name = message.getNameBytes().getString(decoder);
+ * }</pre>
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public final class CachingUtf8Decoder implements Utf8Decoder {
+
+    /**
+     * Creates a decoder with 8192 slots that caches values of up to 128 bytes
+     * and does not record any stats
+     */
+    public static CachingUtf8Decoder newInstance() {
+        return newInstance(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+    }
+
+    /**
+     * Creates a decoder that does not record any stats
+     *
+     * @param capacity  number of cached values. Gets rounded up to the next power of two
+     *                  with a minimum of 16, i.e., one slot for each stripe.
+     * @param maxLength maximum number of utf8 bytes for values that get cached
+     */
+    public static CachingUtf8Decoder newInstance(int capacity, int maxLength) {
+        return newInstance(capacity, maxLength, false);
+    }
+
+    /**
+     * @param capacity    number of cached values. Gets rounded up to the next power of two
+     *                    with a minimum of 16, i.e., one slot for each stripe.
+     * @param maxLength   maximum number of utf8 bytes for values that get cached
+     * @param recordStats whether hit and miss counts should be recorded
+     */
+    public static CachingUtf8Decoder newInstance(int capacity, int maxLength, boolean recordStats) {
+        checkArgument(capacity > 0, "capacity must be positive");
+        checkArgument(maxLength >= 0, "max length must not be negative");
+        return new CachingUtf8Decoder(capacity, maxLength, recordStats);
+    }
+
+    private CachingUtf8Decoder(int capacity, int maxLength, boolean recordStats) {
+        final int numSlots = Math.max(nextPowerOfTwo(capacity), MAX_STRIPES);
+        this.stripes = new Stripe[MAX_STRIPES];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(numSlots / MAX_STRIPES);
+        }
+        this.slotMask = numSlots / MAX_STRIPES - 1;
+        this.maxLength = maxLength;
+        this.counters = recordStats ? new AtomicLongArray((MAX_STRIPES + 1) * COUNTER_STRIDE) : null;
+    }
+
+    @Override
+    public String decode(byte[] bytes, int offset, int length) {
+        if (length > maxLength) {
+            return DEFAULT_UTF8_DECODER.decode(bytes, offset, length);
+        }
+
+        final int hash = hash(bytes, offset, length);
+        final int stripeIndex = (hash >>> STRIPE_SHIFT) & (MAX_STRIPES - 1);
+        final Stripe stripe = stripes[stripeIndex];
+        final int slot = hash & slotMask;
+
+        final Entry entry = stripe.entries.get(slot);
+        if (entry != null && entry.matches(hash, bytes, offset, length)) {
+            if (counters != null) {
+                counters.incrementAndGet(counterIndex(stripeIndex, HITS));
+            }
+            return entry.string;
+        }
+
+        final String string = DEFAULT_UTF8_DECODER.decode(bytes, offset, length);
+        final byte[] key = new byte[length];
+        System.arraycopy(bytes, offset, key, 0, length);
+        stripe.entries.lazySet(slot, new Entry(hash, key, string));
+        if (counters != null) {
+            counters.incrementAndGet(counterIndex(stripeIndex, MISSES));
+        }
+        return string;
+    }
+
+    /**
+     * @return true if hit and miss counts get recorded
+     */
+    public boolean isRecordingStats() {
+        return counters != null;
+    }
+
+    /**
+     * @return number of lookups that returned a cached value, or zero if stats are not recorded
+     */
+    public long getHitCount() {
+        return sumCounters(HITS);
+    }
+
+    /**
+     * @return number of lookups that had to decode and cache a new value, or zero if stats
+     * are not recorded. Values that exceed the maximum length don't get counted.
+     */
+    public long getMissCount() {
+        return sumCounters(MISSES);
+    }
+
+    private long sumCounters(int type) {
+        long count = 0;
+        if (counters != null) {
+            for (int i = 0; i < MAX_STRIPES; i++) {
+                count += counters.get(counterIndex(i, type));
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes all cached values and resets the stats
+     */
+    public void clear() {
+        for (Stripe stripe : stripes) {
+            for (int i = 0; i < stripe.entries.length(); i++) {
+                stripe.entries.set(i, null);
+            }
+        }
+        if (counters != null) {
+            for (int i = 0; i < MAX_STRIPES; i++) {
+                counters.set(counterIndex(i, HITS), 0);
+                counters.set(counterIndex(i, MISSES), 0);
+            }
+        }
+    }
+
+    /** counters of different stripes are on separate cache lines, and the first one is offset from the array header */
+    private static int counterIndex(int stripeIndex, int type) {
+        return (stripeIndex + 1) * COUNTER_STRIDE + type;
+    }
+
+    private static int hash(byte[] bytes, int offset, int length) {
+        int hash = length;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + bytes[offset + i];
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int nextPowerOfTwo(int value) {
+        final int highestBit = Integer.highestOneBit(value);
+        return highestBit == value ? value : Math.min(highestBit << 1, MAX_CAPACITY);
+    }
+
+    private static final class Entry {
+
+        Entry(int hash, byte[] bytes, String string) {
+            this.hash = hash;
+            this.bytes = bytes;
+            this.string = string;
+        }
+
+        boolean matches(int hash, byte[] bytes, int offset, int length) {
+            if (this.hash != hash || this.bytes.length != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (this.bytes[i] != bytes[offset + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        final int hash;
+        final byte[] bytes;
+        final String string;
+
+    }
+
+    private static final class Stripe {
+
+        Stripe(int numSlots) {
+            entries = new AtomicReferenceArray<Entry>(numSlots);
+        }
+
+        final AtomicReferenceArray<Entry> entries;
+
+    }
+
+    private final Stripe[] stripes;
+    private final int slotMask;
+    private final int maxLength;
+    private final AtomicLongArray counters; // null if stats are disabled
+
+    private static final int MAX_STRIPES = 16;
+    private static final int COUNTER_STRIDE = 16; // 128 bytes, i.e., at least one cache line
+    private static final int HITS = 0;
+    private static final int MISSES = 1;
+    private static final int STRIPE_SHIFT = 24;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final int DEFAULT_CAPACITY = 8192;
+    private static final int DEFAULT_MAX_LENGTH = 128;
+
+}
@@ -0,0 +1,211 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package us.hebi.quickbuf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.WritableByteChannel;
+
+import static us.hebi.quickbuf.ProtoUtil.*;
+import static us.hebi.quickbuf.UnsafeAccess.*;
+import static us.hebi.quickbuf.WireFormat.*;
+
+/**
+ * Sink that encodes into a reusable direct buffer using the same
+ * sun.misc.Unsafe accessors as the {@link ArraySink.DirectArraySink}, and
+ * drains it into a {@link WritableByteChannel} whenever it fills up or
+ * {@link #flush()} gets called.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+class ChannelSink extends BufferedSink {
+
+    ChannelSink(int bufferSize) {
+        super(bufferSize);
+        if (!UnsafeAccess.isAvailable() || !BufferAccess.isAvailable())
+            throw new AssertionError("ChannelSink requires access to sun.misc.Unsafe");
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.address = BufferAccess.address(buffer);
+    }
+
+    @Override
+    public ProtoSink setOutput(WritableByteChannel channel) {
+        checkArgument(!(channel instanceof SelectableChannel) || ((SelectableChannel) channel).isBlocking(),
+                "channel must be in blocking mode");
+        this.channel = checkNotNull(channel);
+        return resetInternalState();
+    }
+
+    @Override
+    public ProtoSink clear() {
+        channel = null;
+        return resetInternalState();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+    }
+
+    @Override
+    public void writeRawByte(final byte value) throws IOException {
+        requireSpace(1);
+        UNSAFE.putByte(address + position++, value);
+    }
+
+    @Override
+    public void writeUInt32NoTag(final int value) throws IOException {
+        requireSpace(MAX_VARINT32_SIZE);
+        position += ByteUtil.writeUnsafeUInt32(null, address, position, capacity, value);
+    }
+
+    @Override
+    public void writeUInt64NoTag(final long value) throws IOException {
+        requireSpace(MAX_VARINT64_SIZE);
+        position += ByteUtil.writeUnsafeVarint64(null, address, position, capacity, value);
+    }
+
+    @Override
+    public void writeStringNoTag(final CharSequence value) throws IOException {
+        final int maxSize = value.length() * Utf8.MAX_UTF8_EXPANSION;
+        if (maxSize > capacity - MAX_VARINT32_SIZE) {
+            super.writeStringNoTag(value);
+            return;
+        }
+        requireSpace(maxSize + MAX_VARINT32_SIZE);
+
+        // Same as ArraySink. Skip the length computation if the varint size is known up front.
+        final int maxLengthVarIntSize = computeRawVarint32Size(maxSize);
+        if (maxLengthVarIntSize == computeRawVarint32Size(value.length())) {
+            final int startPosition = position + maxLengthVarIntSize;
+            final int endPosition = Utf8.encodeUnsafe(value, null, address, startPosition, maxSize);
+            ByteUtil.writeUnsafeUInt32(null, address, position, startPosition, endPosition - startPosition);
+            position = endPosition;
+        } else {
+            position += ByteUtil.writeUnsafeUInt32(null, address, position, capacity, Utf8.encodedLength(value));
+            position = Utf8.encodeUnsafe(value, null, address, position, maxSize);
+        }
+    }
+
+    @Override
+    public void writeRawLittleEndian16(final short value) throws IOException {
+        ByteUtil.writeUnsafeLittleEndian16(null, address + require(FIXED_16_SIZE), value);
+    }
+
+    @Override
+    public void writeRawLittleEndian32(final int value) throws IOException {
+        ByteUtil.writeUnsafeLittleEndian32(null, address + require(FIXED_32_SIZE), value);
+    }
+
+    @Override
+    public void writeRawLittleEndian64(final long value) throws IOException {
+        ByteUtil.writeUnsafeLittleEndian64(null, address + require(FIXED_64_SIZE), value);
+    }
+
+    @Override
+    public void writeFloatNoTag(final float value) throws IOException {
+        ByteUtil.writeUnsafeFloat(null, address + require(FIXED_32_SIZE), value);
+    }
+
+    @Override
+    public void writeDoubleNoTag(final double value) throws IOException {
+        ByteUtil.writeUnsafeDouble(null, address + require(FIXED_64_SIZE), value);
+    }
+
+    // Packed arrays that are larger than the buffer fall back to per-element writes
+
+    @Override
+    protected void writeRawBooleans(final boolean[] values, final int length) throws IOException {
+        if (fitsBuffer(length)) {
+            ByteUtil.writeUnsafeBooleans(null, address + require(length), values, length);
+        } else {
+            super.writeRawBooleans(values, length);
+        }
+    }
+
+    @Override
+    protected void writeRawFixed32s(final int[] values, final int length) throws IOException {
+        if (fitsBuffer(length * FIXED_32_SIZE)) {
+            ByteUtil.writeUnsafeLittleEndian32s(null, address + require(length * FIXED_32_SIZE), values, length);
+        } else {
+            super.writeRawFixed32s(values, length);
+        }
+    }
+
+    @Override
+    protected void writeRawFixed64s(final long[] values, final int length) throws IOException {
+        if (fitsBuffer(length * FIXED_64_SIZE)) {
+            ByteUtil.writeUnsafeLittleEndian64s(null, address + require(length * FIXED_64_SIZE), values, length);
+        } else {
+            super.writeRawFixed64s(values, length);
+        }
+    }
+
+    @Override
+    protected void writeRawFloats(final float[] values, final int length) throws IOException {
+        if (fitsBuffer(length * FIXED_32_SIZE)) {
+            ByteUtil.writeUnsafeFloats(null, address + require(length * FIXED_32_SIZE), values, length);
+        } else {
+            super.writeRawFloats(values, length);
+        }
+    }
+
+    @Override
+    protected void writeRawDoubles(final double[] values, final int length) throws IOException {
+        if (fitsBuffer(length * FIXED_64_SIZE)) {
+            ByteUtil.writeUnsafeDoubles(null, address + require(length * FIXED_64_SIZE), values, length);
+        } else {
+            super.writeRawDoubles(values, length);
+        }
+    }
+
+    @Override
+    protected void drain(int length) throws IOException {
+        buffer.limit(length);
+        buffer.position(0);
+        write(buffer);
+    }
+
+    @Override
+    protected void write(byte[] values, int offset, int length) throws IOException {
+        write(ByteBuffer.wrap(values, offset, length));
+    }
+
+    @Override
+    protected void copyFrom(byte[] values, int offset, int position, int length) {
+        ByteUtil.writeUnsafeBytes(null, address + position, values, offset, length);
+    }
+
+    private void write(final ByteBuffer src) throws IOException {
+        if (channel == null) {
+            throw new IllegalStateException("ChannelSink has no output set");
+        }
+        while (src.hasRemaining()) {
+            channel.write(src);
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final long address;
+    private WritableByteChannel channel;
+
+}
@@ -0,0 +1,218 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
+
+import static us.hebi.quickbuf.ProtoUtil.*;
+import static us.hebi.quickbuf.UnsafeAccess.*;
+import static us.hebi.quickbuf.WireFormat.*;
+
+/**
+ * Source that reads from a {@link ReadableByteChannel} into a reusable
+ * direct buffer. The buffer contents get decoded with sun.misc.Unsafe
+ * in the same way as the {@link ArraySource.DirectArraySource}, so data
+ * never gets copied onto the heap unless it ends up in a byte array.
+ * <p>
+ * {@link FileChannel} inputs can be read with positional reads, which
+ * don't modify the channel position and allow for multiple concurrent
+ * readers on the same channel.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+class ChannelSource extends BufferedSource {
+
+    ChannelSource(int bufferSize) {
+        super(bufferSize);
+        if (!UnsafeAccess.isAvailable() || !BufferAccess.isAvailable())
+            throw new AssertionError("ChannelSource requires access to sun.misc.Unsafe");
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.address = BufferAccess.address(buffer);
+    }
+
+    @Override
+    public ProtoSource setInput(ReadableByteChannel channel) {
+        checkArgument(!(channel instanceof SelectableChannel) || ((SelectableChannel) channel).isBlocking(),
+                "channel must be in blocking mode");
+        this.channel = checkNotNull(channel);
+        this.fileChannel = null;
+        return resetInternalState();
+    }
+
+    @Override
+    public ProtoSource setInput(FileChannel channel, long position) {
+        checkArgument(position >= 0, "position must not be negative");
+        this.channel = checkNotNull(channel);
+        this.fileChannel = channel;
+        this.filePosition = position;
+        return resetInternalState();
+    }
+
+    @Override
+    public ProtoSource clear() {
+        channel = null;
+        fileChannel = null;
+        return resetInternalState();
+    }
+
+    @Override
+    public short readRawLittleEndian16() throws IOException {
+        return ByteUtil.readUnsafeLittleEndian16(null, address + require(FIXED_16_SIZE));
+    }
+
+    @Override
+    public int readRawLittleEndian32() throws IOException {
+        return ByteUtil.readUnsafeLittleEndian32(null, address + require(FIXED_32_SIZE));
+    }
+
+    @Override
+    public long readRawLittleEndian64() throws IOException {
+        return ByteUtil.readUnsafeLittleEndian64(null, address + require(FIXED_64_SIZE));
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return ByteUtil.readUnsafeFloat(null, address + require(FIXED_32_SIZE));
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return ByteUtil.readUnsafeDouble(null, address + require(FIXED_64_SIZE));
+    }
+
+    @Override
+    protected void readRawFixed32s(int[] values, int offset, int length) throws IOException {
+        requireLimits(length * FIXED_32_SIZE);
+        while (length > 0) {
+            final int n = chunkSize(length, FIXED_32_SIZE);
+            ByteUtil.readUnsafeLittleEndian32s(null, address + require(n * FIXED_32_SIZE), values, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    protected void readRawFixed64s(long[] values, int offset, int length) throws IOException {
+        requireLimits(length * FIXED_64_SIZE);
+        while (length > 0) {
+            final int n = chunkSize(length, FIXED_64_SIZE);
+            ByteUtil.readUnsafeLittleEndian64s(null, address + require(n * FIXED_64_SIZE), values, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    protected void readRawFloats(float[] values, int offset, int length) throws IOException {
+        requireLimits(length * FIXED_32_SIZE);
+        while (length > 0) {
+            final int n = chunkSize(length, FIXED_32_SIZE);
+            ByteUtil.readUnsafeFloats(null, address + require(n * FIXED_32_SIZE), values, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    protected void readRawDoubles(double[] values, int offset, int length) throws IOException {
+        requireLimits(length * FIXED_64_SIZE);
+        while (length > 0) {
+            final int n = chunkSize(length, FIXED_64_SIZE);
+            ByteUtil.readUnsafeDoubles(null, address + require(n * FIXED_64_SIZE), values, offset, n);
+            offset += n;
+            length -= n;
+        }
+    }
+
+    @Override
+    protected int fill(int offset, int length) throws IOException {
+        buffer.limit(offset + length);
+        buffer.position(offset);
+        return read(buffer);
+    }
+
+    @Override
+    protected int read(byte[] values, int offset, int length) throws IOException {
+        return read(ByteBuffer.wrap(values, offset, length));
+    }
+
+    @Override
+    protected int skip(int length) throws IOException {
+        if (fileChannel == null) {
+            return fill(0, Math.min(length, capacity));
+        }
+        // Positional reads can skip without touching the data
+        final long remaining = fileChannel.size() - filePosition;
+        if (remaining <= 0) {
+            return EOF;
+        }
+        final int n = (int) Math.min(length, remaining);
+        filePosition += n;
+        return n;
+    }
+
+    @Override
+    protected byte getByte(int position) {
+        return UNSAFE.getByte(address + position);
+    }
+
+    @Override
+    protected void copyTo(int position, byte[] values, int offset, int length) {
+        ByteUtil.readUnsafeBytes(null, address + position, values, offset, length);
+    }
+
+    @Override
+    protected void moveToStart(int position, int length) {
+        UNSAFE.copyMemory(address + position, address, length);
+    }
+
+    @Override
+    protected int countVarints(int position, int length) {
+        return ByteUtil.countUnsafeVarints(null, address + position, length);
+    }
+
+    /** reads up to the remaining bytes of the target from the channel, or returns EOF if no input is set */
+    private int read(final ByteBuffer target) throws IOException {
+        if (channel == null) {
+            return EOF;
+        }
+        if (fileChannel == null) {
+            return channel.read(target);
+        }
+        final int n = fileChannel.read(target, filePosition);
+        if (n > 0) {
+            filePosition += n;
+        }
+        return n;
+    }
+
+    private final ByteBuffer buffer;
+    private final long address;
+    private ReadableByteChannel channel;
+    private FileChannel fileChannel;
+    private long filePosition;
+
+}
@@ -0,0 +1,102 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.util.Arrays;
+
+/**
+ * Selects a subset of the top level fields of a message type. The bits are
+ * aligned with the has state of the generated message, so the masked writeTo,
+ * computeSerializedSize, copyFrom, and mergeFrom methods only need a bitwise
+ * and for every 32 fields. Nested messages are always selected as a whole.
+ * <p>
+ * Masks get created via the generated {@code newFieldMask(int...)} method
+ * and can be reused for any number of messages.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public final class FieldMask<MessageType extends ProtoMessage<MessageType>> {
+
+    /**
+     * Creates an empty mask. This is meant to be called by generated code
+     * that knows the layout of the has state.
+     *
+     * @param numBitFields number of int fields that store the has state
+     */
+    public static <MessageType extends ProtoMessage<MessageType>> FieldMask<MessageType> newInstance(int numBitFields) {
+        return new FieldMask<MessageType>(new int[numBitFields]);
+    }
+
+    private FieldMask(int[] bits) {
+        this.bits = bits;
+    }
+
+    /**
+     * Adds the fields that correspond to the has bits. This is meant
+     * to be called by generated code.
+     */
+    public FieldMask<MessageType> setBits(int bitField, int hasBits) {
+        bits[bitField] |= hasBits;
+        return this;
+    }
+
+    /**
+     * @return the bits that are aligned with the bitField at the index
+     */
+    public int getBits(int bitField) {
+        return bits[bitField];
+    }
+
+    /**
+     * Adds all fields that are selected by the other mask
+     *
+     * @return this
+     */
+    public FieldMask<MessageType> or(FieldMask<MessageType> other) {
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] |= other.bits[i];
+        }
+        return this;
+    }
+
+    public boolean isEmpty() {
+        for (int bitField : bits) {
+            if (bitField != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj == this || (obj instanceof FieldMask && Arrays.equals(bits, ((FieldMask<?>) obj).bits));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(bits);
+    }
+
+    private final int[] bits;
+
+}
@@ -0,0 +1,222 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+/**
+ * Non-cryptographic 64 bit hash that gets used by the generated
+ * {@code fingerprint64()} methods. Values get mixed in with xxHash64
+ * rounds directly from the internal storage, so fingerprinting does
+ * not serialize or allocate anything.
+ * <p>
+ * Generated code mixes in the field number and value of every field
+ * that is set in ascending field number order, so the result does not
+ * depend on the output order or on the wire encoding, e.g., packed vs.
+ * non-packed. Fingerprints are stable for a given version of the
+ * library, but they are not guaranteed to be stable across versions.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public final class Fingerprint {
+
+    public static final long SEED = 0x27D4EB2F165667C5L;
+
+    public static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    public static long hashField(long hash, int fieldNumber, long value) {
+        return mix(mix(hash, fieldNumber), value);
+    }
+
+    public static long hashField(long hash, int fieldNumber, boolean value) {
+        return hashField(hash, fieldNumber, value ? 1 : 0);
+    }
+
+    public static long hashField(long hash, int fieldNumber, float value) {
+        return hashField(hash, fieldNumber, Float.floatToIntBits(value));
+    }
+
+    public static long hashField(long hash, int fieldNumber, double value) {
+        return hashField(hash, fieldNumber, Double.doubleToLongBits(value));
+    }
+
+    public static long hashField(long hash, int fieldNumber, ProtoMessage<?> value) {
+        return hashField(hash, fieldNumber, value.fingerprint64());
+    }
+
+    public static long hashField(long hash, int fieldNumber, Utf8String value) {
+        final int length = value.size();
+        return mixBytes(mix(hash, fieldNumber), value.bytes(), 0, length);
+    }
+
+    public static long hashField(long hash, int fieldNumber, RepeatedByte value) {
+        return mixBytes(mix(hash, fieldNumber), value.array, 0, value.length);
+    }
+
+    public static long hashField(long hash, int fieldNumber, BytesView value) {
+        hash = mix(hash, fieldNumber);
+        if (value.hasArray()) {
+            return mixBytes(hash, value.array, (int) value.offset, value.length);
+        }
+        hash = mix(hash, value.length);
+        int i = 0;
+        for (; i <= value.length - 8; i += 8) {
+            hash = mix(hash, ByteUtil.readUnsafeLittleEndian64(null, value.offset + i));
+        }
+        long tail = 0;
+        for (int shift = 0; i < value.length; i++, shift += 8) {
+            tail |= (value.get(i) & 0xFFL) << shift;
+        }
+        return mix(hash, tail);
+    }
+
+    public static long hashField(long hash, int fieldNumber, RepeatedDouble values) {
+        hash = mix(mix(hash, fieldNumber), values.length);
+        for (int i = 0; i < values.length; i++) {
+            hash = mix(hash, Double.doubleToLongBits(values.array[i]));
+        }
+        return hash;
+    }
+
+    public static long hashField(long hash, int fieldNumber, RepeatedFloat values) {
+        hash = mix(mix(hash, fieldNumber), values.length);
+        for (int i = 0; i < values.length; i++) {
+            hash = mix(hash, Float.floatToIntBits(values.array[i]));
+        }
+        return hash;
+    }
+
+    public static long hashField(long hash, int fieldNumber, RepeatedLong values) {
+        hash = mix(mix(hash, fieldNumber), values.length);
+        for (int i = 0; i < values.length; i++) {
+            hash = mix(hash, values.array[i]);
+        }
+        return hash;
+    }
+
+    public static long hashField(long hash, int fieldNumber, RepeatedInt values) {
+        hash = mix(mix(hash, fieldNumber), values.length);
+        for (int i = 0; i < values.length; i++) {
+            hash = mix(hash, values.array[i]);
+        }
+        return hash;
+    }
+
+    public static long hashField(long hash, int fieldNumber, RepeatedBoolean values) {
+        hash = mix(mix(hash, fieldNumber), values.length);
+        for (int i = 0; i < values.length; i++) {
+            hash = mix(hash, values.array[i] ? 1 : 0);
+        }
+        return hash;
+    }
+
+    public static long hashField(long hash, int fieldNumber, RepeatedEnum<?> values) {
+        hash = mix(mix(hash, fieldNumber), values.length);
+        for (int i = 0; i < values.length; i++) {
+            hash = mix(hash, values.array[i]);
+        }
+        return hash;
+    }
+
+    public static long hashField(long hash, int fieldNumber, RepeatedString values) {
+        hash = mix(mix(hash, fieldNumber), values.length);
+        for (int i = 0; i < values.length; i++) {
+            final Utf8String value = values.array[i];
+            final int length = value.size();
+            hash = mixBytes(hash, value.bytes(), 0, length);
+        }
+        return hash;
+    }
+
+    public static long hashField(long hash, int fieldNumber, RepeatedBytes values) {
+        hash = mix(mix(hash, fieldNumber), values.length);
+        for (int i = 0; i < values.length; i++) {
+            final RepeatedByte value = values.array[i];
+            hash = mixBytes(hash, value.array, 0, value.length);
+        }
+        return hash;
+    }
+
+    public static long hashField(long hash, int fieldNumber, RepeatedMessage<?> values) {
+        hash = mix(mix(hash, fieldNumber), values.length);
+        for (int i = 0; i < values.length; i++) {
+            hash = mix(hash, values.array[i].fingerprint64());
+        }
+        return hash;
+    }
+
+    public static long hashField(long hash, int fieldNumber, IntMap<?> map) {
+        return hashEntries(hash, fieldNumber, map);
+    }
+
+    public static long hashField(long hash, int fieldNumber, LongMap<?> map) {
+        return hashEntries(hash, fieldNumber, map);
+    }
+
+    public static long hashField(long hash, int fieldNumber, StringMap<?> map) {
+        return hashEntries(hash, fieldNumber, map);
+    }
+
+    private static long hashEntries(long hash, int fieldNumber, ProtoMap<?, ?, ?> map) {
+        // entries get summed up so that the result does not depend on the order
+        long sum = 0;
+        for (int i = 0; i < map.length; i++) {
+            sum += mix(map.keys.fingerprintIndex0(i), map.values.fingerprintIndex0(i));
+        }
+        return mix(mix(mix(hash, fieldNumber), map.length), sum);
+    }
+
+    private static long mixBytes(long hash, final byte[] bytes, final int offset, final int length) {
+        hash = mix(hash, length);
+        int i = 0;
+        for (; i <= length - 8; i += 8) {
+            hash = mix(hash, ByteUtil.readLittleEndian64(bytes, offset + i));
+        }
+        long tail = 0;
+        for (int shift = 0; i < length; i++, shift += 8) {
+            tail |= (bytes[offset + i] & 0xFFL) << shift;
+        }
+        return mix(hash, tail);
+    }
+
+    private static long mix(long hash, long value) {
+        long k = value * PRIME64_2;
+        k = Long.rotateLeft(k, 31);
+        k *= PRIME64_1;
+        hash ^= k;
+        return Long.rotateLeft(hash, 27) * PRIME64_1 + PRIME64_4;
+    }
+
+    private Fingerprint() {
+    }
+
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+
+}
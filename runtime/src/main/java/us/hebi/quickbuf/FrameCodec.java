@@ -0,0 +1,281 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.io.IOException;
+
+import static us.hebi.quickbuf.ProtoUtil.*;
+import static us.hebi.quickbuf.WireFormat.*;
+
+/**
+ * Writes and reads sequences of messages that are each prefixed by a header
+ * containing the payload length. Codecs are stateless and may be shared.
+ * <p>
+ * Many frames can be read from a single source into one reused message:
+ * <pre>{@code
+ * while (FrameCodec.varint().readFrame(source, message)) {
+ *     // process message
+ * }
+ * }</pre>
+ * Frames can also be skipped or forwarded without being parsed by reading
+ * only the header, or by locating frame boundaries in a raw byte array.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public abstract class FrameCodec {
+
+    /**
+     * Varint length prefix. This is the format used by
+     * {@link ProtoMessage#writeDelimitedTo(ProtoSink)}.
+     */
+    public static FrameCodec varint() {
+        return VarintCodec.INSTANCE;
+    }
+
+    /**
+     * Four byte little-endian length prefix
+     */
+    public static FrameCodec fixed32() {
+        return Fixed32Codec.INSTANCE;
+    }
+
+    /**
+     * Five byte gRPC message header consisting of a compression flag and a
+     * big-endian length. Compressed frames can be skipped or forwarded, but
+     * reading their contents results in an exception.
+     */
+    public static FrameCodec grpc() {
+        return GrpcCodec.INSTANCE;
+    }
+
+    /**
+     * @return the number of bytes in a header for the given payload length
+     */
+    public abstract int computeHeaderSize(int payloadLength);
+
+    /**
+     * Writes a header for a payload of the given length
+     */
+    public abstract void writeHeader(ProtoSink sink, int payloadLength) throws IOException;
+
+    /**
+     * Reads a header and leaves the source positioned at the start of the payload
+     *
+     * @return the payload length
+     */
+    public abstract int readHeader(ProtoSource source) throws IOException;
+
+    /**
+     * Locates the end of the frame that starts at the given offset without
+     * parsing the payload.
+     *
+     * @return the number of bytes in the entire frame including the header,
+     * or -1 if the frame is not fully contained in the given range
+     */
+    public final int computeFrameSize(byte[] buffer, int offset, int length) throws InvalidProtocolBufferException {
+        checkBounds(buffer, offset, length);
+        final long frameSize = scanFrame(buffer, offset, offset + length);
+        return frameSize <= length ? (int) frameSize : -1;
+    }
+
+    /**
+     * @return the number of bytes required to write the message as a frame
+     */
+    public final int computeFrameSize(ProtoMessage<?> message) {
+        final int payloadLength = message.getSerializedSize();
+        return computeHeaderSize(payloadLength) + payloadLength;
+    }
+
+    /**
+     * Writes the message prefixed by a header
+     */
+    public final void writeFrame(ProtoSink sink, ProtoMessage<?> message) throws IOException {
+        writeHeader(sink, message.getSerializedSize());
+        message.writeTo(sink);
+    }
+
+    /**
+     * Reads the next frame into the message. Existing content gets cleared.
+     *
+     * @return false if the source has no more frames
+     */
+    public final boolean readFrame(ProtoSource source, ProtoMessage<?> message) throws IOException {
+        if (source.isAtEnd()) {
+            return false;
+        }
+        final int oldLimit = source.pushLimit(readMessageHeader(source));
+        message.clearQuick();
+        ProtoMessage.mergeFrom(message, source);
+        source.popLimit(oldLimit);
+        return true;
+    }
+
+    /**
+     * Skips the next frame without parsing the payload
+     *
+     * @return false if the source has no more frames
+     */
+    public final boolean skipFrame(ProtoSource source) throws IOException {
+        if (source.isAtEnd()) {
+            return false;
+        }
+        source.skipRawBytes(readHeader(source));
+        return true;
+    }
+
+    /**
+     * Reads a header that must be followed by a serialized message
+     */
+    int readMessageHeader(ProtoSource source) throws IOException {
+        return readHeader(source);
+    }
+
+    /**
+     * @return the size of the frame starting at offset, or a value that is
+     * larger than the range if the header is not fully contained in it
+     */
+    abstract long scanFrame(byte[] buffer, int offset, int limit) throws InvalidProtocolBufferException;
+
+    static final class VarintCodec extends FrameCodec {
+
+        @Override
+        public int computeHeaderSize(int payloadLength) {
+            return ProtoSink.computeRawVarint32Size(payloadLength);
+        }
+
+        @Override
+        public void writeHeader(ProtoSink sink, int payloadLength) throws IOException {
+            sink.writeUInt32NoTag(payloadLength);
+        }
+
+        @Override
+        public int readHeader(ProtoSource source) throws IOException {
+            return checkLength(source.readRawVarint32());
+        }
+
+        @Override
+        long scanFrame(byte[] buffer, int offset, int limit) throws InvalidProtocolBufferException {
+            int length = 0;
+            for (int i = 0; i < MAX_VARINT32_SIZE; i++) {
+                if (offset + i == limit) {
+                    return Long.MAX_VALUE;
+                }
+                final byte b = buffer[offset + i];
+                length |= (b & 0x7F) << (7 * i);
+                if (b >= 0) {
+                    return i + 1L + checkLength(length);
+                }
+            }
+            throw InvalidProtocolBufferException.malformedVarint();
+        }
+
+        private static final VarintCodec INSTANCE = new VarintCodec();
+
+    }
+
+    static final class Fixed32Codec extends FrameCodec {
+
+        @Override
+        public int computeHeaderSize(int payloadLength) {
+            return FIXED_32_SIZE;
+        }
+
+        @Override
+        public void writeHeader(ProtoSink sink, int payloadLength) throws IOException {
+            sink.writeRawLittleEndian32(payloadLength);
+        }
+
+        @Override
+        public int readHeader(ProtoSource source) throws IOException {
+            return checkLength(source.readRawLittleEndian32());
+        }
+
+        @Override
+        long scanFrame(byte[] buffer, int offset, int limit) throws InvalidProtocolBufferException {
+            if (limit - offset < FIXED_32_SIZE) {
+                return Long.MAX_VALUE;
+            }
+            return FIXED_32_SIZE + (long) checkLength(ByteUtil.readLittleEndian32(buffer, offset));
+        }
+
+        private static final Fixed32Codec INSTANCE = new Fixed32Codec();
+
+    }
+
+    static final class GrpcCodec extends FrameCodec {
+
+        @Override
+        public int computeHeaderSize(int payloadLength) {
+            return HEADER_SIZE;
+        }
+
+        @Override
+        public void writeHeader(ProtoSink sink, int payloadLength) throws IOException {
+            sink.writeRawByte(UNCOMPRESSED);
+            sink.writeRawLittleEndian32(Integer.reverseBytes(payloadLength));
+        }
+
+        @Override
+        public int readHeader(ProtoSource source) throws IOException {
+            checkCompressionFlag(source.readRawByte());
+            return checkLength(Integer.reverseBytes(source.readRawLittleEndian32()));
+        }
+
+        @Override
+        int readMessageHeader(ProtoSource source) throws IOException {
+            if (source.readRawByte() != UNCOMPRESSED) {
+                throw new InvalidProtocolBufferException("Compressed gRPC messages are not supported.");
+            }
+            return checkLength(Integer.reverseBytes(source.readRawLittleEndian32()));
+        }
+
+        @Override
+        long scanFrame(byte[] buffer, int offset, int limit) throws InvalidProtocolBufferException {
+            if (limit - offset < HEADER_SIZE) {
+                return Long.MAX_VALUE;
+            }
+            checkCompressionFlag(buffer[offset]);
+            final int length = Integer.reverseBytes(ByteUtil.readLittleEndian32(buffer, offset + 1));
+            return HEADER_SIZE + (long) checkLength(length);
+        }
+
+        private static void checkCompressionFlag(byte flag) throws InvalidProtocolBufferException {
+            if (flag != UNCOMPRESSED && flag != COMPRESSED) {
+                throw new InvalidProtocolBufferException("Invalid gRPC compression flag: " + flag);
+            }
+        }
+
+        private static final int HEADER_SIZE = 5;
+        private static final byte UNCOMPRESSED = 0;
+        private static final byte COMPRESSED = 1;
+        private static final GrpcCodec INSTANCE = new GrpcCodec();
+
+    }
+
+    private static int checkLength(int length) throws InvalidProtocolBufferException {
+        if (length < 0) {
+            throw InvalidProtocolBufferException.negativeSize();
+        }
+        return length;
+    }
+
+}
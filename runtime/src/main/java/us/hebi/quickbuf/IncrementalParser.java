@@ -0,0 +1,294 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+import static us.hebi.quickbuf.ProtoUtil.*;
+import static us.hebi.quickbuf.WireFormat.*;
+
+/**
+ * Parses a frame of known length that arrives in arbitrarily sized chunks,
+ * e.g., from a non-blocking socket, without having to wait for the entire
+ * frame to be available.
+ * <p>
+ * Every chunk gets scanned for complete top-level fields, which then get
+ * merged into the target message right away. Merging consecutive groups of
+ * fields is equivalent to parsing all of them at once, so the result matches
+ * {@link ProtoMessage#mergeFrom(ProtoSource)}. Only bytes of a trailing
+ * incomplete field are kept until more input is available, so the internal
+ * buffer grows to roughly the size of the largest top-level field rather
+ * than the size of the frame. Fields that arrive within a single chunk get
+ * merged directly from the input without being copied.
+ * <p>
+ * Neither the chunks nor the internal buffer outlive the call that merges
+ * them, so {@link BytesView} fields always get copied into storage that is
+ * owned by the view. The views remain valid after the input chunks get
+ * reused.
+ *
+ * <pre>{@code
+ * parser.reset(message.clearQuick(), frameLength);
+ * while (!parser.isDone()) {
+ *     if (parser.read(channel) == 0) {
+ *         // wait for the channel to become readable
+ *     }
+ * }
+ * }</pre>
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public final class IncrementalParser {
+
+    public static IncrementalParser newInstance() {
+        return new IncrementalParser();
+    }
+
+    private IncrementalParser() {
+    }
+
+    /**
+     * Starts parsing a new frame. Existing message contents do not
+     * get cleared, so the frame will be merged into the message.
+     *
+     * @param message     target message
+     * @param frameLength number of bytes in the frame, e.g., from a length prefix
+     * @return this
+     */
+    public IncrementalParser reset(ProtoMessage<?> message, int frameLength) {
+        checkArgument(frameLength >= 0, "frame length must not be negative");
+        this.message = checkNotNull(message);
+        this.remaining = frameLength;
+        this.start = 0;
+        this.end = 0;
+        return this;
+    }
+
+    /**
+     * @return true if the entire frame has been received and merged
+     */
+    public boolean isDone() {
+        return remaining == 0 && start == end;
+    }
+
+    /**
+     * @return number of bytes that are still missing from the current frame
+     */
+    public int getRemaining() {
+        return remaining;
+    }
+
+    /**
+     * Consumes at most the remaining bytes of the current frame and merges
+     * all fields that are complete. Any subsequent bytes are left untouched.
+     *
+     * @return number of consumed bytes
+     */
+    public int feed(byte[] bytes, int offset, int length) throws IOException {
+        checkBounds(bytes, offset, length);
+        final int n = Math.min(length, remaining);
+        int pos = offset;
+        if (start == end) {
+            // Nothing is pending, so complete fields can be merged without a copy
+            pos = mergeCompleteFields(bytes, offset, offset + n);
+            remaining -= pos - offset;
+        }
+        final int tail = offset + n - pos;
+        System.arraycopy(bytes, pos, reserve(tail), end, tail);
+        onBytesAdded(tail);
+        return n;
+    }
+
+    /**
+     * Consumes at most the remaining bytes of the current frame and
+     * advances the buffer position accordingly.
+     *
+     * @return number of consumed bytes
+     */
+    public int feed(ByteBuffer buffer) throws IOException {
+        final int n;
+        if (buffer.hasArray()) {
+            n = feed(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.position() + n);
+        } else {
+            n = Math.min(buffer.remaining(), remaining);
+            buffer.get(reserve(n), end, n);
+            onBytesAdded(n);
+        }
+        return n;
+    }
+
+    /**
+     * Reads whatever is currently available up to the end of the frame. This
+     * never blocks if the channel is in non-blocking mode. Reaching the end
+     * of the channel before the end of the frame results in an exception.
+     *
+     * @return number of consumed bytes, possibly zero
+     */
+    public int read(ReadableByteChannel channel) throws IOException {
+        if (remaining == 0) {
+            return 0;
+        }
+        reserve(Math.min(remaining, MIN_READ_SIZE));
+        final int n = channel.read(ByteBuffer.wrap(buffer, end, Math.min(remaining, buffer.length - end)));
+        if (n < 0) {
+            throw InvalidProtocolBufferException.truncatedMessage();
+        }
+        onBytesAdded(n);
+        return n;
+    }
+
+    private void onBytesAdded(int n) throws IOException {
+        end += n;
+        remaining -= n;
+        start = mergeCompleteFields(buffer, start, end);
+        if (start == end) {
+            start = end = 0;
+        } else if (remaining == 0) {
+            throw InvalidProtocolBufferException.truncatedMessage();
+        }
+    }
+
+    /**
+     * Merges all complete top-level fields in the given range
+     *
+     * @return the end of the last complete field
+     */
+    private int mergeCompleteFields(byte[] bytes, int offset, int limit) throws IOException {
+        int pos = offset;
+        while (pos < limit) {
+            final int fieldEnd = scanField(bytes, pos, limit, 0);
+            if (fieldEnd < 0) {
+                break;
+            }
+            pos = fieldEnd;
+        }
+        if (pos != offset) {
+            source.setInput(bytes, offset, pos - offset);
+            ProtoMessage.mergeFrom(message, source);
+        }
+        return pos;
+    }
+
+    /**
+     * Makes space for at least the desired number of bytes after
+     * the current end. Bytes that have been merged get dropped.
+     */
+    private byte[] reserve(int numBytes) {
+        if (buffer.length - end >= numBytes) {
+            return buffer;
+        }
+        final int pending = end - start;
+        if (buffer.length - pending >= numBytes) {
+            System.arraycopy(buffer, start, buffer, 0, pending);
+        } else {
+            final byte[] newBuffer = new byte[Math.max(pending + numBytes, buffer.length * 2)];
+            System.arraycopy(buffer, start, newBuffer, 0, pending);
+            buffer = newBuffer;
+        }
+        start = 0;
+        end = pending;
+        return buffer;
+    }
+
+    /**
+     * @return the end of the field starting at pos, or -1 if it extends past the limit
+     */
+    private int scanField(final byte[] bytes, int pos, final int limit, final int depth) throws IOException {
+        if ((pos = scanVarint(bytes, pos, limit)) < 0) {
+            return -1;
+        }
+        final int tag = (int) varint;
+        if (getTagFieldNumber(tag) == 0) {
+            throw InvalidProtocolBufferException.invalidTag();
+        }
+        switch (getTagWireType(tag)) {
+            case WIRETYPE_VARINT:
+                return scanVarint(bytes, pos, limit);
+            case WIRETYPE_FIXED32:
+                return limit - pos >= FIXED_32_SIZE ? pos + FIXED_32_SIZE : -1;
+            case WIRETYPE_FIXED64:
+                return limit - pos >= FIXED_64_SIZE ? pos + FIXED_64_SIZE : -1;
+            case WIRETYPE_LENGTH_DELIMITED:
+                if ((pos = scanVarint(bytes, pos, limit)) < 0) {
+                    return -1;
+                } else if (varint < 0 || varint > Integer.MAX_VALUE) {
+                    throw InvalidProtocolBufferException.negativeSize();
+                }
+                return limit - pos >= varint ? pos + (int) varint : -1;
+            case WIRETYPE_START_GROUP:
+                if (depth >= RECURSION_LIMIT) {
+                    throw InvalidProtocolBufferException.recursionLimitExceeded();
+                }
+                final int endTag = makeTag(getTagFieldNumber(tag), WIRETYPE_END_GROUP);
+                while (true) {
+                    final int next = scanVarint(bytes, pos, limit);
+                    if (next < 0) {
+                        return -1;
+                    } else if ((int) varint == endTag) {
+                        return next;
+                    } else if ((pos = scanField(bytes, pos, limit, depth + 1)) < 0) {
+                        return -1;
+                    }
+                }
+            case WIRETYPE_END_GROUP:
+                // Let the message report unexpected end tags
+                return pos;
+            default:
+                throw InvalidProtocolBufferException.invalidWireType();
+        }
+    }
+
+    /**
+     * Stores the value of the varint starting at pos
+     *
+     * @return the end of the varint, or -1 if it extends past the limit
+     */
+    private int scanVarint(final byte[] bytes, int pos, final int limit) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos == limit) {
+                return -1;
+            }
+            final byte b = bytes[pos++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                varint = value;
+                return pos;
+            }
+        }
+        throw InvalidProtocolBufferException.malformedVarint();
+    }
+
+    private ProtoMessage<?> message;
+    private final ProtoSource source = ProtoSource.newArraySource().copyBytesViews();
+    private byte[] buffer = ProtoUtil.EMPTY_BYTE_ARRAY;
+    private int start; // first byte that has not been merged
+    private int end; // end of the received data
+    private int remaining; // bytes that have not been received
+    private long varint;
+
+    private static final int MIN_READ_SIZE = 8 * 1024;
+    private static final int RECURSION_LIMIT = 64;
+
+}
@@ -427,6 +427,77 @@ public abstract class JsonSink implements Closeable, Flushable {
         return this;
     }
 
+    // ==================== Map Support ====================
+    // Maps get written as objects whose keys are the quoted keys of the
+    // entries. Generated code writes the key and value of every entry
+    // between beginMap and endMap.
+
+    public JsonSink beginMap(final FieldName name) throws IOException {
+        writeFieldName(name);
+        beginObject();
+        return this;
+    }
+
+    public JsonSink endMap() throws IOException {
+        endObject();
+        return this;
+    }
+
+    public JsonSink writeMapKey(final long key) throws IOException {
+        writeFieldName(FieldName.forField(String.valueOf(key)));
+        return this;
+    }
+
+    public JsonSink writeMapKey(final Utf8String key) throws IOException {
+        writeFieldName(FieldName.forField(key.getString()));
+        return this;
+    }
+
+    public JsonSink writeMapValue(final double value) throws IOException {
+        writeNumber(value);
+        return this;
+    }
+
+    public JsonSink writeMapValue(final float value) throws IOException {
+        writeNumber(value);
+        return this;
+    }
+
+    public JsonSink writeMapValue(final long value) throws IOException {
+        writeNumber(value);
+        return this;
+    }
+
+    public JsonSink writeMapValue(final int value) throws IOException {
+        writeNumber(value);
+        return this;
+    }
+
+    public JsonSink writeMapValue(final boolean value) throws IOException {
+        writeBoolean(value);
+        return this;
+    }
+
+    public JsonSink writeMapValue(final int value, final ProtoEnum.EnumConverter<?> converter) throws IOException {
+        writeEnumValue(value, converter);
+        return this;
+    }
+
+    public JsonSink writeMapValue(final Utf8String value) throws IOException {
+        writeString(value);
+        return this;
+    }
+
+    public JsonSink writeMapValue(final RepeatedByte value) throws IOException {
+        writeBinary(value);
+        return this;
+    }
+
+    public JsonSink writeMapValue(final ProtoMessage<?> value) throws IOException {
+        writeMessageValue(value);
+        return this;
+    }
+
     protected void writeEnumValue(final int number, final ProtoEnum.EnumConverter<?> converter) throws IOException {
         final ProtoEnum<?> value;
         if (!writeEnumsAsInts && (value = converter.forNumber(number)) != null) {
@@ -548,6 +619,39 @@ public abstract class JsonSink implements Closeable, Flushable {
             writeSpaceBeforeValue();
         }
 
+        @Override
+        public JsonSink endMap() {
+            endObject();
+            writeMore();
+            return this;
+        }
+
+        @Override
+        public JsonSink writeMapKey(final long key) {
+            removeTrailingSpace();
+            writeNewline();
+            writeChar('"');
+            NumberEncoding.writeLong(key, output);
+            writeChar('"');
+            writeChar(':');
+            writeSpaceBeforeValue();
+            return this;
+        }
+
+        @Override
+        public JsonSink writeMapKey(final Utf8String key) {
+            removeTrailingSpace();
+            writeNewline();
+            if (key.hasBytes()) {
+                StringEncoding.writeQuotedUtf8(key, output);
+            } else {
+                StringEncoding.writeQuotedUtf8(key.getString(), output);
+            }
+            writeChar(':');
+            writeSpaceBeforeValue();
+            return this;
+        }
+
         @Override
         protected void writeNumber(double value) {
             floatEncoder.writeDouble(value, output);
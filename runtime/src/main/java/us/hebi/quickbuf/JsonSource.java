@@ -410,6 +410,39 @@ public abstract class JsonSource implements Closeable {
                 ProtoUtil.isEqual(fieldName.getProtoName(), currentField));
     }
 
+    // ==================== Map Support ====================
+    // Map keys are quoted field names that get parsed in place
+
+    public int readMapKeyInt32() throws IOException {
+        return (int) readMapKeyInt64();
+    }
+
+    /**
+     * Reads a key of an integer map. Values that exceed the signed range
+     * wrap around, so unsigned 64 bit keys map to the same bits.
+     */
+    public long readMapKeyInt64() throws IOException {
+        final CharSequence key = currentField = readFieldName();
+        final int length = key.length();
+        final boolean negative = length > 1 && key.charAt(0) == '-';
+        if (length == 0 || length > 20) {
+            throw new InvalidJsonException("Expected integer map key but got '" + key + "'");
+        }
+        long value = 0;
+        for (int i = negative ? 1 : 0; i < length; i++) {
+            final int digit = key.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new InvalidJsonException("Expected integer map key but got '" + key + "'");
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    public void readMapKey(final Utf8String store) throws IOException {
+        store.copyFrom(currentField = readFieldName());
+    }
+
     /**
      * @return a char sequence that does not get modified between subsequent calls to this method
      */
@@ -0,0 +1,111 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+/**
+ * Map with long keys, e.g., for int64, uint64, sint64, fixed64, or sfixed64 map fields. See {@link ProtoMap}
+ * for details on the storage layout.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public final class LongMap<ValueType extends RepeatedField<ValueType, ?>> extends ProtoMap<LongMap<ValueType>, RepeatedLong, ValueType> {
+
+    public static <ValueType extends RepeatedField<ValueType, ?>> LongMap<ValueType> newInstance(ValueType values) {
+        return new LongMap<ValueType>(values);
+    }
+
+    private LongMap(ValueType values) {
+        super(RepeatedLong.newEmptyInstance(), values);
+    }
+
+    public long keyAt(int index) {
+        checkIndex(index);
+        return keys.array[index];
+    }
+
+    /**
+     * @return index of the entry for the given key, or -1 if the key is not contained
+     */
+    public int indexOf(final long key) {
+        if (length == 0) {
+            return -1;
+        }
+        final long[] keys = this.keys.array;
+        for (int slot = hash(key) & mask; ; slot = (slot + 1) & mask) {
+            final int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            } else if (keys[entry - 1] == key) {
+                return entry - 1;
+            }
+        }
+    }
+
+    public boolean containsKey(final long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the index of the entry for the given key. An entry with
+     * a default value gets added if the key is not contained yet.
+     *
+     * @return index of the entry
+     */
+    public int put(final long key) {
+        final int index = indexOf(key);
+        if (index >= 0) {
+            return index;
+        }
+        final int pending = beginEntry(); // may grow the key storage
+        keys.array[pending] = key;
+        return insert0(hash(key));
+    }
+
+    /**
+     * @return true if the key was contained
+     */
+    public boolean remove(final long key) {
+        final int index = indexOf(key);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Sets the key of the entry that was started with {@link #beginEntry()}
+     */
+    public void setPendingKey(final long key) {
+        keys.array[length] = key;
+    }
+
+    @Override
+    int hashAt(int index) {
+        return hash(keys.array[index]);
+    }
+
+    private static int hash(final long key) {
+        return spread((int) (key ^ (key >>> 32)));
+    }
+
+}
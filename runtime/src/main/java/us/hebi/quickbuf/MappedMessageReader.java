@@ -0,0 +1,199 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static us.hebi.quickbuf.ProtoUtil.*;
+import static us.hebi.quickbuf.UnsafeAccess.*;
+import static us.hebi.quickbuf.WireFormat.*;
+
+/**
+ * Iterates over a file of length-delimited messages, e.g., a log written
+ * with {@link ProtoSink#writeMessageNoTag(ProtoMessage)}, without copying
+ * any of the data onto the heap.
+ * <p>
+ * The file gets memory mapped in regions of a fixed size that slide forward
+ * as messages get consumed. Each message is parsed directly from the mapped
+ * memory by a single reused direct source, so files may be much larger than
+ * the 2 GB limit of a single {@link MappedByteBuffer}. Messages that would
+ * cross the end of the current region cause the region to be remapped so
+ * that it starts at the message. Files that grow while being read (e.g. live
+ * logs) are supported as long as messages are appended atomically.
+ * <p>
+ * Remapping drops the reference to the previous region, and the mapping gets
+ * released whenever the garbage collector reclaims it. Mapped memory may thus
+ * become invalid at any time after the reader moved on, so {@link BytesView}
+ * fields get copied into storage that is owned by the view rather than
+ * referring to the mapped memory.
+ * <p>
+ * This reader requires availability of sun.misc.Unsafe.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public final class MappedMessageReader {
+
+    public static MappedMessageReader newInstance(FileChannel channel) throws IOException {
+        return newInstance(channel, DEFAULT_REGION_SIZE);
+    }
+
+    /**
+     * @param channel    file to read from. The channel position is not modified.
+     * @param regionSize number of bytes that get mapped at a time. Messages that
+     *                   are larger than the region size get mapped individually.
+     */
+    public static MappedMessageReader newInstance(FileChannel channel, int regionSize) throws IOException {
+        return new MappedMessageReader(channel, regionSize);
+    }
+
+    private MappedMessageReader(FileChannel channel, int regionSize) throws IOException {
+        if (!BufferAccess.isAvailable())
+            throw new AssertionError("MappedMessageReader requires access to sun.misc.Unsafe");
+        checkArgument(regionSize >= MAX_VARINT32_SIZE, "region size must be at least " + MAX_VARINT32_SIZE);
+        this.channel = checkNotNull(channel);
+        this.regionSize = regionSize;
+        this.fileSize = channel.size();
+    }
+
+    /**
+     * @return true if there are more bytes in the file, i.e., the next call
+     * to {@link #next()} is expected to succeed.
+     */
+    public boolean hasNext() throws IOException {
+        if (position < fileSize) {
+            return true;
+        }
+        fileSize = channel.size();
+        return position < fileSize;
+    }
+
+    /**
+     * Parses the next message from the file
+     *
+     * @param message message to read into. Existing content gets cleared.
+     * @return the message
+     */
+    public <T extends ProtoMessage> T next(T message) throws IOException {
+        message.clearQuick();
+        return ProtoMessage.mergeFrom(message, next());
+    }
+
+    /**
+     * Returns a source that is limited to the contents of the next message.
+     * The source is reused and remains valid only until the next call. Views
+     * get copied unless {@link ProtoSource#unsetCopyBytesViews()} is called,
+     * in which case they are also only valid until the next call.
+     *
+     * @return source that reads from the mapped memory of the next message
+     */
+    public ProtoSource next() throws IOException {
+        // Make sure that the length prefix is in the current region
+        if (!hasNext()) {
+            throw InvalidProtocolBufferException.truncatedMessage();
+        }
+        final int maxHeaderSize = (int) Math.min(MAX_VARINT32_SIZE, fileSize - position);
+        ensureMapped(position, maxHeaderSize);
+
+        // Read the length prefix
+        final long headerAddress = address + (position - regionStart);
+        int length = 0;
+        int headerSize = 0;
+        while (headerSize < MAX_VARINT32_SIZE) {
+            if (headerSize == maxHeaderSize) {
+                throw InvalidProtocolBufferException.truncatedMessage();
+            }
+            final byte b = UNSAFE.getByte(headerAddress + headerSize);
+            length |= (b & 0x7F) << (7 * headerSize++);
+            if (b >= 0) {
+                break;
+            } else if (headerSize == MAX_VARINT32_SIZE) {
+                throw InvalidProtocolBufferException.malformedVarint();
+            }
+        }
+        if (length < 0) {
+            throw InvalidProtocolBufferException.negativeSize();
+        }
+
+        // Make sure that the entire message is in the current region
+        final long start = position + headerSize;
+        final long end = start + length;
+        if (end > fileSize && end > (fileSize = channel.size())) {
+            throw InvalidProtocolBufferException.truncatedMessage();
+        }
+        ensureMapped(start, length);
+
+        position = end;
+        return source.setInput(null, address + (start - regionStart), length);
+    }
+
+    /**
+     * @return the file offset of the next message
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Sets the file offset of the next message, e.g., to resume reading at
+     * a previously stored position. The offset must point to the start of
+     * a length prefix.
+     *
+     * @param position file offset of the next message
+     * @return this
+     */
+    public MappedMessageReader setPosition(long position) {
+        checkArgument(position >= 0, "position must not be negative");
+        this.position = position;
+        return this;
+    }
+
+    /**
+     * Remaps the current region if [offset, offset + numBytes) is not fully mapped
+     */
+    private void ensureMapped(long offset, int numBytes) throws IOException {
+        if (numBytes == 0 || (offset >= regionStart && offset + numBytes <= regionEnd)) {
+            return;
+        }
+        final long size = Math.min(Math.max(regionSize, numBytes), fileSize - offset);
+        region = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        address = BufferAccess.address(region);
+        regionStart = offset;
+        regionEnd = offset + size;
+    }
+
+    private final FileChannel channel;
+    private final int regionSize;
+    private final ProtoSource source = ProtoSource.newDirectSource().copyBytesViews();
+    private long fileSize;
+    private long position;
+
+    // Keeps the mapping from being garbage collected while the source points to it
+    private MappedByteBuffer region;
+    private long address;
+    private long regionStart;
+    private long regionEnd;
+
+    private static final int DEFAULT_REGION_SIZE = 64 * 1024 * 1024;
+
+}
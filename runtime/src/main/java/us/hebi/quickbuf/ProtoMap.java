@@ -0,0 +1,365 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.util.Arrays;
+
+/**
+ * Base class for map fields. Keys and values are stored densely in repeated
+ * fields, so entries are referred to by index and contained objects get
+ * reused. Lookups go through an open-addressing hash table with linear
+ * probing that maps a slot to its entry index.
+ * <p>
+ * Entries are stored in insertion order, but removals move the last entry
+ * into the removed index. The values may be modified in place, but they
+ * should not be resized directly.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+abstract class ProtoMap<MapType extends ProtoMap<MapType, KeyType, ValueType>,
+        KeyType extends RepeatedField<KeyType, ?>,
+        ValueType extends RepeatedField<ValueType, ?>> {
+
+    ProtoMap(KeyType keys, ValueType values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @return number of entries
+     */
+    public final int length() {
+        return length;
+    }
+
+    public final boolean isEmpty() {
+        return length == 0;
+    }
+
+    /**
+     * Provides access to the values, which are stored at the same index as
+     * the corresponding key. The values may be modified, but they should not
+     * be added or removed directly.
+     *
+     * @return internal value storage
+     */
+    public final ValueType values() {
+        return values;
+    }
+
+    /**
+     * Makes sure that the map can hold at least the requested number of
+     * additional entries without needing to grow the hash table.
+     */
+    @SuppressWarnings("unchecked")
+    public final MapType reserve(int count) {
+        ensureCapacity(length + count);
+        keys.reserve(length + count - keys.length);
+        values.reserve(length + count - values.length);
+        return (MapType) this;
+    }
+
+    /**
+     * Removes the entry at the given index. The last entry
+     * gets moved into the free index.
+     */
+    @SuppressWarnings("unchecked")
+    public final MapType removeAt(int index) {
+        checkIndex(index);
+        removeSlot(slotOf(index));
+        final int last = length - 1;
+        if (index != last) {
+            table[slotOf(last)] = index + 1;
+            setHashAt(index, hashAt(last));
+            keys.swap0(index, last);
+            values.swap0(index, last);
+        }
+        setLength(last);
+        return (MapType) this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public MapType clear() {
+        if (length > 0) {
+            Arrays.fill(table, 0);
+        }
+        length = 0;
+        keys.clear();
+        values.clear();
+        return (MapType) this;
+    }
+
+    /**
+     * Removes all entries without clearing the contained objects. They
+     * get cleared when they are reused by new entries.
+     */
+    @SuppressWarnings("unchecked")
+    public MapType clearQuick() {
+        if (length > 0) {
+            Arrays.fill(table, 0);
+        }
+        setLength(0);
+        return (MapType) this;
+    }
+
+    @SuppressWarnings("unchecked")
+    public final MapType copyFrom(MapType other) {
+        keys.copyFrom(other.keys);
+        values.copyFrom(other.values);
+        setLength(other.length);
+        for (int i = 0; i < length; i++) {
+            setHashAt(i, other.hashAt(i));
+        }
+        if (table.length == other.table.length) {
+            System.arraycopy(other.table, 0, table, 0, table.length);
+        } else if (length <= (table.length >>> 1)) {
+            // the existing table is large enough
+            Arrays.fill(table, 0);
+            fillTable();
+        } else {
+            table = new int[other.table.length];
+            mask = other.mask;
+            System.arraycopy(other.table, 0, table, 0, table.length);
+        }
+        return (MapType) this;
+    }
+
+    /**
+     * Copies all entries of the other map. Existing values
+     * get replaced rather than merged.
+     */
+    @SuppressWarnings("unchecked")
+    public final MapType putAll(MapType other) {
+        for (int i = 0; i < other.length; i++) {
+            final int hash = other.hashAt(i);
+            int index = indexOf0(hash, other.keys, i);
+            if (index < 0) {
+                index = beginEntry();
+                keys.copyIndex0(index, other.keys, i);
+                insert0(hash);
+            }
+            values.copyIndex0(index, other.values, i);
+        }
+        return (MapType) this;
+    }
+
+    /**
+     * Appends a pending entry with a default key and value, and returns its
+     * index. The key and value can be set before the entry gets added with
+     * {@link #endEntry()}. This is meant to be used by generated code that
+     * parses map entries without an intermediate copy.
+     *
+     * @return index of the pending entry
+     */
+    public final int beginEntry() {
+        // discard pending entries that did not get committed
+        setLength(length);
+        ensureCapacity(length + 1);
+        if (keys.remainingCapacity() == 0) {
+            final int growth = Math.max(MIN_CAPACITY, length >> 1);
+            keys.reserve(growth);
+            values.reserve(growth);
+        }
+        keys.addDefault0();
+        values.addDefault0();
+        return length;
+    }
+
+    /**
+     * Adds the pending entry. An existing entry with the same key gets
+     * its value replaced, i.e., the last entry wins.
+     *
+     * @return index of the entry
+     */
+    public final int endEntry() {
+        final int pending = length;
+        final int hash = hashAt(pending);
+        final int index = indexOf0(hash, keys, pending);
+        if (index < 0) {
+            return insert0(hash);
+        }
+        values.swap0(index, pending);
+        setLength(length);
+        return index;
+    }
+
+    /**
+     * @return index of the entry with the same key as the key at keyIndex, or -1
+     */
+    final int indexOf0(final int hash, final KeyType keys, final int keyIndex) {
+        if (length == 0) {
+            return -1;
+        }
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            final int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            } else if (this.keys.equalsIndex0(entry - 1, keys, keyIndex)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    /**
+     * Adds the key at index length to the table. The key must not already
+     * be contained, and the capacity needs to have been ensured beforehand.
+     *
+     * @return index of the new entry
+     */
+    final int insert0(final int hash) {
+        int slot = hash & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = length + 1;
+        setHashAt(length, hash);
+        return length++;
+    }
+
+    final void ensureCapacity(int count) {
+        // keep the load factor at or below 0.5
+        if (count > (table.length >>> 1)) {
+            rehash(Integer.highestOneBit(Math.max(count, MIN_CAPACITY / 2) * 2 - 1) << 1);
+        }
+    }
+
+    private void rehash(int tableSize) {
+        table = new int[tableSize];
+        mask = tableSize - 1;
+        fillTable();
+    }
+
+    private void fillTable() {
+        for (int i = 0; i < length; i++) {
+            int slot = hashAt(i) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    private int slotOf(final int index) {
+        int slot = hashAt(index) & mask;
+        while (table[slot] != index + 1) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Deletes a slot and shifts subsequent entries of the same cluster
+     * back, so that lookups don't need to deal with tombstones.
+     */
+    private void removeSlot(int hole) {
+        for (int slot = (hole + 1) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            final int home = hashAt(table[slot] - 1) & mask;
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                table[hole] = table[slot];
+                hole = slot;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    final void checkIndex(int index) {
+        if (index < 0 || index >= length) {
+            throw new ArrayIndexOutOfBoundsException();
+        }
+    }
+
+    private void setLength(int length) {
+        this.length = length;
+        keys.length = length;
+        values.length = length;
+    }
+
+    /**
+     * @return spread hash of the key at the given index
+     */
+    abstract int hashAt(int index);
+
+    /**
+     * Gets called with the hash of the key at the given index whenever an
+     * entry gets added or moved, so that maps with keys that are expensive
+     * to hash can return a cached value in {@link #hashAt(int)}.
+     */
+    void setHashAt(int index, int hash) {
+    }
+
+    static int spread(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) return true;
+        if (obj == null || getClass() != obj.getClass()) return false;
+        @SuppressWarnings("unchecked") final MapType other = (MapType) obj;
+        if (length != other.length) {
+            return false;
+        }
+        for (int i = 0; i < other.length; i++) {
+            final int index = indexOf0(other.hashAt(i), other.keys, i);
+            if (index < 0 || !values.equalsIndex0(index, other.values, i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes a hash of the current contents that does
+     * not depend on the order of the entries.
+     */
+    @Override
+    public int hashCode() {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash += keys.hashIndex0(i) ^ values.hashIndex0(i);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder(length * 8).append('{');
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(keys.getValueAt(i)).append('=').append(values.getValueAt(i));
+        }
+        return builder.append('}').toString();
+    }
+
+    final KeyType keys;
+    final ValueType values;
+    int length = 0;
+    int[] table = EMPTY_TABLE;
+    int mask = 0;
+
+    private static final int MIN_CAPACITY = 8;
+    private static final int[] EMPTY_TABLE = new int[0];
+
+}
@@ -22,6 +22,7 @@ package us.hebi.quickbuf;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -140,6 +141,61 @@ public abstract class ProtoMessage<MessageType extends ProtoMessage<?>> {
      */
     public abstract void writeTo(ProtoSink output) throws IOException;
 
+    /**
+     * Returns the number of bytes at the start of {@link #getMemoizedBuffer()} that
+     * contain the last serialization if the message was not modified since, or -1
+     * otherwise. The output only gets memoized by messages that were generated with
+     * the {@code memoize_output} option.
+     */
+    protected int getMemoizedSize() {
+        return -1;
+    }
+
+    /**
+     * Returns the buffer that contains the memoized output. The buffer gets reused
+     * for the next output, so it may be larger than the current output.
+     */
+    protected byte[] getMemoizedBuffer() {
+        return null;
+    }
+
+    /**
+     * Returns a non-negative number that changes whenever the memoized output gets
+     * rewritten, or -1 if there is no valid memoized output. Parents compare the
+     * versions of their nested messages to detect changes that were made via
+     * previously retrieved references.
+     */
+    protected int getMemoizedVersion() {
+        return -1;
+    }
+
+    protected static int getMemoizedVersion(ProtoMessage<?> msg) {
+        return msg.getMemoizedVersion();
+    }
+
+    protected static byte[] getMemoizedOutput(ProtoMessage<?> msg) {
+        final int size = msg.getMemoizedSize();
+        return size < 0 ? null : Arrays.copyOf(msg.getMemoizedBuffer(), size);
+    }
+
+    protected static byte[] getMemoizedBuffer(ProtoMessage<?> msg) {
+        return msg.getMemoizedBuffer();
+    }
+
+    /**
+     * Serializes the message back to front by writing the fields in reverse
+     * order. Nested messages get written before their length, so this does
+     * not need to compute the serialized size upfront. Only available for
+     * messages that were generated with {@code reverse_output=true}.
+     *
+     * @param output the output to receive the serialized form.
+     * @throws IOException if an error occurred writing to {@code output}.
+     * @throws IllegalStateException if the message was generated without reverse output
+     */
+    public void writeToReverse(ReverseSink output) throws IOException {
+        throw new IllegalStateException("Generated message does not implement reverse output (reverse_output=false)");
+    }
+
     /**
      * Serializes the message and writes it to the {@code output} in
      * length delimited form.
@@ -297,16 +353,35 @@ public abstract class ProtoMessage<MessageType extends ProtoMessage<?>> {
     public abstract boolean equals(Object obj);
 
     /**
-     * Messages have no immutable state and should not
-     * be used in hashing structures. This implementation
-     * returns a constant value in order to satisfy the
-     * contract.
+     * Returns a hash code that is consistent with {@link #equals(Object)}.
+     * Only fields that are set contribute to the hash, and unknown fields
+     * are ignored.
+     * <p>
+     * Messages are mutable, so they should not be modified while they are
+     * used as a key in hashing structures.
+     * <p>
+     * Generated messages override this method. This implementation returns
+     * a constant value for messages that were generated by older versions,
+     * which satisfies the contract without being useful for hashing.
+     *
+     * @return a hash code value for this message
      */
     @Override
-    public final int hashCode() {
+    public int hashCode() {
         return 0;
     }
 
+    /**
+     * Computes a 64 bit fingerprint of the contents without serializing the
+     * message. Fields are visited in ascending field number order, so the
+     * result is independent of the output order and of the wire encoding.
+     * Unknown fields are ignored like in {@link #equals(Object)}.
+     *
+     * @return non-cryptographic 64 bit hash of the contents
+     * @see Fingerprint
+     */
+    public abstract long fingerprint64();
+
     /**
      * Returns a string that contains a human-readable representation of the contents. The output
      * may not be compatible with any existing readers.
@@ -370,6 +445,39 @@ public abstract class ProtoMessage<MessageType extends ProtoMessage<?>> {
         return bytes.getBytes(ProtoUtil.Charsets.ISO_8859_1);
     }
 
+    /**
+     * Helper to parse the stored contents of a lazy message field on first access.
+     * The bytes get cleared afterwards. Accessors can't throw checked exceptions,
+     * so malformed contents result in an {@link IllegalStateException}.
+     * <p>
+     * The storage gets reused for subsequent contents, so views get copied
+     * rather than referring to the stored bytes.
+     * <p>
+     * Each thread reuses a single source. It gets taken out while it is in use,
+     * so nested calls fall back to a new instance rather than sharing it.
+     */
+    protected static void mergeLazyBytes(ProtoMessage<?> field, RepeatedByte bytes) {
+        ProtoSource source = lazySource.get();
+        if (source == null) {
+            source = ProtoSource.newArraySource().copyBytesViews();
+        } else {
+            lazySource.set(null);
+        }
+        try {
+            ProtoMessage.mergeFrom(field, source.setInput(bytes));
+            bytes.clear();
+        } catch (InvalidProtocolBufferException e) {
+            throw new IllegalStateException("Failed to parse lazy message field", e);
+        } catch (IOException e) {
+            throw new RuntimeException("Reading from a byte array threw an IOException (should never happen).");
+        } finally {
+            source.setInput(ProtoUtil.EMPTY_BYTE_ARRAY);
+            lazySource.set(source);
+        }
+    }
+
+    private static final ThreadLocal<ProtoSource> lazySource = new ThreadLocal<ProtoSource>();
+
     /**
      * @return binary representation of all fields with tags that could not be parsed
      */
@@ -54,6 +54,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 
 import static us.hebi.quickbuf.WireFormat.*;
 
@@ -154,12 +155,60 @@ public abstract class ProtoSink {
      *
      * The implementation is lightweight and writes byte-by-byte without any internal
      * buffering. This is slower than writing to an array, but it does not require
-     * extra memory.
+     * extra memory. See {@link #newBufferedStreamSink()} for a faster alternative.
      */
     public static ProtoSink newStreamSink() {
         return new StreamSink();
     }
 
+    /**
+     * Creates a new {@code ProtoSink} that writes to an {@link OutputStream}
+     * through an internal buffer with a default size of 8 KB.
+     *
+     * @see #newBufferedStreamSink(int)
+     */
+    public static ProtoSink newBufferedStreamSink() {
+        return newBufferedStreamSink(BufferedSink.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new {@code ProtoSink} that encodes into an internal buffer and
+     * writes to an {@link OutputStream} in large chunks. This is significantly
+     * faster than writing byte-by-byte.
+     *
+     * Data only reaches the stream once the buffer is full or when {@link #flush()}
+     * gets called, so users need to flush after writing the last message.
+     *
+     * @param bufferSize size of the internal buffer in bytes (at least 16)
+     */
+    public static ProtoSink newBufferedStreamSink(int bufferSize) {
+        return new BufferedStreamSink(bufferSize);
+    }
+
+    /**
+     * Creates a new {@code ProtoSink} that writes to a {@link WritableByteChannel}
+     * through an internal direct buffer with a default size of 8 KB.
+     *
+     * @see #newChannelSink(int)
+     */
+    public static ProtoSink newChannelSink() {
+        return newChannelSink(BufferedSink.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new {@code ProtoSink} that encodes directly into an internal direct
+     * buffer and drains it into a {@link WritableByteChannel}. Data only reaches the
+     * channel once the buffer is full or when {@link #flush()} gets called.
+     *
+     * Channels need to be in blocking mode. This sink requires availability of
+     * sun.misc.Unsafe.
+     *
+     * @param bufferSize size of the internal buffer in bytes (at least 16)
+     */
+    public static ProtoSink newChannelSink(int bufferSize) {
+        return new ChannelSink(bufferSize);
+    }
+
     /**
      * Creates a new {@code ProtoSink} that writes directly to a {@link ByteBuffer}.
      *
@@ -203,6 +252,14 @@ public abstract class ProtoSink {
         throw new UnsupportedOperationException("sink does not support writing to an InputStream");
     }
 
+    /**
+     * Changes the output to the given channel. This resets any existing internal state
+     * such as position and is equivalent to creating a new instance.
+     */
+    public ProtoSink setOutput(WritableByteChannel channel) {
+        throw new UnsupportedOperationException("sink does not support writing to a channel");
+    }
+
     /**
      * Changes the output to the given buffer. This resets any existing internal state
      * such as position and is equivalent to creating a new instance.
@@ -220,6 +277,34 @@ public abstract class ProtoSink {
      */
     public abstract ProtoSink clear();
 
+    /**
+     * Writes any internally buffered data to the underlying output and flushes
+     * the output if it is a stream. Sinks that write directly into their output
+     * don't need to be flushed.
+     */
+    public void flush() throws IOException {
+    }
+
+    /**
+     * Enables a mode that writes nested messages in a single pass without computing
+     * their sizes upfront. Space for the length prefix gets reserved before a nested
+     * message is written, and the actual length gets backpatched afterwards. The data
+     * only gets shifted if the length requires a different number of bytes than was
+     * reserved. The cached sizes of all written nested messages get updated as a side
+     * effect.
+     * <p>
+     * This is only supported by sinks that write into an array or {@link RepeatedByte}.
+     *
+     * @param enabled true to backpatch the length of nested messages
+     * @return this
+     */
+    public ProtoSink setSinglePassMode(boolean enabled) {
+        if (enabled) {
+            throw new UnsupportedOperationException("sink does not support single pass serialization");
+        }
+        return this;
+    }
+
     // ---------------------- WRITES WITH TAG (NOT USED) ----------------------
 
     /** Encode and write a tag. */
@@ -670,10 +755,22 @@ public abstract class ProtoSink {
 
     /** Write a {@code string} field to the sink. */
     public void writeStringNoTag(final CharSequence value) throws IOException {
-        writeLength(Utf8.encodedLength(value));
         Utf8.encodeSink(value, this);
     }
 
+    /**
+     * @return small reusable buffer for copying data that must not be passed to the output directly
+     */
+    byte[] getScratchBuffer() {
+        if (scratchBuffer == null) {
+            scratchBuffer = new byte[SCRATCH_BUFFER_SIZE];
+        }
+        return scratchBuffer;
+    }
+
+    private byte[] scratchBuffer;
+    private static final int SCRATCH_BUFFER_SIZE = 256;
+
     /** Write a {@code group} field to the sink. */
     public void writeGroupNoTag(final ProtoMessage<?> value) throws IOException {
         value.writeTo(this);
@@ -691,6 +788,12 @@ public abstract class ProtoSink {
         writeRawBytes(value.array, 0, value.length);
     }
 
+    /** Write a {@code bytes} field to the sink. */
+    public void writeBytesNoTag(final BytesView value) throws IOException {
+        writeLength(value.length);
+        writeRawBytes(value);
+    }
+
     /**
      * Write an enum field to the sink.  Caller is responsible
      * for converting the enum value to its numeric value.
@@ -990,6 +1093,14 @@ public abstract class ProtoSink {
         return computeRawVarint32Size(value.length) + value.length;
     }
 
+    /**
+     * Compute the number of bytes that would be needed to encode a
+     * {@code bytes} field.
+     */
+    public static int computeBytesSizeNoTag(final BytesView value) {
+        return computeRawVarint32Size(value.length) + value.length;
+    }
+
     /**
      * Compute the number of bytes that would be needed to encode a
      * {@code uint32} field.
@@ -1120,6 +1231,17 @@ public abstract class ProtoSink {
         writeRawBytes(bytes.array(), 0, bytes.length());
     }
 
+    /** Writes the referenced bytes */
+    public void writeRawBytes(final BytesView bytes) throws IOException {
+        if (bytes.array != null) {
+            writeRawBytes(bytes.array, (int) bytes.offset, bytes.length);
+        } else {
+            for (int i = 0; i < bytes.length; i++) {
+                writeRawByte(bytes.get(i));
+            }
+        }
+    }
+
     /** Write part of an array of bytes. */
     public void writeRawBytes(final byte[] value, int offset, int length) throws IOException {
         final int limit = offset + length;
@@ -1366,6 +1488,11 @@ public abstract class ProtoSink {
             return this;
         }
 
+        @Override
+        public void flush() throws IOException {
+            stream.flush();
+        }
+
         @Override
         public void writeRawByte(byte value) throws IOException {
             stream.write(value);
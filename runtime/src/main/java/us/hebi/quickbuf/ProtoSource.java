@@ -55,6 +55,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.BufferUnderflowException;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 
 import static us.hebi.quickbuf.WireFormat.*;
 
@@ -132,11 +134,64 @@ public abstract class ProtoSource {
      * The current implementation is a very lightweight wrapper that reads
      * byte-by-byte and does not do any internal buffering. This is slower
      * than reading from an array, but it does not require extra memory.
+     * See {@link #newBufferedStreamSource()} for a faster alternative.
      */
     public static ProtoSource newStreamSource() {
         return new StreamSource();
     }
 
+    /**
+     * Creates a new {@code ProtoSource} that reads from an {@link InputStream}
+     * through an internal buffer with a default size of 8 KB.
+     *
+     * @see #newBufferedStreamSource(int)
+     */
+    public static ProtoSource newBufferedStreamSource() {
+        return newBufferedStreamSource(BufferedSource.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new {@code ProtoSource} that reads from an {@link InputStream}
+     * through an internal buffer that gets refilled in bulk. Most values can be
+     * decoded directly from the buffer, which is significantly faster than
+     * reading byte-by-byte.
+     *
+     * Note that the source may read ahead past the end of the message, so the
+     * stream should not be shared with other readers. The buffer gets reused
+     * when the input changes.
+     *
+     * @param bufferSize size of the internal buffer in bytes (at least 16)
+     */
+    public static ProtoSource newBufferedStreamSource(int bufferSize) {
+        return new BufferedStreamSource(bufferSize);
+    }
+
+    /**
+     * Creates a new {@code ProtoSource} that reads from a {@link ReadableByteChannel}
+     * through an internal direct buffer with a default size of 8 KB.
+     *
+     * @see #newChannelSource(int)
+     */
+    public static ProtoSource newChannelSource() {
+        return newChannelSource(BufferedSource.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a new {@code ProtoSource} that reads from a {@link ReadableByteChannel}
+     * into an internal direct buffer, and decodes directly from native memory.
+     * {@link FileChannel} inputs may use positional reads that do not modify the
+     * position of the channel.
+     *
+     * Like the buffered stream source, this source may read ahead past the end of
+     * the message. Channels need to be in blocking mode. This source requires
+     * availability of sun.misc.Unsafe.
+     *
+     * @param bufferSize size of the internal buffer in bytes (at least 16)
+     */
+    public static ProtoSource newChannelSource(int bufferSize) {
+        return new ChannelSource(bufferSize);
+    }
+
     /**
      * Creates a new {@code ProtoSource} that reads from an {@link ByteBuffer}.
      *
@@ -182,6 +237,25 @@ public abstract class ProtoSource {
         throw new UnsupportedOperationException("source does not support reading from an InputStream");
     }
 
+    /**
+     * Changes the input to the given channel. This resets any existing
+     * internal state such as position and is equivalent to creating
+     * a new instance.
+     */
+    public ProtoSource setInput(ReadableByteChannel channel) {
+        throw new UnsupportedOperationException("source does not support reading from a channel");
+    }
+
+    /**
+     * Changes the input to the given file channel starting at the specified
+     * file position. Data gets read using positional reads, so the position
+     * of the channel does not change. This resets any existing internal
+     * state and is equivalent to creating a new instance.
+     */
+    public ProtoSource setInput(FileChannel channel, long position) {
+        throw new UnsupportedOperationException("source does not support reading from a file channel");
+    }
+
     /**
      * Changes the input to the given buffer. This resets any existing
      * internal state such as position and is equivalent to creating
@@ -523,10 +597,7 @@ public abstract class ProtoSource {
     public void readPackedInt64(final RepeatedLong store, final int tag) throws IOException {
         final int length = readLength();
         final int limit = pushLimit(length);
-        while (!isAtEnd()) {
-            reservePackedVarintCapacity(store);
-            store.add(readInt64());
-        }
+        readRawVarint64s(store, false);
         popLimit(limit);
     }
 
@@ -534,11 +605,22 @@ public abstract class ProtoSource {
     public void readPackedSInt64(final RepeatedLong store, final int tag) throws IOException {
         final int length = readLength();
         final int limit = pushLimit(length);
+        readRawVarint64s(store, true);
+        popLimit(limit);
+    }
+
+    /**
+     * Reads varints until the current limit is reached and appends them to the store.
+     *
+     * @param store  destination
+     * @param zigZag true if the values need to be ZigZag decoded
+     */
+    protected void readRawVarint64s(final RepeatedLong store, final boolean zigZag) throws IOException {
         while (!isAtEnd()) {
             reservePackedVarintCapacity(store);
-            store.add(readSInt64());
+            final long value = readRawVarint64();
+            store.add(zigZag ? decodeZigZag64(value) : value);
         }
-        popLimit(limit);
     }
 
     /** Read a repeated {@code uint64} field value from the source. */
@@ -590,10 +672,7 @@ public abstract class ProtoSource {
     public void readPackedInt32(final RepeatedInt store, final int tag) throws IOException {
         final int length = readLength();
         final int limit = pushLimit(length);
-        while (!isAtEnd()) {
-            reservePackedVarintCapacity(store);
-            store.add(readInt32());
-        }
+        readRawVarint32s(store, false);
         popLimit(limit);
     }
 
@@ -601,11 +680,22 @@ public abstract class ProtoSource {
     public void readPackedSInt32(final RepeatedInt store, final int tag) throws IOException {
         final int length = readLength();
         final int limit = pushLimit(length);
+        readRawVarint32s(store, true);
+        popLimit(limit);
+    }
+
+    /**
+     * Reads varints until the current limit is reached and appends them to the store.
+     *
+     * @param store  destination
+     * @param zigZag true if the values need to be ZigZag decoded
+     */
+    protected void readRawVarint32s(final RepeatedInt store, final boolean zigZag) throws IOException {
         while (!isAtEnd()) {
             reservePackedVarintCapacity(store);
-            store.add(readSInt32());
+            final int value = readRawVarint32();
+            store.add(zigZag ? decodeZigZag32(value) : value);
         }
-        popLimit(limit);
     }
 
     /** Read a repeated {@code uint32} field value from the source. */
@@ -772,6 +862,19 @@ public abstract class ProtoSource {
         popLimit(oldLimit);
     }
 
+    /**
+     * Appends the serialized contents of a {@code message} field to the store
+     * without parsing them. Concatenated contents merge when they get parsed.
+     */
+    public void readMessageBytes(final RepeatedByte store) throws IOException {
+        final int length = readLength();
+        if (length < 0) {
+            throw InvalidProtocolBufferException.negativeSize();
+        }
+        final int offset = store.addLength(length);
+        readRawBytes(store.array, offset, length);
+    }
+
     /** Read a repeated {@code bytes} field value from the source. */
     public int readRepeatedBytes(final RepeatedBytes store, final int tag) throws IOException {
         int nextTag;
@@ -790,6 +893,22 @@ public abstract class ProtoSource {
         readRawBytes(store.array, 0, length);
     }
 
+    /**
+     * Read a {@code bytes} field value from the source without copying it if
+     * the source is backed by an array or by native memory. The view then
+     * refers to the input of the source and remains valid until the input
+     * gets changed or modified. Other sources, and sources that were set to
+     * {@link #copyBytesViews()}, copy the contents into storage that is owned
+     * by the view.
+     */
+    public void readBytes(BytesView view) throws IOException {
+        final int length = readLength();
+        if (length < 0) {
+            throw InvalidProtocolBufferException.negativeSize();
+        }
+        readRawBytes(view.reserveStorage(length), 0, length);
+    }
+
     /** Read raw {@code bytes} from the source. */
     public void readRawBytes(byte[] values, int offset, int length) throws IOException {
         for (int i = 0; i < length; i++) {
@@ -869,15 +988,15 @@ public abstract class ProtoSource {
         }
     }
 
-    private static final int xorBits7 = ~0 << 7;
-    private static final int xorBits14 = xorBits7 ^ (~0 << 14);
-    private static final int xorBits21 = xorBits14 ^ (~0 << 21);
-    private static final int xorBits28 = xorBits21 ^ (~0 << 28);
-    private static final long xorBits28L = xorBits21 ^ (~0L << 28);
-    private static final long xorBits35L = xorBits28L ^ (~0L << 35);
-    private static final long xorBits42L = xorBits35L ^ (~0L << 42);
-    private static final long xorBits49L = xorBits42L ^ (~0L << 49);
-    private static final long xorBits56L = xorBits49L ^ (~0L << 56);
+    static final int xorBits7 = ~0 << 7;
+    static final int xorBits14 = xorBits7 ^ (~0 << 14);
+    static final int xorBits21 = xorBits14 ^ (~0 << 21);
+    static final int xorBits28 = xorBits21 ^ (~0 << 28);
+    static final long xorBits28L = xorBits21 ^ (~0L << 28);
+    static final long xorBits35L = xorBits28L ^ (~0L << 35);
+    static final long xorBits42L = xorBits35L ^ (~0L << 42);
+    static final long xorBits49L = xorBits42L ^ (~0L << 49);
+    static final long xorBits56L = xorBits49L ^ (~0L << 56);
 
     long readRawVarint64SlowPath() throws IOException {
         long result = 0;
@@ -960,6 +1079,9 @@ public abstract class ProtoSource {
     /** see setDiscardUnknownFields */
     private boolean shouldDiscardUnknownFields = false;
 
+    /** see copyBytesViews */
+    private boolean shouldCopyBytesViews = false;
+
     protected ProtoSource resetInternalState() {
         lastTag = 0;
         recursionDepth = 0;
@@ -1043,6 +1165,33 @@ public abstract class ProtoSource {
         return shouldDiscardUnknownFields;
     }
 
+    /**
+     * Sets this {@code ProtoSource} to copy the contents of {@link BytesView} fields into
+     * storage that is owned by the view rather than referring to the input. This is required
+     * if the input gets reused or released while the parsed messages are still in use, e.g.,
+     * for pooled network buffers.
+     */
+    public final ProtoSource copyBytesViews() {
+        shouldCopyBytesViews = true;
+        return this;
+    }
+
+    /**
+     * Reverts to the default behavior of views referring to the input of
+     * array-backed sources. See {@link #copyBytesViews()}.
+     */
+    public final ProtoSource unsetCopyBytesViews() {
+        shouldCopyBytesViews = false;
+        return this;
+    }
+
+    /**
+     * Whether views should be copied rather than refer to the input
+     */
+    final boolean shouldCopyBytesViews() {
+        return shouldCopyBytesViews;
+    }
+
     /**
      * Sets {@code currentLimit} to (current position) + {@code byteLimit}.  This
      * is called when descending into a length-delimited embedded message.
@@ -123,6 +123,30 @@ public final class ProtoUtil {
         return a == b;
     }
 
+    public static int hash(double value) {
+        return hash(Double.doubleToLongBits(value));
+    }
+
+    public static int hash(float value) {
+        return Float.floatToIntBits(value);
+    }
+
+    public static int hash(boolean value) {
+        return value ? 1231 : 1237;
+    }
+
+    public static int hash(long value) {
+        return (int) (value ^ (value >>> 32));
+    }
+
+    public static int hash(int value) {
+        return value;
+    }
+
+    public static int hash(byte value) {
+        return value;
+    }
+
     static final Utf8Decoder DEFAULT_UTF8_DECODER = new Utf8Decoder() {
         @Override
         public String decode(byte[] bytes, int offset, int length) {
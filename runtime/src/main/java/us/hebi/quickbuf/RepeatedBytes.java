@@ -53,6 +53,11 @@ public class RepeatedBytes extends RepeatedObject<RepeatedBytes, RepeatedByte, b
         array[index].clear();
     }
 
+    @Override
+    final long fingerprintIndex0(int index) {
+        return Fingerprint.hashField(Fingerprint.SEED, 0, array[index]);
+    }
+
     @Override
     protected RepeatedByte createEmpty() {
         return new RepeatedByte();
@@ -231,6 +231,47 @@ public final class RepeatedEnum<E extends ProtoEnum> extends RepeatedField<Repea
         return true;
     }
 
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + array[i];
+        }
+        return hash;
+    }
+
+    @Override
+    void addDefault0() {
+        addValue(0);
+    }
+
+    @Override
+    void swap0(int index, int otherIndex) {
+        final int value = array[index];
+        array[index] = array[otherIndex];
+        array[otherIndex] = value;
+    }
+
+    @Override
+    void copyIndex0(int index, RepeatedEnum<E> other, int otherIndex) {
+        array[index] = other.array[otherIndex];
+    }
+
+    @Override
+    boolean equalsIndex0(int index, RepeatedEnum<E> other, int otherIndex) {
+        return array[index] == other.array[otherIndex];
+    }
+
+    @Override
+    int hashIndex0(int index) {
+        return array[index];
+    }
+
+    @Override
+    long fingerprintIndex0(int index) {
+        return Fingerprint.hashField(Fingerprint.SEED, 0, array[index]);
+    }
+
     private RepeatedEnum(EnumConverter<E> converter) {
         if (converter == null)
             throw new NullPointerException();
@@ -108,15 +108,38 @@ abstract class RepeatedField<RepeatedType extends RepeatedField, GenericType> im
     protected int length = 0;
 
     /**
-     * Repeated fields have no immutable state and should not
-     * be used in hashing structures. This method returns
-     * a constant value.
+     * Computes a hash of the current contents that is consistent
+     * with {@link #equals(Object)}. Repeated fields are mutable, so
+     * they should not be modified while they are used as a key in
+     * hashing structures.
      *
-     * @return 0
+     * @return hash of the current contents
      */
     @Override
-    public final int hashCode() {
-        return 0;
-    }
+    public abstract int hashCode();
+
+    // ==================== Map Support ====================
+    // Maps store their values in a repeated field and refer to them by
+    // index, so the hooks below work on single elements and never
+    // allocate. Objects get reused and are cleared when they are added.
+
+    /**
+     * Appends a default value, i.e., zero or an empty object
+     */
+    abstract void addDefault0();
+
+    /**
+     * Swaps the values at both indices. Objects swap references
+     * rather than contents.
+     */
+    abstract void swap0(int index, int otherIndex);
+
+    abstract void copyIndex0(int index, RepeatedType other, int otherIndex);
+
+    abstract boolean equalsIndex0(int index, RepeatedType other, int otherIndex);
+
+    abstract int hashIndex0(int index);
+
+    abstract long fingerprintIndex0(int index);
 
 }
@@ -226,7 +226,50 @@ public final class RepeatedFloat extends RepeatedField<RepeatedFloat, Float> {
         return true;
     }
 
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + ProtoUtil.hash(array[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    void addDefault0() {
+        final int pos = addLength(1);
+        array[pos] = DEFAULT_VALUE;
+    }
+
+    @Override
+    void swap0(int index, int otherIndex) {
+        final float value = array[index];
+        array[index] = array[otherIndex];
+        array[otherIndex] = value;
+    }
+
+    @Override
+    void copyIndex0(int index, RepeatedFloat other, int otherIndex) {
+        array[index] = other.array[otherIndex];
+    }
+
+    @Override
+    boolean equalsIndex0(int index, RepeatedFloat other, int otherIndex) {
+        return ProtoUtil.isEqual(array[index], other.array[otherIndex]);
+    }
+
+    @Override
+    int hashIndex0(int index) {
+        return ProtoUtil.hash(array[index]);
+    }
+
+    @Override
+    long fingerprintIndex0(int index) {
+        return Fingerprint.hashField(Fingerprint.SEED, 0, array[index]);
+    }
+
     float[] array = EMPTY_ARRAY;
     private static final float[] EMPTY_ARRAY = new float[0];
+    private static final float DEFAULT_VALUE = (new float[1])[0]; // zero or false
 
 } // RepeatedFloat
@@ -56,6 +56,11 @@ public final class RepeatedMessage<MessageType extends ProtoMessage<MessageType>
         store.copyFrom(other);
     }
 
+    @Override
+    final long fingerprintIndex0(int index) {
+        return array[index].fingerprint64();
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected final MessageType[] allocateArray0(int desiredSize) {
@@ -127,6 +127,16 @@ abstract class RepeatedObject<SubType extends RepeatedObject<SubType, STORE, IN,
         return (a == b) || (a != null && a.equals(b));
     }
 
+    @Override
+    public final int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < length; i++) {
+            final STORE value = array[i];
+            hash = 31 * hash + (value == null ? 0 : value.hashCode());
+        }
+        return hash;
+    }
+
     @Override
     public final SubType clear() {
         for (int i = 0; i < length; i++) {
@@ -145,6 +155,34 @@ abstract class RepeatedObject<SubType extends RepeatedObject<SubType, STORE, IN,
         }
     }
 
+    @Override
+    final void addDefault0() {
+        reserve(1);
+        clearIndex0(length++);
+    }
+
+    @Override
+    final void swap0(int index, int otherIndex) {
+        final STORE value = array[index];
+        array[index] = array[otherIndex];
+        array[otherIndex] = value;
+    }
+
+    @Override
+    final void copyIndex0(int index, SubType other, int otherIndex) {
+        copyFrom0(array[index], other.array[otherIndex]);
+    }
+
+    @Override
+    final boolean equalsIndex0(int index, SubType other, int otherIndex) {
+        return isEqual(array[index], other.array[otherIndex]);
+    }
+
+    @Override
+    final int hashIndex0(int index) {
+        return array[index].hashCode();
+    }
+
     protected abstract void copyFrom0(STORE store, STORE other);
 
     protected abstract void clearIndex0(int index);
@@ -38,6 +38,15 @@ public final class RepeatedString extends RepeatedObject<RepeatedString, Utf8Str
         return array[index].getString(decoder);
     }
 
+    /**
+     * Returns the internal storage without decoding it. The returned
+     * object should not be modified and be treated as read-only.
+     */
+    public Utf8String getBytes(final int index) {
+        checkIndex(index);
+        return array[index];
+    }
+
     @Override
     protected void setIndex0(int index, CharSequence value) {
         array[index].copyFrom(value);
@@ -58,6 +67,11 @@ public final class RepeatedString extends RepeatedObject<RepeatedString, Utf8Str
         store.copyFrom(other);
     }
 
+    @Override
+    long fingerprintIndex0(int index) {
+        return Fingerprint.hashField(Fingerprint.SEED, 0, array[index]);
+    }
+
     @Override
     protected Utf8String[] allocateArray0(int desiredSize) {
         return new Utf8String[desiredSize];
@@ -0,0 +1,415 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.io.IOException;
+import java.util.ArrayList;
+
+import static us.hebi.quickbuf.WireFormat.*;
+
+/**
+ * Encodes messages back to front, i.e., the last byte of the message gets
+ * written first. Nested messages are completely written by the time their
+ * length prefix is needed, so messages can be serialized in a single pass
+ * without computing the size upfront. Messages get written via
+ * {@link ProtoMessage#writeToReverse(ReverseSink)}, which emits the fields
+ * in reverse order.
+ * <p>
+ * The data gets stored in a list of chunks that grow as needed and are kept
+ * for reuse after a {@link #reset()}. The result can be retrieved using
+ * {@link #toByteArray()} or copied to another sink via {@link #writeTo(ProtoSink)}.
+ * <pre>{@code
+ * ReverseSink sink = ReverseSink.newInstance();
+ * message.writeToReverse(sink.reset());
+ * sink.writeTo(output);
+ * }</pre>
+ * The output is identical to {@link ProtoMessage#writeTo(ProtoSink)}.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public final class ReverseSink {
+
+    public static ReverseSink newInstance() {
+        return new ReverseSink(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize initial size of the first chunk in bytes. Subsequent chunks
+     *                  double in size up to a maximum of 1 MB.
+     */
+    public static ReverseSink newInstance(int chunkSize) {
+        return new ReverseSink(chunkSize);
+    }
+
+    private ReverseSink(int chunkSize) {
+        ProtoUtil.checkArgument(chunkSize >= MAX_VARINT_SIZE, "chunk size must be at least " + MAX_VARINT_SIZE);
+        buffer = new byte[chunkSize];
+        chunks.add(buffer);
+        position = buffer.length;
+    }
+
+    /**
+     * Discards all written data. The allocated chunks get reused.
+     *
+     * @return this
+     */
+    public ReverseSink reset() {
+        chunkIndex = 0;
+        completedBytes = 0;
+        buffer = chunks.get(0);
+        position = buffer.length;
+        return this;
+    }
+
+    /**
+     * @return the number of bytes written since the last reset
+     */
+    public int getTotalBytesWritten() {
+        return completedBytes + buffer.length - position;
+    }
+
+    /**
+     * @return a copy of the written bytes in forward order
+     */
+    public byte[] toByteArray() {
+        final byte[] result = new byte[getTotalBytesWritten()];
+        int offset = 0;
+        for (int i = chunkIndex; i >= 0; i--) {
+            final byte[] chunk = chunks.get(i);
+            final int start = getChunkStart(i);
+            System.arraycopy(chunk, start, result, offset, chunk.length - start);
+            offset += chunk.length - start;
+        }
+        return result;
+    }
+
+    /**
+     * Writes the written bytes in forward order to the given sink
+     *
+     * @param output sink to receive the data
+     */
+    public void writeTo(final ProtoSink output) throws IOException {
+        for (int i = chunkIndex; i >= 0; i--) {
+            final byte[] chunk = chunks.get(i);
+            final int start = getChunkStart(i);
+            output.writeRawBytes(chunk, start, chunk.length - start);
+        }
+    }
+
+    private int getChunkStart(int index) {
+        return index == chunkIndex ? position : chunkStarts.array()[index];
+    }
+
+    // ----------------- MESSAGES -----------------
+
+    /** Write an embedded message field, excluding tag. This updates the cached size. */
+    public void writeMessageNoTag(final ProtoMessage<?> value) throws IOException {
+        final int end = getTotalBytesWritten();
+        value.writeToReverse(this);
+        final int length = getTotalBytesWritten() - end;
+        writeLength(length);
+        value.cachedSize = length;
+    }
+
+    /** Write a {@code group} field, excluding the start and end tags. */
+    public void writeGroupNoTag(final ProtoMessage<?> value) throws IOException {
+        value.writeToReverse(this);
+    }
+
+    // ----------------- SCALARS -----------------
+
+    public void writeDoubleNoTag(final double value) {
+        final int offset = require(FIXED_64_SIZE);
+        ByteUtil.writeDouble(buffer, offset, value);
+    }
+
+    public void writeFloatNoTag(final float value) {
+        final int offset = require(FIXED_32_SIZE);
+        ByteUtil.writeFloat(buffer, offset, value);
+    }
+
+    public void writeInt64NoTag(final long value) {
+        writeUInt64NoTag(value);
+    }
+
+    public void writeInt32NoTag(final int value) {
+        writeUInt64NoTag(value);
+    }
+
+    public void writeFixed64NoTag(final long value) {
+        writeRawLittleEndian64(value);
+    }
+
+    public void writeFixed32NoTag(final int value) {
+        writeRawLittleEndian32(value);
+    }
+
+    public void writeBoolNoTag(final boolean value) {
+        writeRawByte((byte) (value ? 1 : 0));
+    }
+
+    public void writeStringNoTag(final Utf8String value) {
+        final int length = value.size();
+        writeRawBytes(value.bytes(), 0, length);
+        writeLength(length);
+    }
+
+    public void writeStringNoTag(final CharSequence value) {
+        // Check compact strings only once. The internal bytes may be copied into our own buffer.
+        final byte[] ascii = Utf8.asciiBytes(value);
+        final int length = ascii != null ? ascii.length : Utf8.encodedLengthChars(value);
+        final int offset = require(length);
+        if (ascii != null) {
+            System.arraycopy(ascii, 0, buffer, offset, length);
+        } else {
+            Utf8.encodeArray(value, buffer, offset, length);
+        }
+        writeLength(length);
+    }
+
+    public void writeBytesNoTag(final RepeatedByte value) {
+        writeRawBytes(value.array, 0, value.length);
+        writeLength(value.length);
+    }
+
+    public void writeBytesNoTag(final BytesView value) {
+        writeRawBytes(value);
+        writeLength(value.length);
+    }
+
+    public void writeEnumNoTag(final int value) {
+        writeUInt64NoTag(value);
+    }
+
+    public void writeSFixed32NoTag(final int value) {
+        writeRawLittleEndian32(value);
+    }
+
+    public void writeSFixed64NoTag(final long value) {
+        writeRawLittleEndian64(value);
+    }
+
+    public void writeSInt32NoTag(final int value) {
+        writeUInt32NoTag(ProtoSink.encodeZigZag32(value));
+    }
+
+    public void writeSInt64NoTag(final long value) {
+        writeUInt64NoTag(ProtoSink.encodeZigZag64(value));
+    }
+
+    public void writeLength(final int length) {
+        writeUInt32NoTag(length);
+    }
+
+    public void writeUInt32NoTag(final int value) {
+        writeUInt64NoTag(value & 0xFFFFFFFFL);
+    }
+
+    public void writeUInt64NoTag(final long value) {
+        final int size = ProtoSink.computeRawVarint64Size(value);
+        final int offset = require(size);
+        ByteUtil.writeVarint(buffer, offset, value);
+    }
+
+    // ----------------- PACKED -----------------
+
+    public void writePackedDoubleNoTag(final RepeatedDouble values) {
+        final int offset = require(values.length * FIXED_64_SIZE);
+        ByteUtil.writeDoubles(buffer, offset, values.array, values.length);
+        writeLength(values.length * FIXED_64_SIZE);
+    }
+
+    public void writePackedFloatNoTag(final RepeatedFloat values) {
+        final int offset = require(values.length * FIXED_32_SIZE);
+        ByteUtil.writeFloats(buffer, offset, values.array, values.length);
+        writeLength(values.length * FIXED_32_SIZE);
+    }
+
+    public void writePackedFixed64NoTag(final RepeatedLong values) {
+        final int offset = require(values.length * FIXED_64_SIZE);
+        ByteUtil.writeLittleEndian64s(buffer, offset, values.array, values.length);
+        writeLength(values.length * FIXED_64_SIZE);
+    }
+
+    public void writePackedFixed32NoTag(final RepeatedInt values) {
+        final int offset = require(values.length * FIXED_32_SIZE);
+        ByteUtil.writeLittleEndian32s(buffer, offset, values.array, values.length);
+        writeLength(values.length * FIXED_32_SIZE);
+    }
+
+    public void writePackedSFixed32NoTag(final RepeatedInt values) {
+        writePackedFixed32NoTag(values);
+    }
+
+    public void writePackedSFixed64NoTag(final RepeatedLong values) {
+        writePackedFixed64NoTag(values);
+    }
+
+    public void writePackedBoolNoTag(final RepeatedBoolean values) {
+        final int offset = require(values.length * MIN_BOOL_SIZE);
+        ByteUtil.writeBooleans(buffer, offset, values.array, values.length);
+        writeLength(values.length * MIN_BOOL_SIZE);
+    }
+
+    public void writePackedEnumNoTag(final RepeatedEnum<?> values) {
+        writePackedVarint32s(values.array(), values.length, ByteUtil.VARINT_INT32);
+    }
+
+    public void writePackedInt32NoTag(final RepeatedInt values) {
+        writePackedVarint32s(values.array, values.length, ByteUtil.VARINT_INT32);
+    }
+
+    public void writePackedUInt32NoTag(final RepeatedInt values) {
+        writePackedVarint32s(values.array, values.length, ByteUtil.VARINT_UINT32);
+    }
+
+    public void writePackedSInt32NoTag(final RepeatedInt values) {
+        writePackedVarint32s(values.array, values.length, ByteUtil.VARINT_SINT32);
+    }
+
+    public void writePackedInt64NoTag(final RepeatedLong values) {
+        final int end = getTotalBytesWritten();
+        for (int i = values.length - 1; i >= 0; i--) {
+            writeUInt64NoTag(values.array[i]);
+        }
+        writeLength(getTotalBytesWritten() - end);
+    }
+
+    public void writePackedUInt64NoTag(final RepeatedLong values) {
+        writePackedInt64NoTag(values);
+    }
+
+    public void writePackedSInt64NoTag(final RepeatedLong values) {
+        final int end = getTotalBytesWritten();
+        for (int i = values.length - 1; i >= 0; i--) {
+            writeUInt64NoTag(ProtoSink.encodeZigZag64(values.array[i]));
+        }
+        writeLength(getTotalBytesWritten() - end);
+    }
+
+    private void writePackedVarint32s(final int[] values, final int length, final int encoding) {
+        final int end = getTotalBytesWritten();
+        for (int i = length - 1; i >= 0; i--) {
+            writeUInt64NoTag(ByteUtil.toVarint64(values[i], encoding));
+        }
+        writeLength(getTotalBytesWritten() - end);
+    }
+
+    // ----------------- RAW -----------------
+
+    public void writeRawByte(final byte value) {
+        final int offset = require(1);
+        buffer[offset] = value;
+    }
+
+    public void writeRawLittleEndian16(final short value) {
+        final int offset = require(FIXED_16_SIZE);
+        ByteUtil.writeLittleEndian16(buffer, offset, value);
+    }
+
+    public void writeRawLittleEndian32(final int value) {
+        final int offset = require(FIXED_32_SIZE);
+        ByteUtil.writeLittleEndian32(buffer, offset, value);
+    }
+
+    public void writeRawLittleEndian64(final long value) {
+        final int offset = require(FIXED_64_SIZE);
+        ByteUtil.writeLittleEndian64(buffer, offset, value);
+    }
+
+    public void writeRawBytes(final RepeatedByte value) {
+        writeRawBytes(value.array, 0, value.length);
+    }
+
+    public void writeRawBytes(final BytesView value) {
+        if (value.array != null) {
+            writeRawBytes(value.array, (int) value.offset, value.length);
+        } else {
+            final int offset = require(value.length);
+            ByteUtil.readUnsafeBytes(null, value.offset, buffer, offset, value.length);
+        }
+    }
+
+    /**
+     * Writes the bytes in their original order in front of the existing data. Large
+     * arrays may be split across multiple chunks.
+     */
+    public void writeRawBytes(final byte[] value, final int offset, int length) {
+        while (length > position) {
+            final int n = position;
+            System.arraycopy(value, offset + length - n, buffer, 0, n);
+            position = 0;
+            length -= n;
+            nextChunk(1);
+        }
+        final int dstOffset = require(length);
+        System.arraycopy(value, offset, buffer, dstOffset, length);
+    }
+
+    /**
+     * Reserves space for a contiguous write in front of the existing data. This may
+     * switch to a new chunk, so the buffer must be accessed after the call returns.
+     *
+     * @return the position of the first reserved byte
+     */
+    private int require(final int numBytes) {
+        if (position < numBytes) {
+            nextChunk(numBytes);
+        }
+        return position -= numBytes;
+    }
+
+    private void nextChunk(final int minSize) {
+        // Remember where the data starts in the completed chunk
+        chunkStarts.setLength(chunkIndex);
+        chunkStarts.add(position);
+        completedBytes += buffer.length - position;
+
+        // Reuse existing chunks if they are large enough
+        chunkIndex++;
+        if (chunkIndex < chunks.size() && chunks.get(chunkIndex).length >= minSize) {
+            buffer = chunks.get(chunkIndex);
+        } else {
+            final int size = Math.max(minSize, Math.min(buffer.length * 2, MAX_CHUNK_SIZE));
+            buffer = new byte[size];
+            if (chunkIndex < chunks.size()) {
+                chunks.set(chunkIndex, buffer);
+            } else {
+                chunks.add(buffer);
+            }
+        }
+        position = buffer.length;
+    }
+
+    private final ArrayList<byte[]> chunks = new ArrayList<byte[]>();
+    private final RepeatedInt chunkStarts = RepeatedInt.newEmptyInstance();
+    private int chunkIndex = 0;
+    private int completedBytes = 0;
+    private byte[] buffer;
+    private int position;
+
+    private static final int DEFAULT_CHUNK_SIZE = 4096;
+    private static final int MAX_CHUNK_SIZE = 1024 * 1024;
+
+}
@@ -0,0 +1,167 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.util.Arrays;
+
+/**
+ * Map with string keys. Keys are stored as {@link Utf8String}, so parsed
+ * keys get compared without decoding them. Lookups via {@link CharSequence}
+ * go through an internal buffer that gets reused. The hashes of the keys
+ * are cached, so growing the table and removing entries does not need to
+ * hash the keys again. See {@link ProtoMap} for details on the storage layout.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public final class StringMap<ValueType extends RepeatedField<ValueType, ?>> extends ProtoMap<StringMap<ValueType>, RepeatedString, ValueType> {
+
+    public static <ValueType extends RepeatedField<ValueType, ?>> StringMap<ValueType> newInstance(ValueType values) {
+        return new StringMap<ValueType>(values);
+    }
+
+    private StringMap(ValueType values) {
+        super(RepeatedString.newEmptyInstance(), values);
+    }
+
+    /**
+     * Returns the internal key storage. The returned object should
+     * not be modified and be treated as read-only.
+     */
+    public Utf8String keyAt(int index) {
+        checkIndex(index);
+        return keys.array[index];
+    }
+
+    /**
+     * @return index of the entry for the given key, or -1 if the key is not contained
+     */
+    public int indexOf(final CharSequence key) {
+        return indexOf(lookupKey.copyFrom(key));
+    }
+
+    /**
+     * @return index of the entry for the given key, or -1 if the key is not contained
+     */
+    public int indexOf(final Utf8String key) {
+        return indexOf(key, hash(key));
+    }
+
+    private int indexOf(final Utf8String key, final int hash) {
+        if (length == 0) {
+            return -1;
+        }
+        final Utf8String[] keys = this.keys.array;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            final int entry = table[slot];
+            if (entry == 0) {
+                return -1;
+            } else if (keys[entry - 1].equals(key)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    public boolean containsKey(final CharSequence key) {
+        return indexOf(key) >= 0;
+    }
+
+    public boolean containsKey(final Utf8String key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the index of the entry for the given key. An entry with
+     * a default value gets added if the key is not contained yet.
+     *
+     * @return index of the entry
+     */
+    public int put(final CharSequence key) {
+        return put(lookupKey.copyFrom(key));
+    }
+
+    /**
+     * Returns the index of the entry for the given key. An entry with
+     * a default value gets added if the key is not contained yet.
+     *
+     * @return index of the entry
+     */
+    public int put(final Utf8String key) {
+        final int hash = hash(key);
+        final int index = indexOf(key, hash);
+        if (index >= 0) {
+            return index;
+        }
+        final int pending = beginEntry(); // may grow the key storage
+        keys.array[pending].copyFrom(key);
+        return insert0(hash);
+    }
+
+    /**
+     * @return true if the key was contained
+     */
+    public boolean remove(final CharSequence key) {
+        return remove(lookupKey.copyFrom(key));
+    }
+
+    /**
+     * @return true if the key was contained
+     */
+    public boolean remove(final Utf8String key) {
+        final int index = indexOf(key);
+        if (index < 0) {
+            return false;
+        }
+        removeAt(index);
+        return true;
+    }
+
+    /**
+     * Returns the key of the entry that was started with {@link #beginEntry()}
+     * so that it can be parsed in place.
+     */
+    public Utf8String getPendingKey() {
+        return keys.array[length];
+    }
+
+    @Override
+    int hashAt(int index) {
+        // the pending entry is the only one that is not cached yet
+        return index < length ? hashes[index] : hash(keys.array[index]);
+    }
+
+    @Override
+    void setHashAt(int index, int hash) {
+        if (index >= hashes.length) {
+            hashes = Arrays.copyOf(hashes, Math.max(index + 1, keys.array.length));
+        }
+        hashes[index] = hash;
+    }
+
+    private static int hash(final Utf8String key) {
+        return spread(key.hashUtf8());
+    }
+
+    private final Utf8String lookupKey = Utf8String.newEmptyInstance();
+    private int[] hashes = EMPTY_HASHES;
+    private static final int[] EMPTY_HASHES = new int[0];
+
+}
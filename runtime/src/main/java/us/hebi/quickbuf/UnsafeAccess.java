@@ -214,4 +214,64 @@ class UnsafeAccess {
 
     }
 
+    /**
+     * Provides access to the internal representation of Strings on Java 9 and
+     * higher. Compact strings store Latin-1 strings as one byte per char, so
+     * ASCII strings are already encoded as UTF-8 and can be copied in bulk.
+     */
+    static class StringAccess {
+
+        public static boolean isAvailable() {
+            return IS_AVAILABLE;
+        }
+
+        /**
+         * Returns the internal storage if the string is stored as Latin-1. The
+         * returned array is shared with the string and must not be modified.
+         *
+         * @param string string to access
+         * @return one byte per char, or null if the string is stored as UTF-16
+         */
+        static byte[] latin1Bytes(final String string) {
+            checkState(isAvailable(), "string access is not available on this platform");
+            if (UNSAFE.getByte(string, STRING_CODER_FIELD_OFFSET) != LATIN1) {
+                return null;
+            }
+            return (byte[]) UNSAFE.getObject(string, STRING_VALUE_FIELD_OFFSET);
+        }
+
+        static final boolean IS_AVAILABLE;
+
+        /**
+         * Offset of the {@code java.lang.String#value} field.
+         */
+        static final long STRING_VALUE_FIELD_OFFSET;
+
+        /**
+         * Offset of the {@code java.lang.String#coder} field.
+         */
+        static final long STRING_CODER_FIELD_OFFSET;
+
+        private static final byte LATIN1 = 0;
+
+        static {
+            long value = -1;
+            long coder = -1;
+            boolean isAvailable;
+            try {
+                final Field valueField = String.class.getDeclaredField("value");
+                final Field coderField = String.class.getDeclaredField("coder");
+                isAvailable = valueField.getType() == byte[].class && coderField.getType() == byte.class;
+                value = UNSAFE.objectFieldOffset(valueField);
+                coder = UNSAFE.objectFieldOffset(coderField);
+            } catch (final Exception ex) {
+                isAvailable = false;
+            }
+            STRING_VALUE_FIELD_OFFSET = value;
+            STRING_CODER_FIELD_OFFSET = coder;
+            IS_AVAILABLE = ENABLE_UNSAFE && MAJOR_JAVA_VERSION >= 9 && isAvailable;
+        }
+
+    }
+
 }
@@ -44,6 +44,15 @@ class Utf8 {
      *                                  surrogates)
      */
     static int encodedLength(CharSequence sequence) {
+        final byte[] ascii = asciiBytes(sequence);
+        return ascii != null ? ascii.length : encodedLengthChars(sequence);
+    }
+
+    /**
+     * Same as {@link #encodedLength(CharSequence)}, but without checking the internal
+     * bytes of compact strings, e.g., for callers that have already checked them.
+     */
+    static int encodedLengthChars(CharSequence sequence) {
         // Warning to maintainers: this implementation is highly optimized.
         int utf16Length = sequence.length();
         int utf8Length = utf16Length;
@@ -113,6 +122,10 @@ class Utf8 {
      *                                        {@code bytes}' remaining space.
      */
     static int encodeArray(final CharSequence sequence, final byte[] bytes, final int offset, final int length) {
+        if (sequence instanceof String && StringAccess.isAvailable()
+                && copyAscii((String) sequence, bytes, BYTE_ARRAY_OFFSET + offset, length)) {
+            return offset + sequence.length();
+        }
         final int utf16Length = sequence.length();
         int j = offset;
         int i = 0;
@@ -178,6 +191,10 @@ class Utf8 {
                             final long baseOffset,
                             final int offset,
                             final int length) {
+        if (sequence instanceof String && StringAccess.isAvailable()
+                && copyAscii((String) sequence, bytes, baseOffset + offset, length)) {
+            return offset + sequence.length();
+        }
         int utf16Length = sequence.length();
         long j = baseOffset + offset;
         int i = 0;
@@ -222,7 +239,26 @@ class Utf8 {
         return (int) (j - baseOffset);
     }
 
+    /**
+     * Writes the length prefix and the UTF-8 encoding of {@code sequence} to a sink that
+     * does not expose an array to encode into. The internal bytes of ASCII compact strings
+     * only get checked once, and they get copied in chunks through a scratch buffer of the
+     * sink so that the backing array of the String never gets handed to the output, e.g.,
+     * a user provided {@link java.io.OutputStream} or channel.
+     */
     static void encodeSink(final CharSequence sequence, final ProtoSink sink) throws IOException {
+        final byte[] ascii = asciiBytes(sequence);
+        if (ascii != null) {
+            sink.writeLength(ascii.length);
+            final byte[] chunk = sink.getScratchBuffer();
+            for (int offset = 0; offset < ascii.length; offset += chunk.length) {
+                final int n = Math.min(chunk.length, ascii.length - offset);
+                System.arraycopy(ascii, offset, chunk, 0, n);
+                sink.writeRawBytes(chunk, 0, n);
+            }
+            return;
+        }
+        sink.writeLength(encodedLengthChars(sequence));
         final int utf16Length = sequence.length();
         int i = 0;
         // Designed to take advantage of
@@ -276,8 +312,11 @@ class Utf8 {
         result.setLength(size);
         int resultPos = 0;
 
-        // Optimize for 100% ASCII (Hotspot loves small simple top-level loops like this).
-        // This simple loop stops when we encounter a byte >= 0x80 (i.e. non-ASCII).
+        // Optimize for 100% ASCII. Check 8 bytes at a time, and then continue with a simple
+        // loop that stops when we encounter a byte >= 0x80 (i.e. non-ASCII).
+        for (int n = countAsciiWords(bytes, BYTE_ARRAY_OFFSET + offset, size); n > 0; n--) {
+            DecodeUtil.handleOneByte(bytes[offset++], result, resultPos++);
+        }
         while (offset < limit) {
             byte b = bytes[offset];
             if (!DecodeUtil.isOneByte(b)) {
@@ -293,6 +332,9 @@ class Utf8 {
                 DecodeUtil.handleOneByte(byte1, result, resultPos++);
                 // It's common for there to be multiple ASCII characters in a run mixed in, so add an
                 // extra optimized loop to take care of these runs.
+                for (int n = countAsciiWords(bytes, BYTE_ARRAY_OFFSET + offset, limit - offset); n > 0; n--) {
+                    DecodeUtil.handleOneByte(bytes[offset++], result, resultPos++);
+                }
                 while (offset < limit) {
                     byte b = bytes[offset];
                     if (!DecodeUtil.isOneByte(b)) {
@@ -351,8 +393,12 @@ class Utf8 {
         result.setLength(size);
         int resultPos = 0;
 
-        // Optimize for 100% ASCII (Hotspot loves small simple top-level loops like this).
-        // This simple loop stops when we encounter a byte >= 0x80 (i.e. non-ASCII).
+        // Optimize for 100% ASCII. Check 8 bytes at a time, and then continue with a simple
+        // loop that stops when we encounter a byte >= 0x80 (i.e. non-ASCII).
+        for (int n = countAsciiWords(bytes, offset, remaining); n > 0; n--) {
+            DecodeUtil.handleOneByte(UNSAFE.getByte(bytes, offset++), result, resultPos++);
+            remaining--;
+        }
         while (remaining > 0) {
             byte b = UNSAFE.getByte(bytes, offset);
             if (!DecodeUtil.isOneByte(b)) {
@@ -370,6 +416,10 @@ class Utf8 {
                 DecodeUtil.handleOneByte(byte1, result, resultPos++);
                 // It's common for there to be multiple ASCII characters in a run mixed in, so add an
                 // extra optimized loop to take care of these runs.
+                for (int n = countAsciiWords(bytes, offset, remaining); n > 0; n--) {
+                    DecodeUtil.handleOneByte(UNSAFE.getByte(bytes, offset++), result, resultPos++);
+                    remaining--;
+                }
                 while (remaining > 0) {
                     byte b = UNSAFE.getByte(bytes, offset);
                     if (!DecodeUtil.isOneByte(b)) {
@@ -417,6 +467,88 @@ class Utf8 {
         result.setLength(resultPos);
     }
 
+    /**
+     * Copies the internal bytes of an ASCII string that is stored as Latin-1 (Java 9+
+     * compact strings). The copy and the ASCII check get done in a single pass, so
+     * the destination may contain partial data if the string turns out not to be ASCII.
+     *
+     * @return true if the string was ASCII and got copied in its entirety
+     */
+    private static boolean copyAscii(final String string, final Object base, final long address, final int length) {
+        final byte[] latin1 = StringAccess.latin1Bytes(string);
+        if (latin1 == null || latin1.length > length) {
+            return false;
+        }
+        final int n = latin1.length;
+        long bits = 0;
+        int i = 0;
+        if (ENABLE_UNSAFE_UNALIGNED) {
+            for (; i <= n - SIZEOF_LONG; i += SIZEOF_LONG) {
+                final long word = UNSAFE.getLong(latin1, BYTE_ARRAY_OFFSET + i);
+                UNSAFE.putLong(base, address + i, word);
+                bits |= word;
+            }
+        }
+        for (; i < n; i++) {
+            final byte b = latin1[i];
+            UNSAFE.putByte(base, address + i, b);
+            bits |= b;
+        }
+        return (bits & NON_ASCII_MASK) == 0;
+    }
+
+    /**
+     * Returns the internal bytes of an ASCII string that is stored as Latin-1 (Java 9+
+     * compact strings), which are already valid UTF-8. The array belongs to the String,
+     * so it must never be modified or passed to code outside of this library.
+     *
+     * @return internal bytes of the string, or null if it is not an ASCII compact string
+     */
+    static byte[] asciiBytes(final CharSequence sequence) {
+        if (sequence instanceof String && StringAccess.isAvailable()) {
+            final byte[] latin1 = StringAccess.latin1Bytes((String) sequence);
+            if (latin1 != null && isAscii(latin1)) {
+                return latin1;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isAscii(final byte[] bytes) {
+        int i = countAsciiWords(bytes, BYTE_ARRAY_OFFSET, bytes.length);
+        for (; i < bytes.length; i++) {
+            if (bytes[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts leading ASCII bytes by checking the sign bits of 8 bytes at a time. The result
+     * is a multiple of 8, so a trailing run of fewer than 8 bytes needs to be checked by
+     * the caller. Returns zero if unaligned access is not supported on this platform.
+     *
+     * @param base    array or null for an absolute address
+     * @param address array offset of the first byte, or the absolute address
+     * @param length  number of bytes that may be checked
+     * @return number of bytes that are known to be ASCII
+     */
+    private static int countAsciiWords(final Object base, final long address, final int length) {
+        if (!ENABLE_UNSAFE_UNALIGNED) {
+            return 0;
+        }
+        int count = 0;
+        while (length - count >= SIZEOF_LONG
+                && (UNSAFE.getLong(base, address + count) & NON_ASCII_MASK) == 0) {
+            count += SIZEOF_LONG;
+        }
+        return count;
+    }
+
+    private static final int SIZEOF_LONG = 8;
+    private static final long NON_ASCII_MASK = 0x8080808080808080L;
+
     /**
      * Utility methods for decoding bytes into {@link String}. Callers are responsible for extracting
      * bytes (possibly using Unsafe methods), and checking remaining bytes. All other UTF-8 validity
@@ -155,6 +155,55 @@ public final class Utf8String {
         return this;
     }
 
+    /**
+     * Compares the encoded contents against utf8 bytes without decoding
+     * them. Strings that were set via a {@link String} get encoded once.
+     *
+     * @return true if the encoded contents match the given bytes
+     */
+    public boolean equalsUtf8(final byte[] utf8) {
+        return equalsUtf8(utf8, 0, utf8.length);
+    }
+
+    /**
+     * @return true if the encoded contents match the given range of bytes
+     */
+    public boolean equalsUtf8(final byte[] utf8, final int offset, final int length) {
+        ProtoUtil.checkBounds(utf8, offset, length);
+        return size() == length && regionMatches(utf8, offset, length);
+    }
+
+    /**
+     * @return true if the encoded contents begin with the given utf8 bytes
+     */
+    public boolean startsWith(final byte[] utf8Prefix) {
+        return size() >= utf8Prefix.length && regionMatches(utf8Prefix, 0, utf8Prefix.length);
+    }
+
+    private boolean regionMatches(final byte[] utf8, final int offset, final int length) {
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] != utf8[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes a hash of the encoded contents that matches
+     * {@link Arrays#hashCode(byte[])} of the utf8 bytes.
+     *
+     * @return hash of the encoded contents
+     */
+    public int hashUtf8() {
+        final int size = size();
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash;
+    }
+
     public Utf8String writeTo(ProtoSink sink) throws java.io.IOException {
         ensureSerialized();
         sink.writeRawBytes(bytes, 0, serializedSize);
@@ -199,15 +248,17 @@ public final class Utf8String {
     }
 
     /**
-     * Utf8Strings have no immutable state and should not
-     * be used in hashing structures. This method returns
-     * a constant value.
+     * Computes a hash of the encoded contents, so strings that were set
+     * via a {@link String} and strings that were parsed from bytes get
+     * the same result. Utf8Strings are mutable, so they should not be
+     * modified while they are used as a key in hashing structures.
      *
-     * @return 0
+     * @return hash of the encoded contents
+     * @see #hashUtf8()
      */
     @Override
     public final int hashCode() {
-        return 0;
+        return hashUtf8();
     }
 
     @Override
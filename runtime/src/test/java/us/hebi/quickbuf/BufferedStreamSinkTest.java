@@ -0,0 +1,75 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import org.junit.Test;
+import protos.test.quickbuf.RepeatedPackables;
+import protos.test.quickbuf.TestAllTypes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public class BufferedStreamSinkTest {
+
+    @Test
+    public void testBufferedStreamSink() throws IOException {
+        TestAllTypes msg = TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+        RepeatedPackables.Packed packed = RepeatedPackables.Packed.parseFrom(CompatibilityTest.repeatedPackablesPacked());
+        for (int bufferSize : new int[]{16, 100, 8192}) {
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ProtoSink sink = ProtoSink.newBufferedStreamSink(bufferSize).setOutput(baos);
+            msg.writeTo(sink);
+            packed.writeTo(sink);
+            assertEquals(msg.getSerializedSize() + packed.getSerializedSize(), sink.getTotalBytesWritten());
+            sink.flush();
+
+            ProtoSource source = ProtoSource.newInstance(baos.toByteArray());
+            source.pushLimit(msg.getSerializedSize());
+            assertEquals(msg, TestAllTypes.parseFrom(source));
+            source.popLimit(Integer.MAX_VALUE);
+            assertEquals(packed, RepeatedPackables.Packed.parseFrom(source));
+        }
+    }
+
+    @Test
+    public void testBufferedStreamSinkDelimited() throws IOException {
+        TestAllTypes msg = TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ProtoSink unbuffered = ProtoSink.newStreamSink().setOutput(expected);
+        ProtoSink buffered = ProtoSink.newBufferedStreamSink(64).setOutput(actual);
+        for (int i = 0; i < 10; i++) {
+            msg.setOptionalString("some text " + i).setOptionalInt32(-i);
+            unbuffered.writeMessageNoTag(msg);
+            buffered.writeMessageNoTag(msg);
+        }
+        assertTrue(actual.size() < expected.size());
+        buffered.flush();
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+
+}
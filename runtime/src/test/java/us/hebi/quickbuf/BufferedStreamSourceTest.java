@@ -0,0 +1,105 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import org.junit.Test;
+import protos.test.quickbuf.RepeatedPackables;
+import protos.test.quickbuf.TestAllTypes;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public class BufferedStreamSourceTest {
+
+    @Test
+    public void testBufferedStreamSource() throws IOException {
+        byte[] bytes = CompatibilityTest.getCombinedMessage();
+        TestAllTypes expected = TestAllTypes.parseFrom(bytes);
+        assertEquals(expected, TestAllTypes.parseFrom(ProtoSource.newBufferedStreamSource()
+                .setInput(new ByteArrayInputStream(bytes))));
+
+        // Values crossing the window boundaries and streams that return partial reads
+        ProtoSource source = ProtoSource.newBufferedStreamSource(16);
+        assertEquals(expected, TestAllTypes.parseFrom(source.setInput(new ShortReadInputStream(bytes, 3))));
+
+        byte[] packed = CompatibilityTest.repeatedPackablesPacked();
+        assertEquals(RepeatedPackables.Packed.parseFrom(packed),
+                RepeatedPackables.Packed.parseFrom(source.setInput(new ShortReadInputStream(packed, 5))));
+    }
+
+    @Test
+    public void testBufferedStreamSourceDelimited() throws IOException {
+        TestAllTypes msg = TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ProtoSink sink = ProtoSink.newInstance(baos);
+        for (int i = 0; i < 10; i++) {
+            sink.writeMessageNoTag(msg.setOptionalInt32(i));
+        }
+
+        ProtoSource source = ProtoSource.newBufferedStreamSource(64)
+                .setInput(new ShortReadInputStream(baos.toByteArray(), 100));
+        TestAllTypes actual = TestAllTypes.newInstance();
+        for (int i = 0; i < 10; i++) {
+            source.readMessage(actual.clear());
+            assertEquals(msg.setOptionalInt32(i), actual);
+        }
+        assertTrue(source.isAtEnd());
+        assertEquals(baos.size(), source.getTotalBytesRead());
+    }
+
+    @Test
+    public void testStreamLimitsExceeded() throws IOException {
+        for (ProtoSource source : new ProtoSource[]{ProtoSource.newBufferedStreamSource(), ProtoSource.newBufferedStreamSource(16)}) {
+            byte[] bytes = CompatibilityTest.optionalPrimitives();
+            source.setInput(new ByteArrayInputStream(bytes));
+
+            try {
+                source.setSizeLimit(bytes.length - 1);
+                TestAllTypes.parseFrom(source);
+                fail();
+            } catch (InvalidProtocolBufferException e) {
+                assertTrue(e.getMessage().contains("size limit"));
+            }
+
+            assertEquals(bytes.length - 1, source.getTotalBytesRead());
+            source.resetSizeCounter();
+            assertEquals(0, source.getTotalBytesRead());
+
+            try {
+                source.setSizeLimit(bytes.length);
+                source.setInput(new ByteArrayInputStream(bytes));
+                source.pushLimit(bytes.length - 20);
+                TestAllTypes.parseFrom(source);
+                fail();
+            } catch (InvalidProtocolBufferException e) {
+                assertTrue(e.getMessage().contains("input ended unexpectedly"));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+import static us.hebi.quickbuf.ProtoUtil.Charsets.*;
+
+/**
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public class CachingUtf8DecoderTest {
+
+    @Test
+    public void testCachingUtf8Decoder() throws Exception {
+        final CachingUtf8Decoder decoder = CachingUtf8Decoder.newInstance(4, 8, true);
+        byte[] bytes = "__name__".getBytes(UTF_8);
+        String first = decoder.decode(bytes, 2, 4);
+        assertEquals("name", first);
+        assertSame(first, decoder.decode("name".getBytes(UTF_8), 0, 4));
+        assertSame(first, Utf8String.newEmptyInstance().copyFromUtf8(bytes, 2, 4).getString(decoder));
+        assertEquals(2, decoder.getHitCount());
+        assertEquals(1, decoder.getMissCount());
+
+        // Collisions replace values, and long values don't get cached
+        for (int i = 0; i < 100; i++) {
+            assertEquals("key" + i, decoder.decode(("key" + i).getBytes(UTF_8), 0, ("key" + i).length()));
+        }
+        String longValue = "longer than the max length";
+        assertNotSame(decoder.decode(longValue.getBytes(UTF_8), 0, longValue.length()),
+                decoder.decode(longValue.getBytes(UTF_8), 0, longValue.length()));
+        assertEquals(101, decoder.getMissCount());
+        decoder.clear();
+        assertEquals(0, decoder.getHitCount() + decoder.getMissCount());
+
+        // Shared by multiple threads
+        final CachingUtf8Decoder shared = CachingUtf8Decoder.newInstance(8192, 128, true);
+        final String[] names = new String[500];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "sensor/" + i + "/grüße";
+        }
+        Thread[] threads = new Thread[4];
+        final AtomicBoolean failed = new AtomicBoolean();
+        for (int t = 0; t < threads.length; t++) {
+            final Random rnd = new Random(t);
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 20000; i++) {
+                        String name = names[rnd.nextInt(names.length)];
+                        byte[] utf8 = name.getBytes(UTF_8);
+                        if (!name.equals(shared.decode(utf8, 0, utf8.length))) {
+                            failed.set(true);
+                        }
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertFalse(failed.get());
+        assertEquals(threads.length * 20000, shared.getHitCount() + shared.getMissCount());
+        assertTrue(shared.getHitCount() > shared.getMissCount());
+    }
+
+    @Test
+    public void testStatsAreOptional() throws Exception {
+        final CachingUtf8Decoder decoder = CachingUtf8Decoder.newInstance(4, 8);
+        assertFalse(decoder.isRecordingStats());
+        byte[] bytes = "name".getBytes(UTF_8);
+        String first = decoder.decode(bytes, 0, bytes.length);
+        assertSame(first, decoder.decode(bytes, 0, bytes.length));
+        assertEquals(0, decoder.getHitCount());
+        assertEquals(0, decoder.getMissCount());
+        assertTrue(CachingUtf8Decoder.newInstance(4, 8, true).isRecordingStats());
+    }
+
+}
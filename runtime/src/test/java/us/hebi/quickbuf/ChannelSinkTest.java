@@ -0,0 +1,92 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import org.junit.Test;
+import protos.test.quickbuf.RepeatedPackables;
+import protos.test.quickbuf.TestAllTypes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public class ChannelSinkTest {
+
+    @Test
+    public void testChannelSink() throws IOException {
+        TestAllTypes msg = TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+        RepeatedPackables.Packed packed = RepeatedPackables.Packed.parseFrom(CompatibilityTest.repeatedPackablesPacked());
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ProtoSink unbuffered = ProtoSink.newStreamSink().setOutput(expected);
+        ProtoSink sink = ProtoSink.newChannelSink(32).setOutput(Channels.newChannel(actual));
+        for (int i = 0; i < 10; i++) {
+            unbuffered.writeMessageNoTag(msg.setOptionalInt32(i));
+            unbuffered.writeMessageNoTag(packed);
+            sink.writeMessageNoTag(msg);
+            sink.writeMessageNoTag(packed);
+        }
+        sink.flush();
+        assertEquals(expected.size(), sink.getTotalBytesWritten());
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+
+    @Test
+    public void testLargeRawBytes() throws IOException {
+        final byte[] large = new byte[100];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) i;
+        }
+        final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        final ByteArrayOutputStream actual = new ByteArrayOutputStream();
+        ProtoSink unbuffered = ProtoSink.newStreamSink().setOutput(expected);
+        ProtoSink sink = ProtoSink.newChannelSink(32).setOutput(Channels.newChannel(actual));
+        for (ProtoSink output : new ProtoSink[]{unbuffered, sink}) {
+            output.writeInt32NoTag(7);
+            output.writeRawBytes(large, 3, large.length - 3);
+            output.writeBytesNoTag(RepeatedByte.newEmptyInstance().addAll(large));
+            output.writeInt32NoTag(8);
+        }
+        sink.flush();
+        assertEquals(expected.size(), sink.getTotalBytesWritten());
+        assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+
+    @Test
+    public void testFlushWithoutOutput() throws IOException {
+        ProtoSink sink = ProtoSink.newChannelSink(32).clear();
+        sink.flush(); // nothing to write
+        sink.writeInt32NoTag(1);
+        try {
+            sink.flush();
+            fail();
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains("no output set"));
+        }
+    }
+
+}
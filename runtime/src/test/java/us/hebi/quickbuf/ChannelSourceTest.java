@@ -0,0 +1,147 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import org.junit.Test;
+import protos.test.quickbuf.RepeatedPackables;
+import protos.test.quickbuf.TestAllTypes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public class ChannelSourceTest {
+
+    @Test
+    public void testChannelSource() throws IOException {
+        TestAllTypes msg = TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+        RepeatedPackables.Packed packed = RepeatedPackables.Packed.parseFrom(CompatibilityTest.repeatedPackablesPacked());
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ProtoSink sink = ProtoSink.newStreamSink().setOutput(baos);
+        for (int i = 0; i < 10; i++) {
+            sink.writeMessageNoTag(msg.setOptionalInt32(i));
+            sink.writeMessageNoTag(packed);
+        }
+        byte[] bytes = baos.toByteArray();
+
+        ProtoSource source = ProtoSource.newChannelSource(64)
+                .setInput(Channels.newChannel(new ShortReadInputStream(bytes, 7)));
+        TestAllTypes actualMsg = TestAllTypes.newInstance();
+        RepeatedPackables.Packed actualPacked = RepeatedPackables.Packed.newInstance();
+        for (int i = 0; i < 10; i++) {
+            source.readMessage(actualMsg.clear());
+            assertEquals(msg.setOptionalInt32(i), actualMsg);
+            source.readMessage(actualPacked.clear());
+            assertEquals(packed, actualPacked);
+        }
+        assertTrue(source.isAtEnd());
+        assertEquals(bytes.length, source.getTotalBytesRead());
+    }
+
+    @Test
+    public void testPositionalFileChannelSource() throws IOException {
+        TestAllTypes msg = TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+        File file = File.createTempFile("quickbuf", ".bin");
+        file.deleteOnExit();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            ProtoSink sink = ProtoSink.newChannelSink().setOutput(channel);
+            sink.writeRawBytes(new byte[13]); // header
+            sink.writeMessageNoTag(msg);
+            TestAllTypes modified = msg.clone().setOptionalInt32(42);
+            sink.writeMessageNoTag(modified);
+            sink.flush();
+
+            // Independent positional readers don't modify the channel position
+            channel.position(0);
+            TestAllTypes actual = TestAllTypes.newInstance();
+            ProtoSource first = ProtoSource.newChannelSource(16).setInput(channel, 13);
+            first.readMessage(actual);
+            assertEquals(msg, actual);
+
+            ProtoSource second = ProtoSource.newChannelSource(16).setInput(channel, 13);
+            second.skipRawBytes(second.readLength());
+            second.readMessage(actual.clear());
+            assertEquals(modified, actual);
+            assertTrue(second.isAtEnd());
+            try {
+                second.skipRawBytes(100);
+                fail("expected truncated message");
+            } catch (InvalidProtocolBufferException truncated) {
+            }
+            assertEquals(0, channel.position());
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void testLargeRawBytes() throws IOException {
+        final byte[] large = new byte[100];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) i;
+        }
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ProtoSink sink = ProtoSink.newStreamSink().setOutput(baos);
+        sink.writeInt32NoTag(7);
+        sink.writeBytesNoTag(RepeatedByte.newEmptyInstance().addAll(large));
+        sink.writeInt32NoTag(8);
+        sink.writeBytesNoTag(RepeatedByte.newEmptyInstance().addAll(large));
+        byte[] bytes = baos.toByteArray();
+
+        // Large reads bypass the buffer, so make sure that the state stays consistent
+        ProtoSource source = ProtoSource.newChannelSource(32)
+                .setInput(Channels.newChannel(new ShortReadInputStream(bytes, 7)));
+        RepeatedByte actual = RepeatedByte.newEmptyInstance();
+        assertEquals(7, source.readInt32());
+        source.readBytes(actual);
+        assertArrayEquals(large, actual.toArray());
+        assertEquals(8, source.readInt32());
+        source.readBytes(actual);
+        assertArrayEquals(large, actual.toArray());
+        assertTrue(source.isAtEnd());
+        assertEquals(bytes.length, source.getTotalBytesRead());
+
+        // Truncated input
+        source.setInput(Channels.newChannel(new ShortReadInputStream(Arrays.copyOf(bytes, bytes.length - 1), 7)));
+        source.readInt32();
+        source.readBytes(actual);
+        source.readInt32();
+        try {
+            source.readBytes(actual);
+            fail();
+        } catch (InvalidProtocolBufferException e) {
+            assertTrue(e.getMessage().contains("input ended unexpectedly"));
+        }
+    }
+
+}
@@ -29,6 +29,7 @@ import protos.test.protobuf.ForeignMessage;
 import protos.test.protobuf.RepeatedPackables;
 import protos.test.protobuf.TestAllTypes;
 import protos.test.protobuf.TestAllTypes.NestedEnum;
+import protos.test.protobuf.TestMaps;
 import protos.test.protobuf.external.ImportEnum;
 
 import java.io.IOException;
@@ -239,6 +240,48 @@ public class CompatibilityTest {
                 .toByteArray();
     }
 
+    @Test
+    public void testMapCompatibilityWithProtobufJava() throws IOException {
+        final TestMaps expected = TestMaps.newBuilder()
+                .putInt32ToDouble(1, 1.5)
+                .putInt32ToDouble(-2, -2.5)
+                .putSint32ToFloat(-3, 0.5f)
+                .putFixed32ToBool(4, true)
+                .putUint32ToEnum(5, TestMaps.NestedEnum.BAR)
+                .putInt64ToString(-6, "utf8\uD83D\uDCA9")
+                .putSfixed64ToBytes(7, ByteString.copyFromUtf8("bytes"))
+                .putUint64ToInt64(8, Long.MIN_VALUE)
+                .putStringToMessage("h\u00e4llo", TestMaps.NestedMessage.newBuilder().setBb(9).setText("nested").build())
+                .putStringToMessage("", TestMaps.NestedMessage.getDefaultInstance())
+                .putStringToInt32("ten", 10)
+                .putBoolToInt32(true, 11)
+                .setId(12)
+                .build();
+
+        // Default maps with repeated entry messages
+        final protos.test.quickbuf.TestMaps entries = protos.test.quickbuf.TestMaps.parseFrom(expected.toByteArray());
+        assertEquals(2, entries.getInt32ToDouble().length());
+        assertEquals(expected, TestMaps.parseFrom(entries.toByteArray()));
+
+        // Hash maps
+        final protos.test.quickbuf.hash_maps.TestMaps msg = protos.test.quickbuf.hash_maps.TestMaps.parseFrom(expected.toByteArray());
+        assertEquals(2, msg.getInt32ToDoubleCount());
+        assertEquals(-2.5, msg.getInt32ToDoubleOrThrow(-2), 0);
+        assertEquals(9, msg.getStringToMessageOrThrow("h\u00e4llo").getBb());
+        assertEquals(expected, TestMaps.parseFrom(msg.toByteArray()));
+        assertEquals(msg, protos.test.quickbuf.hash_maps.TestMaps.parseFrom(msg.toByteArray()));
+
+        // Maps with bool keys are still written as repeated entries, so they are not valid map JSON
+        final TestMaps expectedJson = expected.toBuilder().clearBoolToInt32().build();
+        msg.clearBoolToInt32();
+        final TestMaps.Builder builder = TestMaps.newBuilder();
+        JsonFormat.parser().merge(JsonSink.newInstance().writeMessage(msg).toString(), builder);
+        assertEquals(expectedJson, builder.build());
+
+        final String json = JsonFormat.printer().print(expectedJson);
+        assertEquals(msg, protos.test.quickbuf.hash_maps.TestMaps.newInstance().mergeFrom(JsonSource.newInstance(json)));
+    }
+
     @Test
     public void testProtobufJavaJsonParser() {
         TestAllTypes msg;
@@ -0,0 +1,91 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import org.junit.Test;
+import protos.test.quickbuf.TestAllTypes;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public class FrameCodecTest {
+
+    @Test
+    public void testFrameCodecs() throws IOException {
+        TestAllTypes msg = TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+        TestAllTypes actual = TestAllTypes.newInstance();
+        for (FrameCodec codec : new FrameCodec[]{FrameCodec.varint(), FrameCodec.fixed32(), FrameCodec.grpc()}) {
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ProtoSink sink = ProtoSink.newInstance(baos);
+            for (int i = 0; i < 10; i++) {
+                codec.writeFrame(sink, msg.setOptionalInt32(i));
+            }
+            codec.writeFrame(sink, actual.clear());
+            byte[] bytes = baos.toByteArray();
+
+            // Read all frames into a reused message
+            ProtoSource source = ProtoSource.newInstance(bytes);
+            for (int i = 0; i < 10; i++) {
+                assertTrue(codec.readFrame(source, actual));
+                assertEquals(msg.setOptionalInt32(i), actual);
+            }
+            assertTrue(codec.readFrame(source, actual));
+            assertTrue(actual.isEmpty());
+            assertFalse(codec.readFrame(source, actual));
+
+            // Skip frames without parsing
+            source = ProtoSource.newInstance(bytes);
+            for (int i = 0; i < 11; i++) {
+                assertTrue(codec.skipFrame(source));
+            }
+            assertFalse(codec.skipFrame(source));
+
+            // Exact boundaries in a raw buffer
+            int frameSize = codec.computeFrameSize(msg);
+            assertEquals(frameSize, codec.computeFrameSize(bytes, 0, bytes.length));
+            assertEquals(frameSize, codec.computeFrameSize(bytes, frameSize, frameSize));
+            assertEquals(-1, codec.computeFrameSize(bytes, frameSize, frameSize - 1));
+            assertEquals(-1, codec.computeFrameSize(bytes, 0, 1));
+            assertEquals(codec.computeHeaderSize(0), codec.computeFrameSize(bytes, 10 * frameSize, bytes.length - 10 * frameSize));
+            assertEquals(bytes.length, 10 * frameSize + codec.computeHeaderSize(0));
+        }
+
+        // gRPC headers are big-endian and compressed frames can only be skipped
+        byte[] grpc = new byte[]{1, 0, 0, 0, 2, 0x08, 0x01};
+        assertEquals(grpc.length, FrameCodec.grpc().computeFrameSize(grpc, 0, grpc.length));
+        assertTrue(FrameCodec.grpc().skipFrame(ProtoSource.newInstance(grpc)));
+        try {
+            FrameCodec.grpc().readFrame(ProtoSource.newInstance(grpc), actual);
+            fail("compressed frame");
+        } catch (InvalidProtocolBufferException expected) {
+        }
+        grpc[0] = 0;
+        assertTrue(FrameCodec.grpc().readFrame(ProtoSource.newInstance(grpc), actual));
+        assertEquals(1, actual.getOptionalInt32());
+    }
+
+}
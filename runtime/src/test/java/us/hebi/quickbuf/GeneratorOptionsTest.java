@@ -0,0 +1,179 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests the optional generator features on their own, i.e., without the other
+ * options that are combined in the lazy protos, and with eager allocation.
+ * Each feature gets generated into a separate package.
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public class GeneratorOptionsTest {
+
+    @Test
+    public void testLazyParsing() throws IOException {
+        final byte[] combined = CompatibilityTest.getCombinedMessage();
+        final protos.test.quickbuf.lazy_parsing.TestAllTypes nested = protos.test.quickbuf.lazy_parsing.TestAllTypes.parseFrom(combined);
+        final protos.test.quickbuf.lazy_parsing.TestLazyFields msg = protos.test.quickbuf.lazy_parsing.TestLazyFields.newInstance()
+                .setId(1)
+                .setLazyMessage(nested)
+                .setEagerMessage(nested)
+                .setLazyChoice(nested);
+        final byte[] bytes = msg.toByteArray();
+
+        // Unparsed fields get written back unchanged
+        protos.test.quickbuf.lazy_parsing.TestLazyFields lazy = protos.test.quickbuf.lazy_parsing.TestLazyFields.parseFrom(bytes);
+        assertArrayEquals(bytes, lazy.toByteArray());
+        assertEquals(msg, lazy);
+        assertEquals(nested, lazy.getLazyMessage());
+        assertArrayEquals(bytes, lazy.toByteArray());
+
+        // Repeated occurrences get merged, and oneofs discard unparsed bytes
+        lazy = protos.test.quickbuf.lazy_parsing.TestLazyFields.parseFrom(bytes);
+        ProtoMessage.mergeFrom(lazy, bytes);
+        assertEquals(msg.clone().mergeFrom(msg), lazy);
+        lazy.setText("text");
+        assertFalse(lazy.hasLazyChoice());
+        assertEquals(lazy, protos.test.quickbuf.lazy_parsing.TestLazyFields.parseFrom(lazy.toByteArray()));
+
+        // Compatible with the eagerly parsed representation
+        assertArrayEquals(bytes, protos.test.quickbuf.TestLazyFields.parseFrom(bytes).toByteArray());
+    }
+
+    @Test
+    public void testZeroCopyBytes() throws IOException {
+        final byte[] bytes = CompatibilityTest.getCombinedMessage();
+        final protos.test.quickbuf.zero_copy_bytes.TestAllTypes msg = protos.test.quickbuf.zero_copy_bytes.TestAllTypes.parseFrom(bytes);
+        final byte[] expected = protos.test.quickbuf.TestAllTypes.parseFrom(bytes).toByteArray();
+        assertSame(bytes, msg.getOptionalBytesView().array());
+        assertArrayEquals(expected, msg.toByteArray());
+        assertArrayEquals(expected, msg.clone().toByteArray());
+
+        // Mutable access detaches from the input
+        final byte[] input = bytes.clone();
+        final protos.test.quickbuf.zero_copy_bytes.TestAllTypes copy = protos.test.quickbuf.zero_copy_bytes.TestAllTypes.parseFrom(input);
+        copy.getMutableOptionalBytes().add((byte) 1);
+        assertNotSame(input, copy.getOptionalBytesView().array());
+        assertEquals(msg.getOptionalBytes().length() + 1, copy.getOptionalBytes().length());
+    }
+
+    @Test
+    public void testZeroCopyStrings() throws IOException {
+        final byte[] bytes = CompatibilityTest.getCombinedMessage();
+        final protos.test.quickbuf.zero_copy_strings.TestAllTypes msg = protos.test.quickbuf.zero_copy_strings.TestAllTypes.parseFrom(bytes);
+        final protos.test.quickbuf.TestAllTypes expected = protos.test.quickbuf.TestAllTypes.parseFrom(bytes);
+        assertSame(bytes, msg.getOptionalStringView().array());
+        assertTrue(msg.getOptionalStringView().contentEquals(expected.getOptionalString().getBytes(ProtoUtil.Charsets.UTF_8)));
+        assertArrayEquals(expected.toByteArray(), msg.toByteArray());
+        assertEquals(expected.getOptionalString(), msg.getOptionalString());
+        assertEquals(msg, msg.clone().setOptionalString(msg.getOptionalString()));
+    }
+
+    @Test
+    public void testDirtyTracking() throws IOException {
+        final protos.test.quickbuf.dirty_tracking.TestAllTypes msg = protos.test.quickbuf.dirty_tracking.TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+        assertDirtyTrackedSize(msg);
+        msg.setOptionalInt32(Integer.MIN_VALUE);
+        assertDirtyTrackedSize(msg);
+        msg.getMutableOptionalNestedMessage().setBb(Integer.MIN_VALUE);
+        assertDirtyTrackedSize(msg);
+        msg.getMutableRepeatedForeignMessage().next().setC(Integer.MIN_VALUE);
+        assertDirtyTrackedSize(msg);
+        msg.clearOptionalNestedMessage().clearRepeatedString();
+        assertDirtyTrackedSize(msg);
+    }
+
+    private static void assertDirtyTrackedSize(protos.test.quickbuf.dirty_tracking.TestAllTypes msg) throws IOException {
+        // the JSON representation does not depend on any cached sizes
+        final protos.test.quickbuf.TestAllTypes expected = protos.test.quickbuf.TestAllTypes.parseFrom(JsonSource.newInstance(msg.toString()));
+        assertEquals(expected.getSerializedSize(), msg.getSerializedSize());
+        assertEquals(expected, protos.test.quickbuf.TestAllTypes.parseFrom(msg.toByteArray()));
+    }
+
+    @Test
+    public void testMemoizedOutput() throws IOException {
+        final protos.test.quickbuf.memoize_output.TestAllTypes msg = protos.test.quickbuf.memoize_output.TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+        final byte[] expected = msg.toByteArray();
+        assertArrayEquals(expected, ProtoMessage.getMemoizedOutput(msg));
+        assertArrayEquals(expected, msg.toByteArray());
+
+        // Changes to eagerly allocated nested messages invalidate the parent
+        msg.getMutableOptionalNestedMessage().setBb(Integer.MIN_VALUE);
+        final byte[] modified = msg.toByteArray();
+        assertEquals(protos.test.quickbuf.TestAllTypes.parseFrom(JsonSource.newInstance(msg.toString())),
+                protos.test.quickbuf.TestAllTypes.parseFrom(modified));
+        assertArrayEquals(modified, ProtoMessage.getMemoizedOutput(msg));
+    }
+
+    @Test
+    public void testFieldMasks() throws IOException {
+        final protos.test.quickbuf.field_masks.TestAllTypes msg = protos.test.quickbuf.field_masks.TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+        final FieldMask<protos.test.quickbuf.field_masks.TestAllTypes> mask = protos.test.quickbuf.field_masks.TestAllTypes.newFieldMask(1, 14, 18, 31);
+        final protos.test.quickbuf.field_masks.TestAllTypes expected = protos.test.quickbuf.field_masks.TestAllTypes.newInstance().copyFrom(msg, mask);
+        assertEquals(msg.getOptionalNestedMessage(), expected.getOptionalNestedMessage());
+        assertFalse(expected.hasOptionalInt64());
+
+        // Partial output and parsing
+        final byte[] partial = new byte[msg.computeSerializedSize(mask)];
+        final ProtoSink sink = ProtoSink.newInstance(partial);
+        msg.writeTo(sink, mask);
+        sink.checkNoSpaceLeft();
+        assertArrayEquals(expected.toByteArray(), partial);
+        assertEquals(expected, protos.test.quickbuf.field_masks.TestAllTypes.newInstance()
+                .mergeFrom(ProtoSource.newInstance(msg.toByteArray()), mask));
+
+        // Nested sizes get updated when writing without computing the size first
+        msg.getMutableOptionalNestedMessage().setBb(Integer.MIN_VALUE);
+        final RepeatedByte bytes = RepeatedByte.newEmptyInstance();
+        msg.writeTo(ProtoSink.newInstance(bytes), mask);
+        assertEquals(expected.copyFrom(msg, mask), protos.test.quickbuf.field_masks.TestAllTypes.parseFrom(bytes.toArray()));
+
+        // Delta encoding
+        final RepeatedByte patch = RepeatedByte.newEmptyInstance();
+        protos.test.quickbuf.field_masks.TestAllTypes.diff(expected, msg, ProtoSink.newInstance(patch));
+        assertEquals(msg, expected.clone().applyPatch(ProtoSource.newInstance(patch)));
+    }
+
+    @Test
+    public void testHashMaps() throws IOException {
+        final protos.test.quickbuf.hash_maps.TestMaps msg = protos.test.quickbuf.hash_maps.TestMaps.newInstance()
+                .putInt32ToDouble(1, 1.5)
+                .putStringToMessage("key", protos.test.quickbuf.hash_maps.TestMaps.NestedMessage.newInstance().setBb(2))
+                .putStringToInt32("other", 3);
+        msg.getMutableBoolToInt32().next().setKey(true).setValue(4);
+        final byte[] bytes = msg.toByteArray();
+
+        // Same wire format as the default repeated entries
+        final protos.test.quickbuf.TestMaps entries = protos.test.quickbuf.TestMaps.parseFrom(bytes);
+        assertEquals(1, entries.getStringToMessage().length());
+        assertEquals(msg, protos.test.quickbuf.hash_maps.TestMaps.parseFrom(entries.toByteArray()));
+        assertEquals(msg, protos.test.quickbuf.hash_maps.TestMaps.parseFrom(JsonSource.newInstance(msg.toString())));
+    }
+
+}
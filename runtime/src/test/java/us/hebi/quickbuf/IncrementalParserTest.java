@@ -0,0 +1,121 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import org.junit.Test;
+import protos.test.quickbuf.RepeatedPackables;
+import protos.test.quickbuf.TestAllTypes;
+import protos.test.quickbuf.ZeroCopyBytes.RoutedMessage;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public class IncrementalParserTest {
+
+    @Test
+    public void testIncrementalParser() throws IOException {
+        byte[] bytes = CompatibilityTest.getCombinedMessage();
+        TestAllTypes expected = TestAllTypes.parseFrom(bytes);
+        TestAllTypes actual = TestAllTypes.newInstance();
+        IncrementalParser parser = IncrementalParser.newInstance();
+
+        // Chunks of various sizes, including fields that span several chunks
+        for (int chunkSize : new int[]{1, 3, 17, 100, bytes.length}) {
+            parser.reset(actual.clear(), bytes.length);
+            for (int i = 0; i < bytes.length; i += chunkSize) {
+                assertFalse(parser.isDone());
+                parser.feed(bytes, i, Math.min(chunkSize, bytes.length - i));
+            }
+            assertTrue(parser.isDone());
+            assertEquals(expected, actual);
+        }
+
+        // Consecutive frames in one buffer, read from a channel with partial reads
+        RepeatedPackables.Packed packed = RepeatedPackables.Packed.parseFrom(CompatibilityTest.repeatedPackablesPacked());
+        byte[] frames = new byte[bytes.length * 2 + packed.getSerializedSize()];
+        System.arraycopy(bytes, 0, frames, 0, bytes.length);
+        System.arraycopy(bytes, 0, frames, bytes.length, bytes.length);
+        packed.writeTo(ProtoSink.newInstance(frames, bytes.length * 2, packed.getSerializedSize()));
+        ReadableByteChannel channel = Channels.newChannel(new ShortReadInputStream(frames, 11));
+
+        parser.reset(actual.clear(), bytes.length);
+        while (!parser.isDone()) {
+            parser.read(channel);
+        }
+        assertEquals(expected, actual);
+
+        parser.reset(actual.clear(), bytes.length);
+        while (!parser.isDone()) {
+            parser.read(channel);
+        }
+        assertEquals(expected, actual);
+
+        RepeatedPackables.Packed actualPacked = RepeatedPackables.Packed.newInstance();
+        parser.reset(actualPacked, packed.getSerializedSize());
+        while (!parser.isDone()) {
+            parser.read(channel);
+        }
+        assertEquals(packed, actualPacked);
+    }
+
+    @Test
+    public void testViewsOutliveInput() throws IOException {
+        RoutedMessage msg = RoutedMessage.newInstance()
+                .setTopic("sensors/lidar/front")
+                .setPayload(new byte[]{1, 2, 3});
+        RoutedMessage other = RoutedMessage.newInstance()
+                .setTopic("sensors/radar/back")
+                .setPayload(new byte[]{4, 5, 6});
+        byte[] bytes = msg.toByteArray();
+        byte[] otherBytes = other.toByteArray();
+        IncrementalParser parser = IncrementalParser.newInstance();
+
+        // Fields that get merged directly from a chunk that gets reused
+        byte[] chunk = bytes.clone();
+        RoutedMessage first = RoutedMessage.newInstance();
+        parser.reset(first, bytes.length).feed(chunk, 0, chunk.length);
+        Arrays.fill(chunk, (byte) 0);
+        assertEquals(msg, first);
+
+        // Fields that get merged from the internal buffer, which gets reused for the next frame
+        RoutedMessage second = RoutedMessage.newInstance();
+        parser.reset(second, bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            parser.feed(bytes, i, 1);
+        }
+        parser.reset(RoutedMessage.newInstance(), otherBytes.length);
+        for (int i = 0; i < otherBytes.length; i++) {
+            parser.feed(otherBytes, i, 1);
+        }
+        assertTrue(parser.isDone());
+        assertEquals(msg, second);
+        assertTrue(second.getTopicView().contentEquals(msg.getTopicView().toArray()));
+    }
+
+}
@@ -20,11 +20,14 @@
 
 package us.hebi.quickbuf;
 
+import com.google.quickbuf.Struct;
+import com.google.quickbuf.Value;
 import org.junit.Test;
 import protos.test.quickbuf.ForeignEnum;
 import protos.test.quickbuf.TestAllTypes;
 import protos.test.quickbuf.TestAllTypes.NestedEnum;
 import protos.test.quickbuf.external.ImportEnum;
+import protos.test.quickbuf.hash_maps.TestMaps;
 
 import java.io.IOException;
 import java.util.Base64;
@@ -260,6 +263,27 @@ public class JsonSinkTest {
 
     protected String repeatedFloatResult = "{\"data\":[-2,-1.5,-1,-0.5,0,0.5,1,1.5]}";
 
+    @Test
+    public void testMaps() throws IOException {
+        TestMaps msg = TestMaps.newInstance()
+                .putInt32ToDouble(-2, 2.5)
+                .putUint32ToEnum(7, TestMaps.NestedEnum.BAR)
+                .putInt64ToString(Long.MIN_VALUE, "min")
+                .putStringToMessage("h\u00e4llo", TestMaps.NestedMessage.newInstance().setBb(5))
+                .putStringToInt32("a", 1)
+                .putStringToInt32("b", 2);
+        assertEquals(mapsResult, newJsonSink().writeMessage(msg).toString());
+
+        Struct struct = Struct.newInstance()
+                .putFields("number", Value.newInstance().setNumberValue(2))
+                .putFields("text", Value.newInstance().setStringValue("text"));
+        assertEquals(structResult, newJsonSink().writeMessage(struct).toString());
+    }
+
+    protected String mapsResult = "{\"int32ToDouble\":{\"-2\":2.5},\"uint32ToEnum\":{\"7\":\"BAR\"},\"int64ToString\":{\"-9223372036854775808\":\"min\"}," +
+            "\"stringToMessage\":{\"h\u00e4llo\":{\"bb\":5}},\"stringToInt32\":{\"a\":1,\"b\":2}}";
+    protected String structResult = "{\"fields\":{\"number\":{\"numberValue\":2},\"text\":{\"stringValue\":\"text\"}}}";
+
     public JsonSink newJsonSink() {
         return JsonSink.newInstance();
     }
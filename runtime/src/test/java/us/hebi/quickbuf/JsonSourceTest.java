@@ -20,10 +20,13 @@
 
 package us.hebi.quickbuf;
 
+import com.google.quickbuf.Struct;
+import com.google.quickbuf.Value;
 import org.junit.Assert;
 import org.junit.Test;
 import protos.test.quickbuf.ForeignMessage;
 import protos.test.quickbuf.TestAllTypes;
+import protos.test.quickbuf.hash_maps.TestMaps;
 
 import java.io.IOException;
 
@@ -175,6 +178,33 @@ public class JsonSourceTest {
         Assert.assertEquals(msg, msg2);
     }
 
+    @Test
+    public void testMaps() throws Exception {
+        TestMaps msg = TestMaps.newInstance()
+                .putInt32ToDouble(-2, 2.5)
+                .putSint32ToFloat(-3, 0.5f)
+                .putFixed32ToBool(0xFFFFFFFF, true)
+                .putUint32ToEnum(7, TestMaps.NestedEnum.BAR)
+                .putInt64ToString(Long.MIN_VALUE, "min")
+                .putSfixed64ToBytes(3, new byte[]{1, 2})
+                .putUint64ToInt64(Long.MAX_VALUE, -1)
+                .putStringToMessage("h\u00e4llo", TestMaps.NestedMessage.newInstance().setBb(5).setText("nested"))
+                .putStringToInt32("key", 42);
+        msg.getMutableBoolToInt32().next().setKey(true).setValue(1);
+        String json = JsonSink.newInstance().setWriteEnumsAsInts(false).writeMessage(msg).toString();
+        assertEquals(msg, TestMaps.newInstance().mergeFrom(newJsonSource(json)));
+
+        // Duplicate keys replace the previous value
+        TestMaps actual = TestMaps.newInstance().mergeFrom(newJsonSource("{\"stringToInt32\":{\"a\":1,\"a\":2}}"));
+        assertEquals(1, actual.getStringToInt32Count());
+        assertEquals(2, actual.getStringToInt32OrThrow("a"));
+
+        Struct struct = Struct.newInstance()
+                .putFields("number", Value.newInstance().setNumberValue(2))
+                .putFields("text", Value.newInstance().setStringValue("text"));
+        assertEquals(struct, Struct.newInstance().mergeFrom(newJsonSource(JsonSink.newInstance().writeMessage(struct))));
+    }
+
     protected TestAllTypes parseJson(String json) throws IOException {
         return TestAllTypes.parseFrom(newJsonSource(json));
     }
@@ -0,0 +1,114 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import org.junit.Test;
+import protos.test.quickbuf.TestAllTypes;
+import protos.test.quickbuf.ZeroCopyBytes.RoutedMessage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public class MappedMessageReaderTest {
+
+    @Test
+    public void testMappedMessageReader() throws IOException {
+        TestAllTypes msg = TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+        File file = File.createTempFile("quickbuf", ".log");
+        file.deleteOnExit();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            ProtoSink sink = ProtoSink.newChannelSink().setOutput(channel);
+            for (int i = 0; i < 100; i++) {
+                sink.writeMessageNoTag(msg.setOptionalInt32(i));
+            }
+            sink.writeMessageNoTag(msg.clear());
+            sink.flush();
+
+            // Regions smaller than a message, and regions that messages cross
+            msg = TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+            TestAllTypes actual = TestAllTypes.newInstance();
+            for (int regionSize : new int[]{16, 1000, 1 << 20}) {
+                MappedMessageReader reader = MappedMessageReader.newInstance(channel, regionSize);
+                for (int i = 0; i < 100; i++) {
+                    assertTrue(reader.hasNext());
+                    assertEquals(msg.setOptionalInt32(i), reader.next(actual));
+                }
+                assertTrue(reader.next(actual).isEmpty());
+                assertFalse(reader.hasNext());
+                assertEquals(channel.size(), reader.getPosition());
+            }
+
+            // Resume at a stored position and pick up appended data
+            MappedMessageReader reader = MappedMessageReader.newInstance(channel, 1000);
+            reader.next(actual);
+            long position = reader.getPosition();
+            reader.setPosition(channel.size());
+            assertFalse(reader.hasNext());
+            sink.writeMessageNoTag(msg.setOptionalInt32(-1));
+            sink.flush();
+            assertTrue(reader.hasNext());
+            assertEquals(msg, reader.next(actual));
+            assertEquals(1, reader.setPosition(position).next(actual).getOptionalInt32());
+        } finally {
+            raf.close();
+        }
+    }
+
+    @Test
+    public void testViewsOutliveRegions() throws IOException {
+        RoutedMessage msg = RoutedMessage.newInstance()
+                .setTopic("sensors/lidar/front")
+                .setPayload(new byte[]{1, 2, 3});
+        File file = File.createTempFile("quickbuf", ".log");
+        file.deleteOnExit();
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            ProtoSink sink = ProtoSink.newChannelSink().setOutput(channel);
+            for (int i = 0; i < 10; i++) {
+                sink.writeMessageNoTag(msg.setSource("node-" + i));
+            }
+            sink.flush();
+
+            // Every message gets mapped into a new region, so views must not refer to the mapped memory
+            MappedMessageReader reader = MappedMessageReader.newInstance(channel, 16);
+            RoutedMessage first = reader.next(RoutedMessage.newInstance());
+            assertTrue(first.getTopicView().hasArray());
+            while (reader.hasNext()) {
+                reader.next(RoutedMessage.newInstance());
+            }
+            assertEquals(msg.setSource("node-0"), first);
+        } finally {
+            raf.close();
+        }
+    }
+
+}
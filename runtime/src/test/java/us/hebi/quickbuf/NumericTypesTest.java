@@ -292,6 +292,68 @@ public class NumericTypesTest {
                 Double.doubleToLongBits(encodeAndDecode(msg.setOptionalDouble(value)).getOptionalDouble()));
     }
 
+    @Test
+    public void testPaddedVarints() throws IOException {
+        // Trailing bytes enable the word-at-a-time decoding
+        for (int i = 0; i < 64; i++) {
+            testPaddedVarint(1L << i);
+            testPaddedVarint(~0L << i);
+            testPaddedVarint((1L << i) - 1);
+            testPaddedVarint(-(1L << i));
+        }
+        for (int i = 1; i < n; i++) {
+            testPaddedVarint(rnd.nextLong() >>> rnd.nextInt(64));
+        }
+    }
+
+    private void testPaddedVarint(long value) throws IOException {
+        sink.reset().writeUInt64NoTag(value);
+        sink.writeUInt64NoTag(value);
+        sink.writeRawLittleEndian64(-1L);
+        sink.writeRawLittleEndian16((short) -1);
+        for (ProtoSource source : getSources()) {
+            assertEquals(value, source.setInput(bytes).readRawVarint64());
+            assertEquals(value, source.readRawVarint64());
+            assertEquals((int) value, source.setInput(bytes).readRawVarint32());
+            assertEquals((int) value, source.readRawVarint32());
+        }
+    }
+
+    @Test
+    public void testPaddedMalformedVarints() throws IOException {
+        // 11 bytes with continuation bits
+        sink.reset();
+        for (int i = 0; i < 12; i++) {
+            sink.writeRawByte((byte) 0x80);
+        }
+        for (ProtoSource source : getSources()) {
+            try {
+                source.setInput(bytes).readRawVarint64();
+                fail("expected malformed varint");
+            } catch (InvalidProtocolBufferException expected) {
+            }
+            try {
+                source.setInput(bytes).readRawVarint32();
+                fail("expected malformed varint");
+            } catch (InvalidProtocolBufferException expected) {
+            }
+        }
+
+        // truncated with fewer than 10 remaining bytes
+        sink.reset().writeRawLittleEndian64(-1L);
+        for (ProtoSource source : getSources()) {
+            try {
+                source.setInput(bytes).readRawVarint64();
+                fail("expected truncated message");
+            } catch (InvalidProtocolBufferException expected) {
+            }
+        }
+    }
+
+    private ProtoSource[] getSources() {
+        return new ProtoSource[]{ProtoSource.newArraySource(), ProtoSource.newDirectSource()};
+    }
+
     private static void assertEqual(int expected, int actual){
         if(expected != actual) {
             fail("Values are not equal:\n" +
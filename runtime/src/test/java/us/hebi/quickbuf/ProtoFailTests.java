@@ -414,12 +414,24 @@ public class ProtoFailTests {
         } catch (InvalidProtocolBufferException ex) {
         }
 
+        try {
+            msg.clear().mergeFrom(ProtoSource.newBufferedStreamSource().setInput(new ByteArrayInputStream(data, 0, data.length - 1)));
+            fail("BufferedStreamSource");
+        } catch (InvalidProtocolBufferException ex) {
+        }
+
         try {
             msg.clear().mergeFrom(ProtoSource.newBufferSource().setInput(ByteBuffer.wrap(data, 0, data.length - 1)));
             fail("BufferSource");
         } catch (InvalidProtocolBufferException ex) {
         }
 
+        try {
+            IncrementalParser.newInstance().reset(msg.clear(), data.length - 1).feed(data, 0, data.length);
+            fail("IncrementalParser");
+        } catch (InvalidProtocolBufferException ex) {
+        }
+
     }
 
     // --------------------------------------------------------------------------------------
@@ -0,0 +1,150 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public class ProtoMapTest {
+
+    @Test
+    public void testLookupAndRemove() {
+        final int n = 50000;
+        final int[] keys = new int[n];
+        final IntMap<RepeatedDouble> ints = IntMap.newInstance(RepeatedDouble.newEmptyInstance());
+        final LongMap<RepeatedInt> longs = LongMap.newInstance(RepeatedInt.newEmptyInstance());
+        final StringMap<RepeatedInt> strings = StringMap.newInstance(RepeatedInt.newEmptyInstance());
+        for (int i = 0; i < n; i++) {
+            keys[i] = i * 0x9E3779B9; // distinct and spread out
+            ints.values().set(ints.put(keys[i]), i);
+            longs.values().set(longs.put((long) keys[i] << 32), i);
+            strings.values().set(strings.put(String.valueOf(keys[i])), i);
+        }
+        for (int i = 0; i < n; i++) {
+            assertEquals(i, ints.values().get(ints.indexOf(keys[i])), 0);
+            assertEquals(i, longs.values().get(longs.indexOf((long) keys[i] << 32)));
+            assertEquals(i, strings.values().get(strings.indexOf(String.valueOf(keys[i]))));
+        }
+
+        // Removals keep the remaining entries reachable
+        for (int i = 0; i < n; i += 2) {
+            assertTrue(ints.remove(keys[i]));
+            assertTrue(longs.remove((long) keys[i] << 32));
+            assertTrue(strings.remove(String.valueOf(keys[i])));
+        }
+        assertFalse(ints.remove(keys[0]));
+        assertEquals(n / 2, ints.length());
+        assertEquals(n / 2, longs.length());
+        assertEquals(n / 2, strings.length());
+        for (int i = 0; i < n; i++) {
+            assertEquals(i % 2 == 1, ints.containsKey(keys[i]));
+            assertEquals(i % 2 == 1, longs.containsKey((long) keys[i] << 32));
+            assertEquals(i % 2 == 1, strings.containsKey(String.valueOf(keys[i])));
+            if (i % 2 == 1) {
+                assertEquals(i, ints.values().get(ints.indexOf(keys[i])), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testPendingEntries() {
+        final IntMap<RepeatedInt> map = IntMap.newInstance(RepeatedInt.newEmptyInstance());
+        map.values().set(map.put(1), 10);
+
+        // Duplicate keys replace the previous value
+        final int index = map.beginEntry();
+        map.setPendingKey(1);
+        map.values().set(index, 20);
+        assertEquals(0, map.endEntry());
+        assertEquals(1, map.length());
+        assertEquals(20, map.values().get(0));
+
+        // Entries that don't get committed are discarded
+        map.beginEntry();
+        map.setPendingKey(2);
+        assertEquals(1, map.length());
+        assertFalse(map.containsKey(2));
+        map.beginEntry();
+        map.setPendingKey(3);
+        assertEquals(1, map.endEntry());
+        assertEquals(2, map.length());
+        assertEquals(3, map.keyAt(1));
+    }
+
+    @Test
+    public void testCopyAndEquality() {
+        final StringMap<RepeatedString> map = StringMap.newInstance(RepeatedString.newEmptyInstance());
+        for (int i = 0; i < 100; i++) {
+            map.values().set(map.put("key" + i), "value" + i);
+        }
+
+        // Equality does not depend on the order of the entries
+        final StringMap<RepeatedString> reversed = StringMap.newInstance(RepeatedString.newEmptyInstance());
+        for (int i = 99; i >= 0; i--) {
+            reversed.values().set(reversed.put("key" + i), "value" + i);
+        }
+        assertEquals(map, reversed);
+        assertEquals(map.hashCode(), reversed.hashCode());
+        reversed.values().set(reversed.indexOf("key0"), "other");
+        assertNotEquals(map, reversed);
+
+        // Merges replace existing values
+        reversed.putAll(map);
+        assertEquals(map, reversed);
+        final StringMap<RepeatedString> copy = StringMap.newInstance(RepeatedString.newEmptyInstance());
+        assertEquals(map, copy.copyFrom(map));
+        assertEquals("value42", copy.values().get(copy.indexOf("key42")));
+        assertEquals(map, copy.clear().putAll(map));
+
+        // Copies reuse the existing table if it is large enough
+        final int[] table = copy.table;
+        final StringMap<RepeatedString> small = StringMap.newInstance(RepeatedString.newEmptyInstance());
+        small.values().set(small.put("key"), "value");
+        assertEquals(small, copy.copyFrom(small));
+        assertSame(table, copy.table);
+        assertEquals("value", copy.values().get(copy.indexOf("key")));
+        assertFalse(copy.containsKey("key42"));
+        assertEquals(map, copy.copyFrom(map));
+        assertTrue(copy.remove("key42"));
+        assertEquals("value43", copy.values().get(copy.indexOf("key43")));
+    }
+
+    @Test
+    public void testClearReusesStorage() {
+        final IntMap<RepeatedString> map = IntMap.newInstance(RepeatedString.newEmptyInstance());
+        map.values().set(map.put(1), "one");
+        final Utf8String value = map.values().getBytes(0);
+        map.clearQuick();
+        assertTrue(map.isEmpty());
+        assertFalse(map.containsKey(1));
+
+        // New entries reuse the previously allocated objects
+        assertEquals(0, map.put(2));
+        assertSame(value, map.values().getBytes(0));
+        assertEquals("", map.values().get(0));
+    }
+
+}
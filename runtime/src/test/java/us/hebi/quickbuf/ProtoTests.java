@@ -20,20 +20,27 @@
 
 package us.hebi.quickbuf;
 
+import com.google.quickbuf.ListValue;
 import com.google.quickbuf.Struct;
 import com.google.quickbuf.Value;
 import org.junit.Test;
 import protos.test.quickbuf.*;
+import protos.test.quickbuf.LazyParsing.LazyEnvelope;
 import protos.test.quickbuf.LazyTypes.LazyMessage;
 import protos.test.quickbuf.TestAllTypes.NestedEnum;
 import protos.test.quickbuf.UnittestFieldOrder.MessageWithMultibyteNumbers;
 import protos.test.quickbuf.UnittestRequired.TestAllTypesRequired;
+import protos.test.quickbuf.ZeroCopyBytes.ImageFrame;
+import protos.test.quickbuf.ZeroCopyBytes.RoutedMessage;
 import protos.test.quickbuf.external.ImportEnum;
+import protos.test.quickbuf.hash_maps.TestMaps;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Random;
 
 import static org.junit.Assert.*;
@@ -750,6 +757,881 @@ public class ProtoTests {
         assertArrayEquals(outData, inData);
     }
 
+    @Test
+    public void testLazyParsing() throws IOException {
+        LazyEnvelope msg = LazyEnvelope.newInstance().setId(7);
+        msg.getMutablePayload().setName("payload").addAllValues(1, 2, 3)
+                .getMutableChild().setName("child");
+        msg.getMutableEagerPayload().setName("eager");
+        msg.getMutableRequiredPayload().setValue(42);
+        msg.getMutableLazyChoice().addValues(-1);
+        byte[] bytes = msg.toByteArray();
+
+        // Unparsed fields get written back unchanged
+        LazyEnvelope lazy = LazyEnvelope.parseFrom(bytes);
+        assertArrayEquals(bytes, lazy.toByteArray());
+        assertArrayEquals(bytes, lazy.clone().toByteArray());
+        assertEquals(msg, lazy);
+        assertEquals(msg.toString(), LazyEnvelope.parseFrom(bytes).toString());
+        assertEquals("child", LazyEnvelope.parseFrom(bytes).getPayload().getChild().getName());
+
+        // Repeated occurrences get merged
+        byte[] twice = new byte[bytes.length * 2];
+        System.arraycopy(bytes, 0, twice, 0, bytes.length);
+        System.arraycopy(bytes, 0, twice, bytes.length, bytes.length);
+        LazyEnvelope merged = LazyEnvelope.parseFrom(twice);
+        assertEquals(msg.clone().mergeFrom(msg), merged);
+        assertEquals(6, merged.getPayload().getValues().length());
+        assertEquals(merged, LazyEnvelope.parseFrom(bytes).mergeFrom(LazyEnvelope.parseFrom(bytes)));
+        lazy = LazyEnvelope.parseFrom(bytes);
+        lazy.getPayload();
+        assertEquals(merged, ProtoMessage.mergeFrom(lazy, bytes));
+
+        // Setters and oneofs discard unparsed bytes
+        lazy = LazyEnvelope.parseFrom(bytes);
+        lazy.setPayload(LazyEnvelope.Payload.newInstance().setName("other")).setText("text");
+        assertFalse(lazy.hasLazyChoice());
+        assertEquals(LazyEnvelope.parseFrom(lazy.toByteArray()), lazy);
+        assertEquals("other", LazyEnvelope.parseFrom(lazy.toByteArray()).getPayload().getName());
+
+        // Views of lazily parsed fields don't refer to the reused lazy storage
+        RepeatedByte storage = RepeatedByte.newEmptyInstance().addAll(msg.getPayload().toByteArray());
+        LazyEnvelope.Payload payload = LazyEnvelope.Payload.newInstance();
+        ProtoMessage.mergeLazyBytes(payload, storage);
+        BytesView name = payload.getNameView();
+        storage.addAll(LazyEnvelope.Payload.newInstance().setName("overwritten").toByteArray());
+        assertTrue(name.contentEquals("payload".getBytes(UTF_8)));
+        assertEquals(msg.getPayload(), payload);
+
+        // Malformed content only fails on access
+        byte[] malformed = new byte[]{0x12, 0x02, (byte) 0xFF, (byte) 0xFF};
+        lazy = LazyEnvelope.parseFrom(malformed);
+        assertArrayEquals(malformed, lazy.toByteArray());
+        try {
+            lazy.getPayload();
+            fail("malformed lazy field");
+        } catch (IllegalStateException expected) {
+        }
+
+        // Required fields in lazy messages still get checked
+        byte[] missingRequired = new byte[]{0x22, 0x00};
+        try {
+            LazyEnvelope.parseFrom(missingRequired);
+            fail("missing required field");
+        } catch (InvalidProtocolBufferException expected) {
+        }
+    }
+
+    @Test
+    public void testZeroCopyBytes() throws IOException {
+        byte[] pixels = new byte[64 * 1024];
+        new Random(0).nextBytes(pixels);
+        ImageFrame msg = ImageFrame.newInstance()
+                .setTimestamp(1)
+                .setPixels(pixels)
+                .setJpeg(new byte[]{1, 2, 3});
+        msg.addTiles(new byte[]{4});
+        byte[] bytes = msg.toByteArray();
+
+        // Array sources refer to the input
+        ImageFrame frame = ImageFrame.parseFrom(bytes);
+        BytesView view = frame.getPixelsView();
+        assertTrue(view.hasArray());
+        assertSame(bytes, view.array());
+        assertArrayEquals(pixels, view.toArray());
+        assertArrayEquals(bytes, frame.toByteArray());
+        assertEquals(msg, frame);
+
+        // Direct sources refer to native memory, and sinks copy directly
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        frame.clear().mergeFrom(ProtoSource.newDirectSource().setInput(direct));
+        assertFalse(frame.getPixelsView().hasArray());
+        assertEquals(msg, frame);
+        assertArrayEquals(bytes, frame.toByteArray());
+        ByteBuffer output = ByteBuffer.allocateDirect(bytes.length);
+        frame.writeTo(ProtoSink.newDirectSink().setOutput(output));
+        assertEquals(direct, output);
+
+        // Other sources copy into owned storage
+        frame.clear().mergeFrom(ProtoSource.newInstance(new ByteArrayInputStream(bytes)));
+        assertNotSame(bytes, frame.getPixelsView().array());
+        assertEquals(msg, frame);
+
+        // Sources can be set to copy views, e.g., for input buffers that get reused
+        byte[] input = bytes.clone();
+        frame.clear().mergeFrom(ProtoSource.newInstance(input).copyBytesViews());
+        assertNotSame(input, frame.getPixelsView().array());
+        Arrays.fill(input, (byte) 0);
+        assertEquals(msg, frame);
+        frame.clear().mergeFrom(ProtoSource.newDirectSource().setInput(direct.duplicate()).copyBytesViews());
+        assertTrue(frame.getPixelsView().hasArray());
+        assertEquals(msg, frame);
+
+        // Mutable access and copies detach from the input
+        input = bytes.clone();
+        frame = ImageFrame.parseFrom(input);
+        ImageFrame copy = frame.clone();
+        ImageFrame merged = ImageFrame.newInstance().mergeFrom(frame);
+        frame.getMutablePixels().set(0, (byte) ~pixels[0]);
+        Arrays.fill(input, (byte) 0);
+        assertArrayEquals(bytes, copy.toByteArray());
+        assertArrayEquals(bytes, merged.toByteArray());
+        assertEquals(msg, copy);
+        assertEquals((byte) ~pixels[0], frame.getPixels().get(0));
+
+        // Empty values replace previous contents
+        frame = ImageFrame.parseFrom(bytes);
+        ProtoMessage.mergeFrom(frame, ImageFrame.newInstance().setPixels(new byte[0]).toByteArray());
+        assertTrue(frame.hasPixels());
+        assertEquals(0, frame.getPixelsView().length());
+        assertEquals(0, frame.getPixels().length());
+
+        // Oneof fields still get cleared
+        frame = ImageFrame.parseFrom(bytes).setFormat("png");
+        assertFalse(frame.hasJpeg());
+        assertEquals(frame, ImageFrame.parseFrom(frame.toByteArray()));
+    }
+
+    @Test
+    public void testZeroCopyStrings() throws IOException {
+        byte[] topic = "sensors/lidar/front".getBytes(UTF_8);
+        byte[] prefix = "sensors/".getBytes(UTF_8);
+        RoutedMessage msg = RoutedMessage.newInstance()
+                .setTopic("sensors/lidar/front")
+                .setPayload(new byte[]{1, 2, 3});
+        byte[] bytes = msg.toByteArray();
+
+        // Views refer to the input and can be compared without decoding
+        RoutedMessage routed = RoutedMessage.parseFrom(bytes);
+        BytesView view = routed.getTopicView();
+        assertSame(bytes, view.array());
+        assertTrue(view.contentEquals(topic));
+        assertFalse(view.contentEquals(prefix));
+        assertTrue(view.startsWith(prefix));
+        assertFalse(view.startsWith("lidar".getBytes(UTF_8)));
+        assertEquals(Arrays.hashCode(topic), view.contentHash());
+        assertEquals(view.contentHash(), view.hashCode());
+        assertArrayEquals(bytes, routed.toByteArray());
+        assertEquals(msg, routed);
+
+        // Accessors decode a copy
+        assertEquals("sensors/lidar/front", routed.getTopic());
+        assertTrue(routed.getTopicView().contentEquals(topic));
+        assertNotSame(bytes, routed.getTopicView().array());
+        assertTrue(RoutedMessage.parseFrom(bytes).setTopic("other").getTopicView().contentEquals("other".getBytes(UTF_8)));
+        assertEquals(RoutedMessage.parseFrom(bytes).setTopic("other"), msg.clone().setTopic("other"));
+
+        // Utf8String comparisons work on the encoded bytes
+        Utf8String str = Utf8String.newInstance("grüße/" + "sensors/lidar/front");
+        byte[] encoded = "grüße/sensors/lidar/front".getBytes(UTF_8);
+        assertTrue(str.equalsUtf8(encoded));
+        assertTrue(str.startsWith("grüße".getBytes(UTF_8)));
+        assertFalse(str.startsWith(prefix));
+        assertEquals(Arrays.hashCode(encoded), str.hashUtf8());
+        assertTrue(Utf8String.newEmptyInstance().copyFromUtf8(encoded, 0, 5).equalsUtf8(encoded, 0, 5));
+        assertFalse(Utf8String.newInstance("abc").equalsUtf8(encoded));
+    }
+
+    @Test
+    public void testDecodeUtf8WordAtATime() throws Exception {
+        final String[] inputs = {
+                "", "a", "ascii", "exactly8", "ascii string that spans several words",
+                "mixed \u00fc\u00df \uD83D\uDCA9 runs of ascii in between words",
+                "\u3053\u308c\u306f\u9577\u3044\u6587\u5b57\u5217\u3067\u3059",
+                "ascii prefix\u00e9", "1234567\u00e9abcdefgh12345678\u00e9"
+        };
+        final StringBuilder result = new StringBuilder();
+        for (String input : inputs) {
+            final byte[] utf8 = input.getBytes(UTF_8);
+            for (int start = 0; start <= Math.min(3, utf8.length); start++) {
+                final byte[] padded = new byte[utf8.length + 2 * start];
+                System.arraycopy(utf8, 0, padded, start, utf8.length);
+                ProtoUtil.decodeUtf8(padded, start, utf8.length, result);
+                assertEquals(input, result.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testEncodeCompactStrings() throws Exception {
+        final String[] inputs = {
+                "", "a", "exactly8", "ascii string that spans several words",
+                "latin1 gr\u00fc\u00dfe", "\u00e9", "utf16 \u3053\u308c\u306f", "\uD83D\uDCA9 emoji"
+        };
+        final byte[] buffer = new byte[256];
+        for (String input : inputs) {
+            final byte[] utf8 = input.getBytes(UTF_8);
+            final byte[] expected = new byte[utf8.length + 1];
+            expected[0] = (byte) utf8.length;
+            System.arraycopy(utf8, 0, expected, 1, utf8.length);
+            assertEquals(expected.length, ProtoSink.computeStringSizeNoTag(input));
+
+            final ByteArrayOutputStream utf8String = new ByteArrayOutputStream();
+            Utf8String.newInstance(input).writeTo(utf8String);
+            assertArrayEquals(utf8, utf8String.toByteArray());
+
+            // Failed fast paths may leave garbage in the buffer
+            for (ProtoSink sink : new ProtoSink[]{ProtoSink.newArraySink(), ProtoSink.newDirectSink()}) {
+                Arrays.fill(buffer, (byte) 0x55);
+                sink.setOutput(buffer).writeStringNoTag(input);
+                assertArrayEquals(expected, Arrays.copyOf(buffer, expected.length));
+            }
+
+            final ByteBuffer direct = ByteBuffer.allocateDirect(buffer.length);
+            ProtoSink.newInstance(direct).writeStringNoTag(input);
+            for (int i = 0; i < expected.length; i++) {
+                buffer[i] = direct.get(i);
+            }
+            assertArrayEquals(expected, Arrays.copyOf(buffer, expected.length));
+
+            for (ProtoSink sink : new ProtoSink[]{ProtoSink.newStreamSink(), ProtoSink.newBufferedStreamSink()}) {
+                final ByteArrayOutputStream output = new ByteArrayOutputStream();
+                sink.setOutput(output).writeStringNoTag(input);
+                sink.flush();
+                assertArrayEquals(expected, output.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    public void testEncodeCompactStringsToStream() throws Exception {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            builder.append("ascii ");
+        }
+        final String input = builder.toString();
+        final String expected = new String(input.toCharArray());
+
+        // Outputs that modify the arrays they get passed must not be able to modify the string
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final OutputStream scrambling = new OutputStream() {
+            @Override
+            public void write(int b) {
+                output.write(b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                output.write(b, off, len);
+                Arrays.fill(b, off, off + len, (byte) '?');
+            }
+        };
+        for (ProtoSink sink : new ProtoSink[]{ProtoSink.newStreamSink(), ProtoSink.newBufferedStreamSink(16)}) {
+            output.reset();
+            sink.setOutput(scrambling).writeStringNoTag(input);
+            sink.flush();
+            assertEquals(expected, input);
+            final Utf8String actual = Utf8String.newEmptyInstance();
+            ProtoSource.newInstance(output.toByteArray()).readString(actual);
+            assertEquals(expected, actual.getString());
+        }
+    }
+
+    @Test
+    public void testBulkPackedVarints() throws Exception {
+        final Random rnd = new Random(0);
+        final RepeatedPackables.Packed msg = RepeatedPackables.Packed.newInstance();
+        for (int i = 0; i < 10000; i++) {
+            final int bits = rnd.nextInt(64);
+            final long value = rnd.nextLong() >> bits;
+            msg.getInt32S().add((int) value);
+            msg.getSint32S().add((int) value);
+            msg.getUint32S().add((int) (value >>> 32));
+            msg.getInt64S().add(value);
+            msg.getSint64S().add(value);
+            msg.getUint64S().add(value >>> bits);
+        }
+        final byte[] bytes = msg.toByteArray();
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        final ProtoSource[] sources = new ProtoSource[]{
+                ProtoSource.newArraySource().setInput(bytes),
+                ProtoSource.newDirectSource().setInput(bytes),
+                ProtoSource.newDirectSource().setInput(direct),
+                ProtoSource.newInstance(new ByteArrayInputStream(bytes))
+        };
+        final RepeatedPackables.Packed expected = RepeatedPackables.Packed.newInstance();
+        expected.getInt32S().add(1);
+        expected.mergeFrom(msg);
+        for (ProtoSource source : sources) {
+            // Append to existing contents
+            final RepeatedPackables.Packed actual = RepeatedPackables.Packed.newInstance();
+            actual.getInt32S().add(1);
+            actual.mergeFrom(source);
+            assertEquals(expected, actual);
+        }
+
+        // A partial varint at the end of a packed run
+        final byte[] truncated = new byte[]{0x0A, 0x03, 0x01, 0x02, (byte) 0x80};
+        for (ProtoSource source : new ProtoSource[]{ProtoSource.newArraySource(), ProtoSource.newDirectSource()}) {
+            try {
+                RepeatedPackables.Packed.parseFrom(source.setInput(truncated));
+                fail("expected truncated message");
+            } catch (InvalidProtocolBufferException truncatedMessage) {
+            }
+        }
+    }
+
+    @Test
+    public void testBulkPackedVarintEncoding() throws Exception {
+        final Random rnd = new Random(0);
+        for (int numValues : new int[]{0, 1, 20, 200, 10000}) {
+            for (int maxBits : new int[]{7, 14, 64}) {
+                final RepeatedPackables.Packed msg = RepeatedPackables.Packed.newInstance();
+                for (int i = 0; i < numValues; i++) {
+                    final long value = rnd.nextLong() >> (64 - 1 - rnd.nextInt(maxBits));
+                    msg.getInt32S().add((int) value);
+                    msg.getSint32S().add((int) value);
+                    msg.getUint32S().add((int) Math.abs(value));
+                    msg.getInt64S().add(value);
+                    msg.getSint64S().add(value);
+                    msg.getUint64S().add(Math.abs(value));
+                }
+
+                // Reference output from the two-pass implementation
+                final ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                msg.writeTo(ProtoSink.newInstance(stream));
+                final byte[] expected = stream.toByteArray();
+                assertEquals(msg.getSerializedSize(), expected.length);
+                assertArrayEquals(expected, msg.toByteArray());
+
+                // Sinks with more space than needed
+                final int offset = 3;
+                final byte[] array = new byte[expected.length + 100];
+                final ByteBuffer direct = ByteBuffer.allocateDirect(expected.length + 100);
+                final ProtoSink[] sinks = new ProtoSink[]{
+                        ProtoSink.newArraySink().setOutput(array, offset, array.length - offset),
+                        ProtoSink.newDirectSink().setOutput(array, offset, array.length - offset),
+                        ProtoSink.newDirectSink().setOutput(direct)
+                };
+                for (ProtoSink sink : sinks) {
+                    Arrays.fill(array, (byte) 0);
+                    msg.writeTo(sink);
+                    assertEquals(expected.length, sink.getTotalBytesWritten());
+                    final byte[] actual = new byte[expected.length];
+                    if (sink == sinks[2]) {
+                        for (int i = 0; i < actual.length; i++) {
+                            actual[i] = direct.get(i);
+                        }
+                    } else {
+                        System.arraycopy(array, offset, actual, 0, actual.length);
+                    }
+                    assertArrayEquals(expected, actual);
+                }
+
+                // Sinks with too little space
+                if (expected.length > 0) {
+                    for (ProtoSink sink : new ProtoSink[]{ProtoSink.newArraySink(), ProtoSink.newDirectSink()}) {
+                        try {
+                            msg.writeTo(sink.setOutput(new byte[expected.length - 1]));
+                            fail("expected out of space");
+                        } catch (ProtoSink.OutOfSpaceException outOfSpace) {
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSinglePassSerialization() throws Exception {
+        // Nested lengths that don't fit into the provisional single byte
+        char[] chars = new char[300];
+        Arrays.fill(chars, 'a');
+        final Value leaf = Value.newInstance().setStringValue(new String(chars));
+        Value msg = leaf;
+        for (int i = 0; i < 5; i++) {
+            final ListValue list = ListValue.newInstance()
+                    .addValues(msg)
+                    .addValues(Value.newInstance().setNumberValue(i));
+            msg = Value.newInstance().setListValue(list);
+        }
+        assertSinglePassOutput(msg);
+
+        // Nested lengths that need fewer bytes than the last known size
+        final Value child = msg.getMutableListValue().getMutableValues().get(0);
+        child.getMutableListValue().getMutableValues().get(0).setStringValue("abc");
+        assertSinglePassOutput(msg);
+
+        // Nested sizes get updated as a side effect
+        child.getMutableListValue().getMutableValues().get(0).setStringValue("abcdef");
+        msg.writeTo(ProtoSink.newArraySink().setOutput(new byte[4096]).setSinglePassMode(true));
+        final int cachedSize = child.getCachedSize();
+        assertEquals(child.getSerializedSize(), cachedSize);
+
+        // Sinks that don't support backpatching
+        ProtoSink.newStreamSink().setSinglePassMode(false);
+        try {
+            ProtoSink.newStreamSink().setSinglePassMode(true);
+            fail("expected unsupported operation");
+        } catch (UnsupportedOperationException unsupported) {
+        }
+    }
+
+    private static void assertSinglePassOutput(ProtoMessage<?> msg) throws IOException {
+        final byte[][] results = new byte[4][];
+        final byte[] array = new byte[4096];
+        final ByteBuffer direct = ByteBuffer.allocateDirect(4096);
+        final RepeatedByte bytes = RepeatedByte.newEmptyInstance();
+
+        ProtoSink sink = ProtoSink.newArraySink().setOutput(array).setSinglePassMode(true);
+        msg.writeTo(sink);
+        results[0] = Arrays.copyOf(array, sink.getTotalBytesWritten());
+
+        sink = ProtoSink.newDirectSink().setOutput(array).setSinglePassMode(true);
+        msg.writeTo(sink);
+        results[1] = Arrays.copyOf(array, sink.getTotalBytesWritten());
+
+        sink = ProtoSink.newDirectSink().setOutput(direct).setSinglePassMode(true);
+        msg.writeTo(sink);
+        results[2] = new byte[sink.getTotalBytesWritten()];
+        for (int i = 0; i < results[2].length; i++) {
+            results[2][i] = direct.get(i);
+        }
+
+        sink = ProtoSink.newInstance(bytes).setSinglePassMode(true);
+        msg.writeTo(sink);
+        results[3] = bytes.toArray();
+
+        final byte[] expected = msg.toByteArray();
+        for (byte[] result : results) {
+            assertArrayEquals(expected, result);
+        }
+    }
+
+    @Test
+    public void testDirtyTracking() throws Exception {
+        final Value msg = Value.newInstance().setListValue(ListValue.newInstance()
+                .addValues(Value.newInstance().setStringValue("left"))
+                .addValues(Value.newInstance().setStringValue("right")));
+        final Value left = msg.getListValue().getValues().get(0);
+        final Value right = msg.getListValue().getValues().get(1);
+        assertDirtyTrackedSize(msg);
+
+        // Setters on nested messages are visible to the parents
+        left.setStringValue("modified left");
+        assertDirtyTrackedSize(msg);
+
+        // Nested sizes that were updated independently of the parent
+        right.setStringValue("modified right");
+        assertEquals(16, right.getSerializedSize());
+        assertDirtyTrackedSize(msg);
+        left.setNumberValue(1);
+        msg.writeTo(ProtoSink.newArraySink().setOutput(new byte[256]).setSinglePassMode(true));
+        assertDirtyTrackedSize(msg);
+
+        // Mutable getters, clear, and parsing invalidate the size
+        msg.getMutableListValue().getMutableValues().clear();
+        assertDirtyTrackedSize(msg);
+        msg.mergeFrom(ProtoSource.newInstance(Value.newInstance().setBoolValue(true).toByteArray()));
+        assertDirtyTrackedSize(msg);
+        msg.getMutableListValue().getMutableValues().next().setStringValue("added");
+        assertDirtyTrackedSize(msg);
+
+        // Modifications via previously retrieved containers
+        final RepeatedMessage<Value> values = msg.getMutableListValue().getMutableValues();
+        final Utf8String string = values.get(0).getMutableStringValueBytes();
+        assertDirtyTrackedSize(msg);
+        string.copyFrom("modified via container");
+        assertDirtyTrackedSize(msg);
+        values.next().setBoolValue(false);
+        assertDirtyTrackedSize(msg);
+        msg.getUnknownBytes().addAll(new byte[]{(byte) 0x98, 0x06, 0x01});
+        assertDirtyTrackedSize(msg);
+    }
+
+    private static void assertDirtyTrackedSize(ProtoMessage<?> msg) throws IOException {
+        final ReverseSink sink = ReverseSink.newInstance();
+        msg.writeToReverse(sink);
+        assertEquals(sink.getTotalBytesWritten(), msg.getSerializedSize());
+        assertEquals(sink.getTotalBytesWritten(), msg.getSerializedSize());
+    }
+
+    @Test
+    public void testMemoizedOutput() throws Exception {
+        final Value template = Value.newInstance().setStringValue("shared");
+        template.toByteArray();
+        final ListValue list = ListValue.newInstance();
+        for (int i = 0; i < 3; i++) {
+            list.addValues(template);
+        }
+        final Value msg = Value.newInstance().setListValue(list);
+        assertNull(ProtoMessage.getMemoizedOutput(msg));
+
+        // Unchanged messages write the same bytes
+        final byte[] expected = msg.toByteArray();
+        final byte[] memoized = ProtoMessage.getMemoizedOutput(msg);
+        assertArrayEquals(expected, memoized);
+        assertArrayEquals(expected, msg.toByteArray());
+
+        // Copies take over the memoized output, including nested messages
+        assertArrayEquals(ProtoMessage.getMemoizedOutput(template), ProtoMessage.getMemoizedOutput(msg.getListValue().getValues().get(2)));
+        assertArrayEquals(memoized, ProtoMessage.getMemoizedOutput(msg.clone()));
+
+        // Changes that fit into the previous output reuse the buffer
+        final byte[] buffer = ProtoMessage.getMemoizedBuffer(msg);
+        msg.getMutableListValue().getMutableValues().get(0).setStringValue("change");
+        assertNull(ProtoMessage.getMemoizedOutput(msg));
+        assertMemoizedOutput(msg);
+        assertSame(buffer, ProtoMessage.getMemoizedBuffer(msg));
+
+        // Changes to nested messages invalidate all parents
+        final Value child = msg.getListValue().getValues().get(1);
+        child.setStringValue("modified");
+        assertNull(ProtoMessage.getMemoizedOutput(msg));
+        assertMemoizedOutput(msg);
+
+        // Nested messages that were written on their own in the meantime
+        child.setNumberValue(1);
+        child.toByteArray();
+        assertNull(ProtoMessage.getMemoizedOutput(msg));
+        assertMemoizedOutput(msg);
+
+        // Nested messages that were added or removed via previously retrieved containers
+        final RepeatedMessage<Value> values = msg.getMutableListValue().getMutableValues();
+        assertMemoizedOutput(msg);
+        values.next().setBoolValue(true);
+        assertMemoizedOutput(msg);
+        values.clear();
+        assertMemoizedOutput(msg);
+        values.next().setBoolValue(true);
+        assertMemoizedOutput(msg);
+
+        // Changes further down the tree are detected as well
+        final Value grandchild = msg.getListValue().getValues().get(0)
+                .setListValue(ListValue.newInstance().addValues(Value.newInstance()))
+                .getListValue().getValues().get(0);
+        assertMemoizedOutput(msg);
+        grandchild.setNumberValue(2);
+        assertNull(ProtoMessage.getMemoizedOutput(msg));
+        assertMemoizedOutput(msg);
+
+        // Parsing and clear invalidate the output
+        msg.mergeFrom(ProtoSource.newInstance(expected));
+        assertMemoizedOutput(msg);
+        msg.clear();
+        assertMemoizedOutput(msg);
+    }
+
+    private static void assertMemoizedOutput(ProtoMessage<?> msg) throws IOException {
+        final ReverseSink sink = ReverseSink.newInstance();
+        msg.writeToReverse(sink);
+        final byte[] expected = sink.toByteArray();
+        assertArrayEquals(expected, msg.toByteArray());
+        assertArrayEquals(expected, ProtoMessage.getMemoizedOutput(msg));
+        assertEquals(expected.length, msg.getSerializedSize());
+    }
+
+    @Test
+    public void testFieldMask() throws Exception {
+        final LazyMessage msg = LazyMessage.newInstance()
+                .setOptionalString("text")
+                .addAllRepeatedInt32(1, 2, 3)
+                .addRepeatedString("unselected");
+        msg.getMutableOptionalGroup().setA(7);
+        final FieldMask<LazyMessage> mask = LazyMessage.newFieldMask(14, 16, 31);
+        assertEquals(mask, LazyMessage.newFieldMask(14).or(LazyMessage.newFieldMask(16, 31)));
+
+        // Partial output contains only the selected fields
+        final LazyMessage expected = LazyMessage.newInstance()
+                .setOptionalString("text")
+                .addAllRepeatedInt32(1, 2, 3);
+        expected.getMutableOptionalGroup().setA(7);
+        final byte[] expectedBytes = expected.toByteArray();
+        assertEquals(expectedBytes.length, msg.computeSerializedSize(mask));
+        final byte[] partial = new byte[expectedBytes.length];
+        final ProtoSink sink = ProtoSink.newInstance(partial);
+        msg.writeTo(sink, mask);
+        sink.checkNoSpaceLeft();
+        assertArrayEquals(expectedBytes, partial);
+
+        // Copies replace the selected fields and keep the others
+        final LazyMessage target = LazyMessage.newInstance()
+                .setOptionalString("old")
+                .addRepeatedString("kept");
+        target.getSerializedSize();
+        target.copyFrom(msg, mask);
+        assertEquals(expected.clone().addRepeatedString("kept"), target);
+        assertEquals(target.toByteArray().length, target.getSerializedSize());
+        target.copyFrom(LazyMessage.newInstance(), mask);
+        assertEquals(LazyMessage.newInstance().addRepeatedString("kept"), target);
+
+        // Merges only touch the selected fields
+        target.mergeFrom(msg, mask).mergeFrom(msg, mask);
+        assertArrayEquals(new int[]{1, 2, 3, 1, 2, 3}, target.getRepeatedInt32().toArray());
+        assertEquals(1, target.getRepeatedString().length());
+        assertEquals("text", target.getOptionalString());
+
+        // Selected oneof fields replace the other fields in the same oneof
+        final Value value = Value.newInstance().setNumberValue(1);
+        value.copyFrom(Value.newInstance().setStringValue("text"), Value.newFieldMask(3));
+        assertEquals(Value.newInstance().setStringValue("text"), value);
+        value.mergeFrom(Value.newInstance().setBoolValue(true), Value.newFieldMask(4));
+        assertEquals(Value.newInstance().setBoolValue(true), value);
+        value.mergeFrom(Value.newInstance().setNumberValue(2), Value.newFieldMask(3));
+        assertEquals(Value.newInstance().setBoolValue(true), value);
+
+        try {
+            LazyMessage.newFieldMask(1000);
+            fail("expected unknown field number");
+        } catch (IllegalArgumentException unknownField) {
+        }
+    }
+
+    @Test
+    public void testMaskedParsing() throws Exception {
+        final LazyMessage msg = LazyMessage.newInstance()
+                .setOptionalString("text")
+                .setOptionalBytes(new byte[]{1, 2, 3})
+                .addAllRepeatedInt32(1, 2, 3)
+                .addAllRepeatedString("a", "b");
+        msg.getMutableOptionalGroup().setA(7);
+        msg.getMutableOptionalNestedMessage().setBb(2).getMutableRecursiveMessage().setOptionalString("nested");
+        msg.getMutableRepeatedNestedMessage().next().setBb(3).getMutableRecursiveMessage();
+        final byte[] bytes = msg.toByteArray();
+
+        // Only the selected fields get parsed
+        final FieldMask<LazyMessage> mask = LazyMessage.newFieldMask(14, 31, 16);
+        final LazyMessage expected = LazyMessage.newInstance().copyFrom(msg, mask);
+        final LazyMessage result = LazyMessage.newInstance().mergeFrom(ProtoSource.newInstance(bytes), mask);
+        assertEquals(expected, result);
+        assertEquals(0, result.getUnknownBytes().length());
+        assertFalse(result.hasOptionalNestedMessage());
+        assertFalse(result.hasRepeatedString());
+
+        // Equivalent to a regular parse for a full mask
+        final FieldMask<LazyMessage> all = LazyMessage.newFieldMask(14, 15, 16, 18, 31, 44, 48);
+        assertEquals(msg, LazyMessage.newInstance().mergeFrom(ProtoSource.newInstance(bytes), all));
+
+        // Unselected fields are left unchanged
+        final LazyMessage target = LazyMessage.newInstance().addRepeatedString("kept");
+        target.mergeFrom(ProtoSource.newInstance(bytes), mask);
+        assertEquals(expected.clone().addRepeatedString("kept"), target);
+        assertEquals(0, LazyMessage.newInstance()
+                .mergeFrom(ProtoSource.newInstance(bytes), LazyMessage.newFieldMask())
+                .getSerializedSize());
+    }
+
+    @Test
+    public void testDiffPatch() throws Exception {
+        final LazyMessage previous = LazyMessage.newInstance()
+                .setOptionalString("text")
+                .setOptionalBytes(new byte[]{1, 2, 3})
+                .addAllRepeatedInt32(1, 2, 3)
+                .addAllRepeatedString("a", "b");
+        previous.getMutableOptionalNestedMessage().setBb(2).getMutableRecursiveMessage();
+        previous.getMutableRepeatedNestedMessage().next().setBb(3).getMutableRecursiveMessage();
+
+        // Equal messages only write the header
+        final RepeatedByte patch = RepeatedByte.newEmptyInstance();
+        LazyMessage.diff(previous, previous.clone(), ProtoSink.newInstance(patch));
+        assertEquals(1, patch.length());
+
+        // Changed fields get replaced, set, or cleared
+        final LazyMessage current = previous.clone()
+                .setOptionalString("changed")
+                .clearOptionalBytes();
+        current.getMutableOptionalGroup().setA(5);
+        current.getMutableRepeatedInt32().clear();
+        current.addRepeatedInt32(4);
+        current.getMutableOptionalNestedMessage().setBb(7);
+        assertDiffPatch(previous, current);
+        assertDiffPatch(current, previous);
+        assertDiffPatch(LazyMessage.newInstance(), current);
+        assertDiffPatch(current, LazyMessage.newInstance());
+
+        // Nested messages that were modified after the last size computation
+        current.getSerializedSize();
+        current.getMutableOptionalNestedMessage().setBb(Integer.MIN_VALUE);
+        current.getMutableRepeatedNestedMessage().get(0).setBb(Integer.MAX_VALUE);
+        assertDiffPatch(previous, current);
+
+        // Unchanged fields are not part of the patch
+        patch.clear();
+        LazyMessage.diff(previous, previous.clone().setOptionalString("changed"), ProtoSink.newInstance(patch));
+        assertEquals(1 + 1 + 1 + "changed".length(), patch.length());
+
+        // Switching oneof cases clears the previous case
+        final Value number = Value.newInstance().setNumberValue(2);
+        final Value string = Value.newInstance().setStringValue("two");
+        patch.clear();
+        Value.diff(number, string, ProtoSink.newInstance(patch));
+        assertEquals(string, number.clone().applyPatch(ProtoSource.newInstance(patch)));
+    }
+
+    private static void assertDiffPatch(LazyMessage previous, LazyMessage current) throws IOException {
+        final RepeatedByte patch = RepeatedByte.newEmptyInstance();
+        LazyMessage.diff(previous, current, ProtoSink.newInstance(patch));
+        assertEquals(current, previous.clone().applyPatch(ProtoSource.newInstance(patch)));
+    }
+
+    @Test
+    public void testHashCode() throws Exception {
+        final TestAllTypes msg = TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+        final TestAllTypes copy = msg.clone();
+        assertEquals(msg, copy);
+        assertEquals(msg.hashCode(), copy.hashCode());
+        assertEquals(TestAllTypes.newInstance().hashCode(), TestAllTypes.newInstance().hashCode());
+
+        // Changes to the content or to the has state change the hash
+        final int hash = msg.hashCode();
+        assertNotEquals(hash, copy.setOptionalInt32(copy.getOptionalInt32() + 1).hashCode());
+        assertNotEquals(hash, msg.clone().clearOptionalInt32().hashCode());
+        assertNotEquals(hash, msg.clone().addRepeatedString("extra").hashCode());
+        final TestAllTypes nested = msg.clone();
+        nested.getMutableOptionalNestedMessage().setBb(nested.getOptionalNestedMessage().getBb() + 1);
+        assertNotEquals(hash, nested.hashCode());
+
+        // Unknown fields are ignored like in equals
+        final RepeatedByte bytes = RepeatedByte.newEmptyInstance().addAll(msg.toByteArray());
+        bytes.addAll(new byte[]{(byte) 0xF8, (byte) 0xF0, 0x04, 0x01}); // field 9999 = 1
+        final TestAllTypes unknown = TestAllTypes.parseFrom(bytes.toArray());
+        assertNotEquals(0, unknown.getUnknownBytes().length());
+        assertEquals(msg, unknown);
+        assertEquals(hash, unknown.hashCode());
+
+        // Strings hash the same regardless of whether they were decoded
+        final Utf8String decoded = Utf8String.newInstance("h\u00e4llo");
+        final Utf8String encoded = Utf8String.newEmptyInstance().copyFromUtf8(decoded.getString().getBytes(UTF_8));
+        assertEquals(decoded, encoded);
+        assertEquals(decoded.hashCode(), encoded.hashCode());
+
+        // Repeated fields are consistent with equals
+        assertEquals(RepeatedDouble.newEmptyInstance().add(-0.0).hashCode(),
+                RepeatedDouble.newEmptyInstance().add(-0.0).hashCode());
+        assertEquals(Arrays.hashCode(new byte[]{1, 2, 3}), RepeatedByte.newEmptyInstance().addAll(new byte[]{1, 2, 3}).hashCode());
+        assertEquals(Arrays.hashCode(new int[]{1, 2, 3}), RepeatedInt.newEmptyInstance().addAll(new int[]{1, 2, 3}).hashCode());
+
+        // Messages can be used as keys
+        final java.util.Set<TestAllTypes> set = new java.util.HashSet<TestAllTypes>();
+        set.add(msg);
+        assertTrue(set.contains(msg.clone()));
+        assertFalse(set.contains(copy));
+    }
+
+    @Test
+    public void testFingerprint() throws Exception {
+        final TestAllTypes msg = TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage());
+        final long fingerprint = msg.fingerprint64();
+        assertEquals(fingerprint, msg.clone().fingerprint64());
+        assertEquals(fingerprint, TestAllTypes.parseFrom(msg.toByteArray()).fingerprint64());
+        assertEquals(TestAllTypes.newInstance().fingerprint64(), TestAllTypes.newInstance().fingerprint64());
+        assertNotEquals(fingerprint, TestAllTypes.newInstance().fingerprint64());
+
+        // Changes to the content or to the has state change the fingerprint
+        assertNotEquals(fingerprint, msg.clone().setOptionalInt32(msg.getOptionalInt32() + 1).fingerprint64());
+        assertNotEquals(fingerprint, msg.clone().clearOptionalInt32().fingerprint64());
+        assertNotEquals(fingerprint, msg.clone().addRepeatedString("extra").fingerprint64());
+        assertNotEquals(fingerprint, msg.clone().addRepeatedBytes(new byte[]{1}).fingerprint64());
+        final TestAllTypes nested = msg.clone();
+        nested.getMutableOptionalNestedMessage().setBb(nested.getOptionalNestedMessage().getBb() + 1);
+        assertNotEquals(fingerprint, nested.fingerprint64());
+        assertNotEquals(TestAllTypes.newInstance().setOptionalInt32(1).fingerprint64(),
+                TestAllTypes.newInstance().setOptionalInt64(1).fingerprint64());
+
+        // Unknown fields are ignored like in equals
+        final RepeatedByte bytes = RepeatedByte.newEmptyInstance().addAll(msg.toByteArray());
+        bytes.addAll(new byte[]{(byte) 0xF8, (byte) 0xF0, 0x04, 0x01}); // field 9999 = 1
+        assertEquals(fingerprint, TestAllTypes.parseFrom(bytes.toArray()).fingerprint64());
+
+        // Decoded strings and zero-copy views match their encoded form
+        final Value value = Value.newInstance().setStringValue("h\u00e4llo, long enough for multiple words");
+        assertEquals(value.fingerprint64(), Value.parseFrom(value.toByteArray()).fingerprint64());
+        assertNotEquals(value.fingerprint64(), Value.newInstance().setStringValue("h\u00e4llo").fingerprint64());
+    }
+
+    @Test
+    public void testHashMaps() throws IOException {
+        final TestMaps msg = TestMaps.newInstance();
+        assertFalse(msg.hasInt32ToDouble());
+        assertEquals(0, msg.getInt32ToDoubleCount());
+        assertEquals(-1.0, msg.getInt32ToDoubleOrDefault(1, -1.0), 0);
+
+        // Last put wins
+        msg.putInt32ToDouble(1, 1.5).putInt32ToDouble(-2, 2.5).putInt32ToDouble(1, 3.5);
+        assertTrue(msg.hasInt32ToDouble());
+        assertEquals(2, msg.getInt32ToDoubleCount());
+        assertEquals(3.5, msg.getInt32ToDoubleOrThrow(1), 0);
+        assertTrue(msg.containsInt32ToDouble(-2));
+        msg.removeInt32ToDouble(1);
+        assertFalse(msg.containsInt32ToDouble(1));
+        assertEquals(2.5, msg.getInt32ToDoubleOrThrow(-2), 0);
+        try {
+            msg.getInt32ToDoubleOrThrow(1);
+            fail("expected missing key");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        // All value types
+        msg.putSint32ToFloat(-3, 0.5f)
+                .putFixed32ToBool(0xFFFFFFFF, true)
+                .putUint32ToEnum(7, TestMaps.NestedEnum.BAR)
+                .putInt64ToString(Long.MIN_VALUE, "min")
+                .putSfixed64ToBytes(3, new byte[]{1, 2})
+                .putUint64ToInt64(Long.MAX_VALUE, -1)
+                .putStringToMessage("h\u00e4llo", TestMaps.NestedMessage.newInstance().setBb(5).setText("nested"))
+                .putStringToInt32("key", 42);
+        msg.getMutableBoolToInt32().next().setKey(true).setValue(1);
+        assertEquals(0.5f, msg.getSint32ToFloatOrThrow(-3), 0);
+        assertTrue(msg.getFixed32ToBoolOrThrow(0xFFFFFFFF));
+        assertEquals(TestMaps.NestedEnum.BAR, msg.getUint32ToEnumOrThrow(7));
+        assertEquals("min", msg.getInt64ToStringOrThrow(Long.MIN_VALUE));
+        assertEquals(2, msg.getSfixed64ToBytesOrThrow(3).length());
+        assertEquals(-1, msg.getUint64ToInt64OrThrow(Long.MAX_VALUE));
+        assertEquals(5, msg.getStringToMessageOrThrow("h\u00e4llo").getBb());
+        assertEquals(42, msg.getStringToInt32OrDefault(new StringBuilder("key"), 0));
+
+        // Encodings
+        final TestMaps parsed = TestMaps.parseFrom(msg.toByteArray());
+        assertEquals(msg, parsed);
+        assertEquals(msg.hashCode(), parsed.hashCode());
+        assertEquals(msg.fingerprint64(), parsed.fingerprint64());
+        assertEquals(msg, msg.clone());
+        assertEquals(msg, TestMaps.newInstance().mergeFrom(parsed));
+        final ReverseSink sink = ReverseSink.newInstance();
+        msg.writeToReverse(sink);
+        assertArrayEquals(msg.toByteArray(), sink.toByteArray());
+
+        // Duplicate keys on the wire replace the previous value
+        final RepeatedByte bytes = RepeatedByte.newEmptyInstance()
+                .addAll(msg.toByteArray())
+                .addAll(TestMaps.newInstance().putInt32ToDouble(-2, 9.5).toByteArray());
+        parsed.clear().mergeFrom(ProtoSource.newInstance(bytes));
+        assertEquals(1, parsed.getInt32ToDoubleCount());
+        assertEquals(9.5, parsed.getInt32ToDoubleOrThrow(-2), 0);
+
+        // Equality does not depend on the order of the entries
+        final TestMaps first = TestMaps.newInstance().putStringToInt32("a", 1).putStringToInt32("b", 2);
+        final TestMaps second = TestMaps.newInstance().putStringToInt32("b", 2).putStringToInt32("a", 1);
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals(first.fingerprint64(), second.fingerprint64());
+        assertNotEquals(first, second.putStringToInt32("a", 3));
+
+        // Parsing into a cleared message reuses the existing storage
+        final IntMap<RepeatedDouble> map = parsed.getInt32ToDouble();
+        parsed.clearQuick().mergeFrom(ProtoSource.newInstance(msg.toByteArray()));
+        assertSame(map, parsed.getInt32ToDouble());
+        assertEquals(msg, parsed);
+    }
+
+    @Test
+    public void testHashMapMessageValues() throws IOException {
+        // Lazily allocated map with memoized nested values
+        final Struct struct = Struct.newInstance();
+        assertEquals(0, struct.getFieldsCount());
+        struct.putFields("number", Value.newInstance().setNumberValue(1))
+                .putFields("text", Value.newInstance().setStringValue("text"));
+        assertEquals(struct, Struct.parseFrom(struct.toByteArray()));
+
+        // Modifying a nested value invalidates the output of the parent
+        final StringMap<RepeatedMessage<Value>> fields = struct.getFields();
+        fields.values().get(fields.indexOf("number")).setNumberValue(2);
+        assertEquals(2, Struct.parseFrom(struct.toByteArray()).getFieldsOrThrow("number").getNumberValue(), 0);
+    }
+
     @Test
     public void testLazyInitialization() throws IOException {
         assertNotNull(Value.newInstance().getMutableListValue());
@@ -0,0 +1,112 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import org.junit.Test;
+import protos.test.quickbuf.LazyParsing.LazyEnvelope;
+import protos.test.quickbuf.RepeatedPackables;
+import protos.test.quickbuf.TestAllTypes;
+import protos.test.quickbuf.UnittestRequired.TestAllTypesRequired;
+import protos.test.quickbuf.ZeroCopyBytes.ImageFrame;
+
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+public class ReverseSinkTest {
+
+    @Test
+    public void testReverseSink() throws IOException {
+        final Random rnd = new Random(0);
+        final RepeatedPackables.Packed packed = RepeatedPackables.Packed.newInstance();
+        for (int i = 0; i < 1000; i++) {
+            final long value = rnd.nextLong() >> rnd.nextInt(64);
+            packed.getInt32S().add((int) value);
+            packed.getSint32S().add((int) value);
+            packed.getUint32S().add((int) value);
+            packed.getInt64S().add(value);
+            packed.getSint64S().add(value);
+            packed.getUint64S().add(value);
+            packed.getFixed32S().add((int) value);
+            packed.getFixed64S().add(value);
+            packed.getSfixed32S().add((int) value);
+            packed.getSfixed64S().add(value);
+            packed.getFloats().add(value);
+            packed.getDoubles().add(value);
+            packed.getBools().add(value < 0);
+        }
+        final RepeatedPackables.NonPacked nonPacked = RepeatedPackables.NonPacked.parseFrom(packed.toByteArray());
+
+        final LazyEnvelope lazy = LazyEnvelope.newInstance().setId(7);
+        lazy.getMutablePayload().setName("payload").addAllValues(1, 2, 3)
+                .getMutableChild().setName("child");
+        lazy.getMutableRequiredPayload().setValue(42);
+
+        final byte[] pixels = new byte[20000];
+        rnd.nextBytes(pixels);
+        final ImageFrame frame = ImageFrame.newInstance().setTimestamp(1).setPixels(pixels);
+
+        final ProtoMessage<?>[] messages = new ProtoMessage<?>[]{
+                TestAllTypes.parseFrom(CompatibilityTest.getCombinedMessage()),
+                packed,
+                nonPacked,
+                lazy,
+                LazyEnvelope.parseFrom(lazy.toByteArray()),
+                frame,
+                ImageFrame.parseFrom(frame.toByteArray()),
+                TestAllTypes.newInstance()
+        };
+
+        // Small chunks to cover writes that span multiple chunks
+        for (ReverseSink sink : new ReverseSink[]{ReverseSink.newInstance(), ReverseSink.newInstance(16)}) {
+            for (ProtoMessage<?> msg : messages) {
+                msg.writeToReverse(sink.reset());
+                final byte[] expected = msg.toByteArray();
+                assertEquals(expected.length, sink.getTotalBytesWritten());
+                assertArrayEquals(expected, sink.toByteArray());
+
+                final RepeatedByte bytes = RepeatedByte.newEmptyInstance();
+                sink.writeTo(ProtoSink.newInstance(bytes));
+                assertArrayEquals(expected, bytes.toArray());
+            }
+        }
+
+        // Required fields still get checked
+        try {
+            TestAllTypesRequired.newInstance().writeToReverse(ReverseSink.newInstance());
+            fail("missing required field");
+        } catch (UninitializedMessageException expected) {
+        }
+
+        // Only generated if reverse_output is enabled
+        try {
+            protos.test.quickbuf.field_masks.TestAllTypes.newInstance().writeToReverse(ReverseSink.newInstance());
+            fail("reverse output was not generated");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+/*-
+ * #%L
+ * quickbuf-runtime
+ * %%
+ * Copyright (C) 2019 - 2023 HEBI Robotics
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package us.hebi.quickbuf;
+
+import java.io.ByteArrayInputStream;
+
+/**
+ * Stream that returns fewer bytes than requested and does not support skipping
+ *
+ * @author Florian Enner
+ * @since 17 Oct 2026
+ */
+class ShortReadInputStream extends ByteArrayInputStream {
+
+    ShortReadInputStream(byte[] buf, int maxRead) {
+        super(buf);
+        this.maxRead = maxRead;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) {
+        return super.read(b, off, Math.min(len, maxRead));
+    }
+
+    @Override
+    public synchronized long skip(long n) {
+        return 0;
+    }
+
+    final int maxRead;
+
+}